@@ -0,0 +1,145 @@
+package br.edu.fatecpg.usafa.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import br.edu.fatecpg.usafa.features.caching.IAsyncCacheService;
+import br.edu.fatecpg.usafa.shared.tokens.JwtAuthFilter;
+import br.edu.fatecpg.usafa.shared.tokens.JwtUtils;
+import br.edu.fatecpg.usafa.shared.tokens.TokenBlocklist;
+import br.edu.fatecpg.usafa.shared.tokens.TokenRevocationService;
+import br.edu.fatecpg.usafa.shared.tokens.VerifiedToken;
+
+/**
+ * Caminho quente da autenticação: geração e validação do JWT (JwtUtils) e uma
+ * requisição inteira pelo JwtAuthFilter.
+ *
+ * O filtro roda com os componentes reais, sem Redis: a blocklist responde por
+ * um IAsyncCacheService em memória e a revogação do usuário já está no cache
+ * local. 'modo' escolhe entre a autenticação pelas claims (stateless) e a que
+ * carrega o usuário pelo UserDetailsService (aqui em memória, sem banco).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthPathBenchmark {
+
+    // Chave HMAC de 256 bits, apenas para o benchmark
+    private static final String SECRET = "dXNhZmEtYmVuY2htYXJrLXNlZ3JlZG8tZGUtMjU2LWJpdHMtcGFyYS1obWFjLXNoYQ==";
+    private static final long EXPIRATION_MS = TimeUnit.HOURS.toMillis(1);
+
+    @Param({ "stateless", "banco" })
+    private String modo;
+
+    private JwtUtils jwtUtils;
+    private JwtAuthFilter filter;
+    private UserDetails user;
+    private UUID userPublicId;
+    private String authorization;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtUtils = new JwtUtils(SECRET, EXPIRATION_MS);
+        user = new User("paciente@usafa.com", "",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        userPublicId = UUID.randomUUID();
+        authorization = "Bearer " + jwtUtils.generateToken(user, userPublicId);
+
+        // Sem conexão: os listeners só são registrados, nada é assinado
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        StringRedisTemplate redis = new StringRedisTemplate();
+
+        TokenBlocklist blocklist = new TokenBlocklist(null, new InMemoryAsyncCache(), redis, container, 60_000);
+        TokenRevocationService revocations = new TokenRevocationService(redis, container, EXPIRATION_MS, 14, 300, 1000);
+        // Usuário nunca revogado, já no cache local (mesmo estado de um usuário ativo)
+        revocations.onMessage(new DefaultMessage(
+                TokenRevocationService.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                (userPublicId + "|0").getBytes(StandardCharsets.UTF_8)), null);
+
+        filter = new JwtAuthFilter(jwtUtils, username -> user, blocklist, revocations, "stateless".equals(modo));
+    }
+
+    @Benchmark
+    public String gerarToken() {
+        return jwtUtils.generateToken(user, userPublicId);
+    }
+
+    @Benchmark
+    public VerifiedToken validarToken() {
+        return jwtUtils.verify(authorization.substring(7)).orElseThrow();
+    }
+
+    @Benchmark
+    public Authentication filtro() throws Exception {
+        SecurityContextHolder.clearContext();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/consultas");
+        request.addHeader("Authorization", authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    /**
+     * Blocklist vazia: toda consulta responde "não bloqueado" sem sair da JVM.
+     */
+    private static final class InMemoryAsyncCache implements IAsyncCacheService {
+
+        private static final CompletableFuture<Boolean> FALSE = CompletableFuture.completedFuture(false);
+
+        @Override
+        public <T> CompletableFuture<T> getAsync(String key, Class<T> clazz) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> existsAsync(String key) {
+            return FALSE;
+        }
+
+        @Override
+        public CompletableFuture<Void> saveWithTtlAsync(String key, Object value, long timeout, TimeUnit timeUnit) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> deleteAsync(String key) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> isNotFoundAsync(String key) {
+            return FALSE;
+        }
+    }
+}
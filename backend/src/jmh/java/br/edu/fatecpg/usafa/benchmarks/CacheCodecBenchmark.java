@@ -0,0 +1,158 @@
+package br.edu.fatecpg.usafa.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJacksonJsonRedisSerializer;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import br.edu.fatecpg.usafa.features.Admin.dtos.appointment.AppointmentResponseDto;
+import br.edu.fatecpg.usafa.features.Admin.dtos.doctor.DoctorResponseDto;
+import br.edu.fatecpg.usafa.features.Admin.dtos.patient.PatientResponseDto;
+import br.edu.fatecpg.usafa.features.caching.codec.CacheCodecRegistry;
+import br.edu.fatecpg.usafa.features.caching.codec.ICacheCodec;
+import br.edu.fatecpg.usafa.features.caching.codec.JsonCacheCodec;
+import br.edu.fatecpg.usafa.features.caching.codec.SmileCacheCodec;
+
+/**
+ * Compara o formato antigo do cache (GenericJacksonJsonRedisSerializer + convertValue)
+ * com os codecs JSON e Smile, usando a lista 'appointments:all'.
+ * Os métodos 'roundTrip' medem o ciclo completo de uma entrada (gravação + leitura).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheCodecBenchmark {
+
+    @Param({ "100", "1000" })
+    private int appointments;
+
+    private List<AppointmentResponseDto> value;
+
+    private GenericJacksonJsonRedisSerializer legacySerializer;
+    private ObjectMapper legacyConverter;
+    private byte[] legacyPayload;
+
+    private CacheCodecRegistry jsonCodec;
+    private CacheCodecRegistry smileCodec;
+    private JavaType listType;
+    private byte[] jsonPayload;
+    private byte[] smilePayload;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        value = sampleAppointments(appointments);
+
+        legacySerializer = new GenericJacksonJsonRedisSerializer(JsonMapper.builder().build());
+        legacyConverter = new ObjectMapper();
+        legacyPayload = legacySerializer.serialize(value);
+
+        List<ICacheCodec> codecs = List.of(new JsonCacheCodec(), new SmileCacheCodec());
+        jsonCodec = new CacheCodecRegistry(codecs, "json");
+        smileCodec = new CacheCodecRegistry(codecs, "smile");
+        listType = smileCodec.typeOf(new TypeReference<List<AppointmentResponseDto>>() {});
+        jsonPayload = jsonCodec.encode(value);
+        smilePayload = smileCodec.encode(value);
+    }
+
+    @Benchmark
+    public byte[] encodeLegacy() {
+        return legacySerializer.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return jsonCodec.encode(value);
+    }
+
+    @Benchmark
+    public byte[] encodeSmile() {
+        return smileCodec.encode(value);
+    }
+
+    /**
+     * Caminho antigo: o serializer devolve LinkedHashMaps e o CacheService
+     * fazia uma segunda passada com convertValue.
+     */
+    @Benchmark
+    public List<AppointmentResponseDto> decodeLegacy() {
+        Object raw = legacySerializer.deserialize(legacyPayload);
+        return legacyConverter.convertValue(raw, new TypeReference<List<AppointmentResponseDto>>() {});
+    }
+
+    @Benchmark
+    public List<AppointmentResponseDto> decodeJson() {
+        return jsonCodec.decode(jsonPayload, listType);
+    }
+
+    @Benchmark
+    public List<AppointmentResponseDto> decodeSmile() {
+        return smileCodec.decode(smilePayload, listType);
+    }
+
+    @Benchmark
+    public List<AppointmentResponseDto> roundTripLegacy() {
+        Object raw = legacySerializer.deserialize(legacySerializer.serialize(value));
+        return legacyConverter.convertValue(raw, new TypeReference<List<AppointmentResponseDto>>() {});
+    }
+
+    @Benchmark
+    public List<AppointmentResponseDto> roundTripJson() {
+        return jsonCodec.decode(jsonCodec.encode(value), listType);
+    }
+
+    @Benchmark
+    public List<AppointmentResponseDto> roundTripSmile() {
+        return smileCodec.decode(smileCodec.encode(value), listType);
+    }
+
+    private static List<AppointmentResponseDto> sampleAppointments(int count) {
+        List<AppointmentResponseDto> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PatientResponseDto patient = new PatientResponseDto();
+            patient.setId("b1d3f6a2-0000-4000-8000-" + String.format("%012d", i % 200));
+            patient.setName("Paciente " + (i % 200));
+            patient.setEmail("paciente" + (i % 200) + "@email.com");
+            patient.setCpf(String.format("%011d", 10000000000L + i % 200));
+            patient.setPhone("(13) 99999-" + String.format("%04d", i % 200));
+            patient.setBirthDate("1990-10-25T00:00:00Z");
+
+            DoctorResponseDto doctor = new DoctorResponseDto();
+            doctor.setId("a7c9e0d4-0000-4000-8000-" + String.format("%012d", i % 15));
+            doctor.setName("Dr. Médico " + (i % 15));
+            doctor.setEmail("medico" + (i % 15) + "@usafa.com");
+            doctor.setCrm("CRM/SP " + (100000 + i % 15));
+            doctor.setSpecialty(i % 2 == 0 ? "Clínico Geral" : "Cardiologia");
+
+            AppointmentResponseDto appointment = new AppointmentResponseDto();
+            appointment.setId("c0ffee00-0000-4000-8000-" + String.format("%012d", i));
+            appointment.setPatient(patient);
+            appointment.setDoctor(doctor);
+            appointment.setDate("2025-11-" + String.format("%02d", 1 + i % 28) + "T10:00:00Z");
+            appointment.setStatus(i % 3 == 0 ? "Concluída" : "Agendada");
+            list.add(appointment);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,147 @@
+package br.edu.fatecpg.usafa.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareBatchMessageListener;
+
+import com.rabbitmq.client.Channel;
+
+import br.edu.fatecpg.usafa.config.queues.ConsultaQueueConfig;
+
+/**
+ * Tempo para esvaziar um acúmulo de 100 mil solicitações de consulta (o pico
+ * de segunda de manhã), com o container de ConsultaQueueConfig.
+ *
+ * Requer um RabbitMQ (RABBITMQ_HOST, padrão localhost). Usa uma fila própria,
+ * para não consumir a consulta_request_queue real. O listener simula o custo
+ * de um lote do ConsultaConsumerService (consultas IN + insert no Mongo) com
+ * uma espera fixa e confirma cada mensagem, como o consumidor real.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ConsultaDrainBenchmark {
+
+    private static final String QUEUE = ConsultaQueueConfig.CONSULTA_QUEUE_NAME + ".benchmark";
+    private static final int BACKLOG = 100_000;
+    private static final int BATCH_SIZE = 50;
+    // Custo aproximado de um lote no consumidor real (SQL + Mongo + Redis)
+    private static final long BATCH_WORK_MS = 5;
+
+    @Param({ "1", "4", "16" })
+    private int consumidores;
+
+    @Param({ "false", "true" })
+    private boolean virtualThreads;
+
+    private CachingConnectionFactory connectionFactory;
+    private RabbitAdmin admin;
+    private RabbitTemplate template;
+    private SimpleRabbitListenerContainerFactory factory;
+    private Message sample;
+
+    private SimpleMessageListenerContainer container;
+    private CountDownLatch drained;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        connectionFactory = new CachingConnectionFactory(System.getenv().getOrDefault("RABBITMQ_HOST", "localhost"));
+        admin = new RabbitAdmin(connectionFactory);
+        admin.declareQueue(new Queue(QUEUE, false));
+        template = new RabbitTemplate(connectionFactory);
+
+        // Mesma configuração do container da aplicação; o teto é igual ao piso
+        // para que cada cenário meça um número fixo de consumidores
+        factory = new ConsultaQueueConfig().consultaBatchListenerFactory(
+                connectionFactory, BATCH_SIZE, 200, consumidores, consumidores, 0, virtualThreads);
+
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        sample = new Message(sampleBody(), properties);
+    }
+
+    /**
+     * Monta o acúmulo antes de cada medição (fora do tempo medido).
+     */
+    @Setup(Level.Invocation)
+    public void fillQueue() {
+        admin.purgeQueue(QUEUE, false);
+        template.invoke(operations -> {
+            for (int i = 0; i < BACKLOG; i++) {
+                operations.send("", QUEUE, sample);
+            }
+            return null;
+        });
+
+        drained = new CountDownLatch(BACKLOG);
+        container = factory.createListenerContainer();
+        container.setQueueNames(QUEUE);
+        container.setMessageListener((ChannelAwareBatchMessageListener) this::onBatch);
+        container.afterPropertiesSet();
+    }
+
+    @Benchmark
+    public long drenarFila() throws InterruptedException {
+        container.start();
+        drained.await();
+        return drained.getCount();
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopContainer() {
+        container.destroy();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        admin.deleteQueue(QUEUE);
+        connectionFactory.destroy();
+    }
+
+    private void onBatch(List<Message> messages, Channel channel) {
+        try {
+            Thread.sleep(BATCH_WORK_MS);
+            for (Message message : messages) {
+                channel.basicAck(message.getMessageProperties().getDeliveryTag(), false);
+                drained.countDown();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] sampleBody() {
+        return ("{\"requestData\":{\"medicoId\":\"" + UUID.randomUUID()
+                + "\",\"tipoId\":\"" + UUID.randomUUID()
+                + "\",\"dia\":\"2025-11-10\",\"horario\":\"10:00\",\"sintomas\":\"Dor de cabeça\"},"
+                + "\"userPublicId\":\"" + UUID.randomUUID() + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,74 @@
+package br.edu.fatecpg.usafa.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import br.edu.fatecpg.usafa.shared.tokens.JwtUtils;
+import br.edu.fatecpg.usafa.shared.tokens.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Custo por requisição da verificação do JWT no JwtAuthFilter.
+ *
+ * 'antes' reproduz o fluxo antigo: chave decodificada e parser montado a cada
+ * chamada, com o token lido três vezes (username, jti e validação).
+ * 'depois' usa JwtUtils.verify, com chave e parser construídos uma única vez.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    // Chave HMAC de 256 bits, apenas para o benchmark
+    private static final String SECRET = "dXNhZmEtYmVuY2htYXJrLXNlZ3JlZG8tZGUtMjU2LWJpdHMtcGFyYS1obWFjLXNoYQ==";
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtUtils = new JwtUtils(SECRET, TimeUnit.HOURS.toMillis(1));
+        token = jwtUtils.generateToken(new User("paciente@usafa.com", "",
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    @Benchmark
+    public boolean antes() {
+        String username = parseLegado().getSubject();
+        String jti = parseLegado().getId();
+        parseLegado();
+        return username != null && jti != null;
+    }
+
+    @Benchmark
+    public VerifiedToken depois() {
+        return jwtUtils.verify(token).orElseThrow();
+    }
+
+    private Claims parseLegado() {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+}
@@ -0,0 +1,109 @@
+package br.edu.fatecpg.usafa.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.edu.fatecpg.usafa.shared.exceptions.TooManyRequestsException;
+import br.edu.fatecpg.usafa.shared.security.BoundedPasswordEncoder;
+import br.edu.fatecpg.usafa.shared.security.PasswordHashingExecutor;
+
+/**
+ * Teste de carga: latência de uma leitura barata durante uma rajada de logins.
+ *
+ * 16 threads fazem login (BCrypt) sem parar, como as threads do Tomcat numa
+ * rajada, enquanto 1 thread serializa uma lista pequena (um GET em cache).
+ * Compare os percentis de 'tempestade:leitura' entre os modos:
+ * - direto:   BCrypt na thread da requisição (comportamento antigo).
+ * - limitado: BCrypt no PasswordHashingExecutor; o excedente recebe 429.
+ *
+ * Rode com: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=LoginStormBenchmark
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginStormBenchmark {
+
+    @Param({ "direto", "limitado" })
+    private String modo;
+
+    private PasswordHashingExecutor hashingExecutor;
+    private PasswordEncoder encoder;
+    private String hash;
+
+    private ObjectMapper objectMapper;
+    private List<Map<String, String>> doctors;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder();
+        hash = bcrypt.encode("senha-do-paciente");
+
+        if ("limitado".equals(modo)) {
+            hashingExecutor = new PasswordHashingExecutor(0, 32, 5000);
+            encoder = new BoundedPasswordEncoder(bcrypt, hashingExecutor);
+        } else {
+            encoder = bcrypt;
+        }
+
+        objectMapper = new ObjectMapper();
+        doctors = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            doctors.add(Map.of(
+                    "id", "medico-" + i,
+                    "name", "Dr(a). Médico " + i,
+                    "specialty", "Clínica Geral",
+                    "crm", "CRM-SP " + (100000 + i)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (hashingExecutor != null) {
+            hashingExecutor.shutdown();
+        }
+    }
+
+    @Benchmark
+    @Group("tempestade")
+    @GroupThreads(16)
+    public boolean login() {
+        try {
+            return encoder.matches("senha-do-paciente", hash);
+        } catch (TooManyRequestsException e) {
+            return false; // 429: a requisição foi recusada sem ocupar CPU
+        }
+    }
+
+    @Benchmark
+    @Group("tempestade")
+    @GroupThreads(1)
+    public byte[] leitura() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(doctors);
+    }
+}
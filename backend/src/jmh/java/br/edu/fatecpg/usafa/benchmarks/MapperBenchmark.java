@@ -0,0 +1,127 @@
+package br.edu.fatecpg.usafa.benchmarks;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.edu.fatecpg.usafa.features.Admin.dtos.appointment.AppointmentResponseDto;
+import br.edu.fatecpg.usafa.features.Admin.utils.appointment.AppointmentMapper;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaDTO;
+import br.edu.fatecpg.usafa.features.consulta.enums.ConsultaStatus;
+import br.edu.fatecpg.usafa.features.consulta.mappers.IConsultaMapper;
+import br.edu.fatecpg.usafa.models.Consulta;
+import br.edu.fatecpg.usafa.models.Medico;
+import br.edu.fatecpg.usafa.models.TipoConsulta;
+import br.edu.fatecpg.usafa.models.User;
+
+/**
+ * Conversão das entidades em DTOs feita em todo cache miss das listas:
+ * IConsultaMapper (MapStruct, histórico do paciente) e AppointmentMapper
+ * (lista do admin). Mede só o mapeamento, com as entidades já carregadas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({ "100", "1000" })
+    private int consultas;
+
+    private List<Consulta> entities;
+    private IConsultaMapper consultaMapper;
+    private AppointmentMapper appointmentMapper;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        entities = sampleConsultas(consultas);
+        // Mesma implementação gerada que o Spring injeta
+        consultaMapper = Mappers.getMapper(IConsultaMapper.class);
+        appointmentMapper = new AppointmentMapper();
+    }
+
+    @Benchmark
+    public List<ConsultaDTO> consultaToDto() {
+        List<ConsultaDTO> dtos = new ArrayList<>(entities.size());
+        for (Consulta consulta : entities) {
+            dtos.add(consultaMapper.toDTO(consulta));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<AppointmentResponseDto> appointmentToDto() {
+        List<AppointmentResponseDto> dtos = new ArrayList<>(entities.size());
+        for (Consulta consulta : entities) {
+            dtos.add(appointmentMapper.toDto(consulta));
+        }
+        return dtos;
+    }
+
+    private static List<Consulta> sampleConsultas(int count) {
+        List<TipoConsulta> tipos = new ArrayList<>();
+        for (String nome : List.of("Clínico Geral", "Cardiologia", "Pediatria")) {
+            TipoConsulta tipo = new TipoConsulta();
+            tipo.setPublicId(UUID.randomUUID().toString());
+            tipo.setNome(nome);
+            tipos.add(tipo);
+        }
+
+        List<Medico> medicos = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            Medico medico = new Medico();
+            medico.setPublicId(UUID.randomUUID().toString());
+            medico.setNome("Dr. Médico " + i);
+            medico.setEmail("medico" + i + "@usafa.com");
+            medico.setCrm("CRM/SP " + (100000 + i));
+            medico.setTipoConsulta(tipos.get(i % tipos.size()));
+            medicos.add(medico);
+        }
+
+        List<User> pacientes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            User paciente = new User("Paciente " + i, "paciente" + i + "@email.com", "", null, null,
+                    String.format("%011d", 10000000000L + i), "11700-000",
+                    "(13) 99999-" + String.format("%04d", i), LocalDate.of(1990, 10, 25));
+            paciente.setPublicId(UUID.randomUUID());
+            pacientes.add(paciente);
+        }
+
+        ConsultaStatus[] status = ConsultaStatus.values();
+        List<Consulta> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Medico medico = medicos.get(i % medicos.size());
+
+            Consulta consulta = new Consulta();
+            consulta.setPublicId(UUID.randomUUID().toString());
+            consulta.setUser(pacientes.get(i % pacientes.size()));
+            consulta.setMedico(medico);
+            consulta.setTipoConsulta(medico.getTipoConsulta());
+            consulta.setDia(LocalDate.of(2025, 11, 1 + i % 28));
+            consulta.setHorario(LocalTime.of(9 + i % 8, 0));
+            consulta.setSintomas("Dor de cabeça e febre há dois dias");
+            consulta.setStatus(status[i % status.length]);
+            list.add(consulta);
+        }
+        return list;
+    }
+}
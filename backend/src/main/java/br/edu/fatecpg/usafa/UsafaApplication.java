@@ -10,6 +10,9 @@ import org.slf4j.LoggerFactory;
 // 2. Importe o 'include' do JPA
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import br.edu.fatecpg.usafa.shared.warmup.WarmUpService;
 
 /**
  * Esta é a abordagem combinada:
@@ -23,11 +26,18 @@ import org.springframework.scheduling.annotation.EnableAsync;
     basePackages = "br.edu.fatecpg.usafa.features" // <-- FORÇA a inclusão do JPA aqui
 )
 @EnableAsync // <-- ISSO LIGA O SUPORTE ASSÍNCRONO
+@EnableScheduling // <-- Tarefas agendadas (ex: reconstrução diária de caches)
 public class UsafaApplication implements CommandLineRunner {
 
     // Cria uma instância do logger para esta classe
     private static final Logger logger = LoggerFactory.getLogger(UsafaApplication.class);
 
+    private final WarmUpService warmUpService;
+
+    public UsafaApplication(WarmUpService warmUpService) {
+        this.warmUpService = warmUpService;
+    }
+
     public static void main(String[] args) {
         try {
             SpringApplication.run(UsafaApplication.class, args);
@@ -39,6 +49,11 @@ public class UsafaApplication implements CommandLineRunner {
 
     @Override
     public void run(String... args) throws Exception {
+        // Os índices únicos já foram criados (SchemaMigrationService), antes do Tomcat e dos consumidores
+
+        // Aquece caches e JIT antes de a readiness liberar o tráfego
+        warmUpService.warmUp();
+
         // Usando o logger em vez de System.out
         logger.info("Aplicação iniciada com sucesso!");
     }
@@ -1,5 +1,6 @@
 package br.edu.fatecpg.usafa.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -8,8 +9,12 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import br.edu.fatecpg.usafa.shared.security.BoundedPasswordEncoder;
+import br.edu.fatecpg.usafa.shared.security.PasswordHashingExecutor;
 import br.edu.fatecpg.usafa.shared.tokens.JwtAuthFilter;
 import br.edu.fatecpg.usafa.shared.tokens.JwtUtils;
+import br.edu.fatecpg.usafa.shared.tokens.TokenBlocklist;
+import br.edu.fatecpg.usafa.shared.tokens.TokenRevocationService;
 
 /**
  * RESPONSABILIDADE: Definir os Beans (componentes) de infraestrutura da
@@ -30,19 +35,24 @@ public class ApplicationBeansConfig {
 
     /**
      * Define o "Criptografador de Senhas".
+     * O BCrypt roda no pool limitado de hash, e não na thread da requisição.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor hashingExecutor) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), hashingExecutor);
     }
 
     /**
      * Cria o nosso filtro de autenticação JWT como um Bean gerenciado pelo Spring.
-     * O Spring irá injetar as dependências (JwtUtils, UserDetailsService)
-     * automaticamente.
+     * O Spring irá injetar as dependências (JwtUtils, UserDetailsService,
+     * TokenBlocklist, TokenRevocationService) automaticamente.
      */
     @Bean
-    public JwtAuthFilter jwtAuthFilter(JwtUtils jwtUtils, UserDetailsService userDetailsService) {
-        return new JwtAuthFilter(jwtUtils, userDetailsService,null);
+    public JwtAuthFilter jwtAuthFilter(JwtUtils jwtUtils,
+                                       UserDetailsService userDetailsService,
+                                       TokenBlocklist tokenBlocklist,
+                                       TokenRevocationService tokenRevocations,
+                                       @Value("${app.jwt.stateless-principal:true}") boolean statelessPrincipal) {
+        return new JwtAuthFilter(jwtUtils, userDetailsService, tokenBlocklist, tokenRevocations, statelessPrincipal);
     }
 }
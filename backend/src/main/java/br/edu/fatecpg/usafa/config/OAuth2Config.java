@@ -44,12 +44,15 @@ public class OAuth2Config {
             ResponseGoogleDTO loginResponse = userService.processGoogleLogin(userGoogleDTO); // (Agora contém 'needsCompletion')
 
             // 3. Constrói a URL de redirecionamento (MODIFICADA)
+            // O refresh token (válido por dias) vai no fragmento (#): o navegador não o envia
+            // a nenhum servidor, então ele não fica em logs de acesso, proxies nem no Referer.
             String redirectUrl = UriComponentsBuilder.fromUriString(oauth2RedirectUrl)
                     .queryParam("token", loginResponse.token())
                     .queryParam("publicId", loginResponse.publicId())
                     .queryParam("isGoogleLogin", true)
                     .queryParam("isNewUser", loginResponse.isNewUser())
                     .queryParam("needsCompletion", loginResponse.needsCompletion())
+                    .fragment("refreshToken=" + loginResponse.refreshToken())
                     .toUriString();
 
             // 4. Redireciona o usuário de volta para o App React
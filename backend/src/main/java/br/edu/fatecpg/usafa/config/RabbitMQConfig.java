@@ -1,6 +1,5 @@
 package br.edu.fatecpg.usafa.config;
 
-import org.springframework.amqp.core.AmqpTemplate;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.JacksonJsonMessageConverter;
@@ -29,9 +28,11 @@ public class RabbitMQConfig {
     /**
      * Cria o 'RabbitTemplate' (o que envia mensagens) e
      * o configura para USAR o conversor JSON que acabamos de criar.
+     * Exposto como RabbitTemplate para quem precisa do canal (ex: parking lot);
+     * os demais continuam injetando AmqpTemplate.
      */
     @Bean
-    public AmqpTemplate amqpTemplate(ConnectionFactory connectionFactory) {
+    public RabbitTemplate amqpTemplate(ConnectionFactory connectionFactory) {
         final RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setMessageConverter(jsonMessageConverter());
         return rabbitTemplate;
@@ -51,6 +51,8 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // 3. Define endpoints públicos que não precisam de autenticação
                         .requestMatchers("/auth/**", "/error", "/v3/api-docs/**", "/swagger-ui/**").permitAll()
+                        // Probes de liveness/readiness (usados pelo orquestrador, sem token)
+                        .requestMatchers("/actuator/health/**").permitAll()
                         // 4. Todas as outras requisições precisam estar autenticadas
                         .anyRequest().authenticated()
                 )
@@ -71,8 +73,8 @@ public class SecurityConfig {
         // 7. Permite requisições da URL do seu frontend
         configuration.setAllowedOrigins(List.of(allowedOrigin.split(",")));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Auth-Token"));
-        configuration.setExposedHeaders(List.of("X-Auth-Token"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Auth-Token", "Idempotency-Key"));
+        configuration.setExposedHeaders(List.of("X-Auth-Token", "Idempotent-Replayed"));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
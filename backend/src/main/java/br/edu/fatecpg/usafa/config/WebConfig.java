@@ -33,7 +33,10 @@ public class WebConfig {
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
 
         // Cabeçalhos permitidos
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Cache-Control"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Cache-Control", "Idempotency-Key"));
+
+        // Cabeçalhos da resposta visíveis ao front-end
+        configuration.setExposedHeaders(List.of("Idempotent-Replayed"));
 
         // Permite o envio de credenciais
         configuration.setAllowCredentials(true);
@@ -1,16 +1,34 @@
 package br.edu.fatecpg.usafa.config.queues;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 
 /**
  * Configuração da TOPOLOGIA do RabbitMQ para a fila de Consultas.
  * Define a Fila, a Exchange e a Ligação (Binding) específicas
  * para a funcionalidade de solicitação de consulta.
+ *
+ * Falhas no consumo não bloqueiam os consumidores:
+ * - Falha temporária (Postgres, MongoDB): a mensagem é republicada em uma fila
+ *   de espera (retry) cujo TTL devolve a mensagem à fila principal. Cada nova
+ *   tentativa usa a próxima fila, com espera maior (backoff exponencial).
+ * - Regra de negócio, mensagem inválida ou tentativas esgotadas: a mensagem vai
+ *   para o parking lot, de onde um admin pode inspecioná-la e reenviá-la.
  */
 @Configuration
 public class ConsultaQueueConfig {
@@ -21,6 +39,17 @@ public class ConsultaQueueConfig {
     public static final String CONSULTA_QUEUE_NAME = "consulta_request_queue";
     public static final String CONSULTA_ROUTING_KEY = "consulta.request";
 
+    // Retentativas: uma fila de espera por atraso, todas ligadas a esta exchange
+    public static final String RETRY_EXCHANGE_NAME = "usafa_retry_exchange";
+
+    // Parking lot (DLQ): mensagens que não devem ser tentadas de novo automaticamente
+    public static final String DEAD_LETTER_EXCHANGE_NAME = "usafa_dead_letter_exchange";
+    public static final String PARKING_LOT_QUEUE_NAME = CONSULTA_QUEUE_NAME + ".parking-lot";
+    public static final String PARKING_LOT_ROUTING_KEY = "consulta.parking-lot";
+
+    // Container usado pelo ConsultaConsumerService (consumo em lote)
+    public static final String CONSULTA_BATCH_FACTORY = "consultaBatchListenerFactory";
+
     /**
      * Define a Fila (Queue) de solicitações de consulta.
      */
@@ -50,4 +79,94 @@ public class ConsultaQueueConfig {
                              .to(exchange)
                              .with(CONSULTA_ROUTING_KEY);
     }
+
+    /**
+     * Nome da fila de espera de um nível de retentativa. O atraso faz parte do
+     * nome: mudar os atrasos cria filas novas em vez de conflitar com o TTL das antigas.
+     */
+    public static String retryQueueName(long delayMs) {
+        return CONSULTA_QUEUE_NAME + ".retry." + delayMs + "ms";
+    }
+
+    public static String retryRoutingKey(long delayMs) {
+        return "consulta.retry." + delayMs + "ms";
+    }
+
+    /**
+     * Filas de espera das retentativas (uma por nível de backoff).
+     * Cada fila não tem consumidor: quando o TTL vence, a mensagem é
+     * "dead-lettered" de volta para a exchange e a routing key da fila principal.
+     */
+    @Bean
+    public Declarables consultaRetryTopology(
+            @Value("${app.consulta.retry.delays-ms:5000,30000,120000,600000}") long[] delaysMs) {
+        DirectExchange retryExchange = new DirectExchange(RETRY_EXCHANGE_NAME);
+
+        List<Declarable> declarables = new ArrayList<>();
+        declarables.add(retryExchange);
+        for (long delayMs : delaysMs) {
+            Queue retryQueue = QueueBuilder.durable(retryQueueName(delayMs))
+                    .ttl((int) delayMs)
+                    .deadLetterExchange(EXCHANGE_NAME)
+                    .deadLetterRoutingKey(CONSULTA_ROUTING_KEY)
+                    .build();
+            declarables.add(retryQueue);
+            declarables.add(BindingBuilder.bind(retryQueue).to(retryExchange).with(retryRoutingKey(delayMs)));
+        }
+        return new Declarables(declarables);
+    }
+
+    /**
+     * Parking lot das solicitações de consulta (mensagens paradas até um admin agir).
+     */
+    @Bean
+    public Declarables consultaParkingLotTopology() {
+        DirectExchange deadLetterExchange = new DirectExchange(DEAD_LETTER_EXCHANGE_NAME);
+        Queue parkingLot = QueueBuilder.durable(PARKING_LOT_QUEUE_NAME).build();
+        return new Declarables(deadLetterExchange, parkingLot,
+                BindingBuilder.bind(parkingLot).to(deadLetterExchange).with(PARKING_LOT_ROUTING_KEY));
+    }
+
+    /**
+     * Container que entrega as mensagens da fila em lotes: até 'batch-size'
+     * mensagens ou o que chegar em 'batch-timeout-ms', o que acontecer primeiro.
+     *
+     * As mensagens chegam cruas (o consumidor converte uma a uma, para que um
+     * JSON inválido não derrube o lote) e o ACK é manual, por mensagem.
+     * Com batch-size=1 o comportamento é o do consumo individual.
+     *
+     * Vazão: 'concurrency' consumidores fixos (0 = um por núcleo), que crescem
+     * até 'max-concurrency' (0 = o dobro) enquanto houver fila acumulada. Cada
+     * consumidor recebe até 'prefetch' mensagens sem ACK (nunca menos que um lote).
+     * Como o trabalho é quase todo espera (SQL, Mongo, Redis), os consumidores
+     * podem rodar em virtual threads (app.consulta.consumer.virtual-threads).
+     */
+    @Bean(name = CONSULTA_BATCH_FACTORY)
+    public SimpleRabbitListenerContainerFactory consultaBatchListenerFactory(
+            ConnectionFactory connectionFactory,
+            @Value("${app.consulta.consumer.batch-size:50}") int batchSize,
+            @Value("${app.consulta.consumer.batch-timeout-ms:200}") long batchTimeoutMs,
+            @Value("${app.consulta.consumer.concurrency:0}") int concurrency,
+            @Value("${app.consulta.consumer.max-concurrency:0}") int maxConcurrency,
+            @Value("${app.consulta.consumer.prefetch:0}") int prefetch,
+            @Value("${app.consulta.consumer.virtual-threads:false}") boolean virtualThreads) {
+        int consumers = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+        int maxConsumers = Math.max(consumers, maxConcurrency > 0 ? maxConcurrency : consumers * 2);
+
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setBatchReceiveTimeout(batchTimeoutMs);
+        // O broker precisa liberar ao menos um lote inteiro sem esperar ACKs
+        factory.setPrefetchCount(Math.max(prefetch > 0 ? prefetch : batchSize * 2, batchSize));
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setConcurrentConsumers(consumers);
+        factory.setMaxConcurrentConsumers(maxConsumers);
+        if (virtualThreads) {
+            factory.setTaskExecutor(new VirtualThreadTaskExecutor("consulta-consumer-"));
+        }
+        return factory;
+    }
 }
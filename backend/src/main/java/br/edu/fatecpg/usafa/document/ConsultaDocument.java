@@ -3,9 +3,12 @@ package br.edu.fatecpg.usafa.document;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaRequestDTO;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaSlot;
 import br.edu.fatecpg.usafa.models.Medico;
 import br.edu.fatecpg.usafa.models.TipoConsulta;
 import br.edu.fatecpg.usafa.models.User;
@@ -20,6 +23,10 @@ import java.time.LocalTime;
 @Data
 @NoArgsConstructor
 @Document(collection = "solicitacoes_consulta") // Nome da coleção no MongoDB
+// Uma única solicitação por horário do médico (garantia final contra agendamento duplo).
+// Os índices são criados pelo SchemaMigrationService (auto-index-creation desligado).
+@CompoundIndex(name = "uk_solicitacao_medico_dia_horario",
+        def = "{'medicoPublicId': 1, 'dia': 1, 'horario': 1}", unique = true)
 public class ConsultaDocument {
 
     @Id
@@ -41,12 +48,18 @@ public class ConsultaDocument {
     private String nomeMedico;
     private String nomeTipoConsulta;
 
+    // Chave de idempotência da solicitação (no escopo do usuário); uma reentrega
+    // da mesma mensagem esbarra neste índice em vez de gerar outro documento.
+    // Esparso: solicitações antigas (sem chave) não entram no índice.
+    @Indexed(name = "uk_solicitacao_idempotency_key", unique = true, sparse = true)
+    private String idempotencyKey;
+
     /**
      * Construtor auxiliar para criar o Documento a partir dos dados validados.
      */
     public ConsultaDocument(ConsultaRequestDTO request, User user, Medico medico, TipoConsulta tipo) {
         this.sintomas = request.getSintomas();
-        this.dia = LocalDate.parse(request.getDia()); // Convertendo String para LocalDate
+        this.dia = ConsultaSlot.parseDia(request.getDia()); // Convertendo String para LocalDate (dd/MM/yyyy ou ISO)
         this.horario = LocalTime.parse(request.getHorario()); // Convertendo String para LocalTime
         this.status = "PENDENTE"; // Status inicial no MongoDB
 
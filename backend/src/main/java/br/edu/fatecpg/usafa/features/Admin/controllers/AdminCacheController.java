@@ -0,0 +1,30 @@
+package br.edu.fatecpg.usafa.features.Admin.controllers;
+
+import java.util.Map;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import br.edu.fatecpg.usafa.features.caching.CacheMetrics;
+import br.edu.fatecpg.usafa.features.caching.dtos.CacheNamespaceStatsDTO;
+
+@RestController
+@RequestMapping("/admin/cache") // Endpoint base
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminCacheController {
+
+    private final CacheMetrics cacheMetrics;
+
+    /**
+     * Estatísticas do cache desta instância, por namespace de chave
+     * (hits, misses, tempo de carregamento, tamanho dos valores e erros).
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, CacheNamespaceStatsDTO>> getMetrics() {
+        return ResponseEntity.ok(cacheMetrics.snapshot());
+    }
+}
@@ -0,0 +1,44 @@
+package br.edu.fatecpg.usafa.features.Admin.controllers;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import br.edu.fatecpg.usafa.features.consulta.dtos.ParkedConsultaDTO;
+import br.edu.fatecpg.usafa.features.consulta.services.ConsultaRetryService;
+
+@RestController
+@RequestMapping("/admin/consultas/parking-lot") // Endpoint base
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminConsultaQueueController {
+
+    private static final int MAX_PEEK = 500;
+    private static final int MAX_REPLAY = 10_000;
+
+    private final ConsultaRetryService retryService;
+
+    /**
+     * Lista as solicitações de consulta paradas no parking lot (sem removê-las),
+     * com o motivo da falha e o número de tentativas.
+     */
+    @GetMapping
+    public ResponseEntity<List<ParkedConsultaDTO>> getParked(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(retryService.peekParked(Math.clamp(limit, 1, MAX_PEEK)));
+    }
+
+    /**
+     * Reenvia as solicitações do parking lot para a fila principal
+     * (ex: depois de cadastrar o médico que faltava).
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<Map<String, Integer>> replay(@RequestParam(defaultValue = "1000") int limit) {
+        int replayed = retryService.replayParked(Math.clamp(limit, 1, MAX_REPLAY));
+        return ResponseEntity.ok(Map.of("replayed", replayed));
+    }
+}
@@ -1,7 +1,10 @@
 package br.edu.fatecpg.usafa.features.Admin.repositories;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -14,4 +17,15 @@ public interface IMedicoRepository extends JpaRepository<Medico, Long> {
      * Busca um médico pelo seu ID público.
      */
     Optional<Medico> findByPublicId(String publicId);
+
+    /**
+     * Busca vários médicos em uma única consulta (IN).
+     */
+    List<Medico> findByPublicIdIn(Collection<String> publicIds);
+
+    /**
+     * Todos os médicos em ordem de nome, já com a especialidade (sem N+1).
+     */
+    @EntityGraph(attributePaths = "tipoConsulta")
+    List<Medico> findAllByOrderByNomeAsc();
 }
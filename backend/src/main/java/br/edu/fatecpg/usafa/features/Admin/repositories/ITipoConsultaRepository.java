@@ -1,5 +1,7 @@
 package br.edu.fatecpg.usafa.features.Admin.repositories;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -15,5 +17,10 @@ public interface ITipoConsultaRepository extends JpaRepository<TipoConsulta, Lon
      */
     Optional<TipoConsulta> findByPublicId(String publicId);
 
+    /**
+     * Busca vários tipos de consulta em uma única consulta (IN).
+     */
+    List<TipoConsulta> findByPublicIdIn(Collection<String> publicIds);
+
     Optional<TipoConsulta> findByNome(String nome);
 }
@@ -3,25 +3,37 @@ package br.edu.fatecpg.usafa.features.Admin.services;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.type.TypeReference;
 
 import br.edu.fatecpg.usafa.features.Admin.dtos.appointment.AppointmentRequestDto;
 import br.edu.fatecpg.usafa.features.Admin.dtos.appointment.AppointmentResponseDto;
 import br.edu.fatecpg.usafa.features.Admin.interfaces.IAppointmentService;
 import br.edu.fatecpg.usafa.features.Admin.utils.appointment.AppointmentHelper;
 import br.edu.fatecpg.usafa.features.Admin.utils.appointment.AppointmentMapper;
+import br.edu.fatecpg.usafa.features.caching.CacheKeys;
+import br.edu.fatecpg.usafa.features.caching.CacheOptions;
+import br.edu.fatecpg.usafa.features.caching.CacheTags;
 import br.edu.fatecpg.usafa.features.caching.ICacheService;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaSlot;
 import br.edu.fatecpg.usafa.features.consulta.enums.ConsultaStatus;
 import br.edu.fatecpg.usafa.features.consulta.repositories.IConsultaRepository;
+import br.edu.fatecpg.usafa.features.consulta.services.AvailabilityIndex;
 import br.edu.fatecpg.usafa.models.Consulta;
 import br.edu.fatecpg.usafa.models.Medico;
 import br.edu.fatecpg.usafa.models.User;
 import br.edu.fatecpg.usafa.shared.exceptions.DatabaseOperationException;
+import br.edu.fatecpg.usafa.shared.exceptions.ResourceConflictException;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,42 +44,37 @@ public class AppointmentServiceImpl implements IAppointmentService {
     // Dependências principais
     private final IConsultaRepository consultaRepository;
     private final ICacheService cacheService;
+    private final AvailabilityIndex availabilityIndex;
 
     // Dependências auxiliares (NOVAS)
     private final AppointmentHelper helper;
     private final AppointmentMapper mapper;
 
-    private static final String CACHE_KEY_ALL_APPOINTMENTS = "appointments:all";
+    // A lista do admin exibe dados de consultas, médicos e pacientes
+    private static final CacheOptions LIST_CACHE = CacheOptions.builder()
+            .ttl(Duration.ofMinutes(10))
+            .tag(CacheTags.APPOINTMENTS)
+            .tag(CacheTags.DOCTORS)
+            .tag(CacheTags.PATIENTS)
+            .build();
 
     @Override
     @Transactional(readOnly = true)
     public List<AppointmentResponseDto> getAllAppointments() {
         log.info("Buscando todas as consultas");
 
-        // 1. Tentar buscar do cache
         try {
-            @SuppressWarnings("unchecked")
-            List<AppointmentResponseDto> cachedAppointments = cacheService.get(CACHE_KEY_ALL_APPOINTMENTS, List.class);
-            if (cachedAppointments != null) {
-                log.info("Retornando {} consultas do cache", cachedAppointments.size());
-                return cachedAppointments;
-            }
-        } catch (Exception e) {
-            log.warn("Erro ao buscar do cache: {}", e.getMessage());
-        }
+            // Cache (10 minutos). Em um miss, só uma requisição vai ao banco;
+            // as demais aguardam o mesmo resultado.
+            List<AppointmentResponseDto> dtos = cacheService.getOrLoad(CacheKeys.APPOINTMENTS_ALL, new TypeReference<List<AppointmentResponseDto>>() {}, LIST_CACHE, () -> {
+                log.debug("Cache miss. Buscando do banco de dados...");
+                List<Consulta> consultas = consultaRepository.findAll();
 
-        try {
-            // 2. Buscar do banco (se o cache falhar)
-            log.info("Cache miss. Buscando do banco de dados...");
-            List<Consulta> consultas = consultaRepository.findAll();
-            
-            // 3. Mapear para DTO (usando o Mapper)
-            List<AppointmentResponseDto> dtos = consultas.stream()
-                    .map(mapper::toDto) // <-- MUITO MAIS LIMPO!
-                    .collect(Collectors.toList());
-
-            // 4. Salvar no cache
-            cacheService.saveWithTtl(CACHE_KEY_ALL_APPOINTMENTS, dtos, 10, TimeUnit.MINUTES);
+                // Mapear para DTO (usando o Mapper)
+                return consultas.stream()
+                        .map(mapper::toDto)
+                        .collect(Collectors.toList());
+            });
             return dtos;
 
         } catch (DataAccessException e) {
@@ -87,11 +94,13 @@ public class AppointmentServiceImpl implements IAppointmentService {
         LocalDateTime dateTime = helper.parseDateTime(appointmentDto.getDateTime());
         ConsultaStatus status = helper.parseStatus(appointmentDto.getStatus());
         
-        // 2. Regras de Negócio (delegado ao Helper)
-        helper.validateAppointmentSlot(doctor, dateTime.toLocalDate(), dateTime.toLocalTime());
+        // 2. Regras de Negócio (delegado ao Helper): o horário fica reservado para esta consulta
+        String publicId = UUID.randomUUID().toString();
+        ConsultaSlot slot = helper.reserveAppointmentSlot(doctor, dateTime.toLocalDate(), dateTime.toLocalTime(), publicId);
 
         // 3. Mapear DTO para Entidade
         Consulta consulta = new Consulta();
+        consulta.setPublicId(publicId);
         consulta.setUser(patient);
         consulta.setMedico(doctor);
         consulta.setDia(dateTime.toLocalDate());
@@ -102,14 +111,24 @@ public class AppointmentServiceImpl implements IAppointmentService {
             // 4. Salvar
             Consulta savedConsulta = consultaRepository.save(consulta);
             log.info("Consulta criada com ID: {}", savedConsulta.getPublicId());
+            afterTransaction(
+                    () -> availabilityIndex.occupy(slot),
+                    () -> helper.releaseAppointmentSlot(slot, publicId));
 
-            // 5. Invalidar cache
-            cacheService.delete(CACHE_KEY_ALL_APPOINTMENTS);
+            // 5. Invalidar cache (tudo que exibe consultas, inclusive o histórico do paciente)
+            cacheService.invalidateTags(List.of(
+                    CacheTags.APPOINTMENTS,
+                    CacheTags.user(patient.getPublicId())));
 
             // 6. Retornar DTO (delegado ao Mapper)
             return mapper.toDto(savedConsulta);
 
+        } catch (DataIntegrityViolationException e) {
+            // Restrição única (médico, dia, horário): outra gravação chegou primeiro
+            helper.releaseAppointmentSlot(slot, publicId);
+            throw new ResourceConflictException("Este médico já possui uma consulta agendada para este dia e horário.", e);
         } catch (DataAccessException e) {
+            helper.releaseAppointmentSlot(slot, publicId);
             log.error("Erro de banco de dados ao salvar consulta: {}", e.getMessage());
             throw new DatabaseOperationException("Erro ao salvar consulta", e);
         }
@@ -122,6 +141,7 @@ public class AppointmentServiceImpl implements IAppointmentService {
 
         // 1. Buscar a consulta existente (delegado ao Helper)
         Consulta consulta = helper.findConsultaByPublicId(id);
+        User previousPatient = consulta.getUser();
 
         // 2. Validar e buscar dados (delegado ao Helper)
         User patient = helper.findPatientByPublicId(appointmentDto.getPatientId());
@@ -129,9 +149,12 @@ public class AppointmentServiceImpl implements IAppointmentService {
         LocalDateTime dateTime = helper.parseDateTime(appointmentDto.getDateTime());
         ConsultaStatus status = helper.parseStatus(appointmentDto.getStatus());
         
-        // 3. Regra de Negócio (delegado ao Helper)
-        if (!consulta.getDia().equals(dateTime.toLocalDate()) || !consulta.getHorario().equals(dateTime.toLocalTime())) {
-            helper.validateAppointmentSlot(doctor, dateTime.toLocalDate(), dateTime.toLocalTime());
+        // 3. Regra de Negócio (delegado ao Helper): trocar de médico também muda o horário
+        ConsultaSlot previousSlot = helper.slotOf(consulta);
+        ConsultaSlot slot = new ConsultaSlot(doctor.getPublicId(), dateTime.toLocalDate(), dateTime.toLocalTime());
+        boolean slotChanged = !slot.equals(previousSlot);
+        if (slotChanged) {
+            helper.reserveAppointmentSlot(doctor, slot.dia(), slot.horario(), id);
         }
 
         // 4. Atualizar a entidade
@@ -142,16 +165,36 @@ public class AppointmentServiceImpl implements IAppointmentService {
         consulta.setStatus(status);
         
         try {
-            // 5. Salvar
-            Consulta updatedConsulta = consultaRepository.save(consulta);
+            // 5. Salvar (flush aqui para a restrição única ser verificada dentro do try)
+            Consulta updatedConsulta = consultaRepository.saveAndFlush(consulta);
+            if (slotChanged) {
+                afterTransaction(
+                        () -> {
+                            helper.releaseAppointmentSlot(previousSlot, id);
+                            availabilityIndex.vacate(previousSlot);
+                            availabilityIndex.occupy(slot);
+                        },
+                        () -> helper.releaseAppointmentSlot(slot, id));
+            }
             
-            // 6. Invalidar cache
-            cacheService.delete(CACHE_KEY_ALL_APPOINTMENTS);
+            // 6. Invalidar cache (tudo que exibe consultas + paciente antigo e novo)
+            cacheService.invalidateTags(List.of(
+                    CacheTags.APPOINTMENTS,
+                    CacheTags.user(previousPatient.getPublicId()),
+                    CacheTags.user(patient.getPublicId())));
 
             // 7. Retornar DTO (delegado ao Mapper)
             return mapper.toDto(updatedConsulta);
 
+        } catch (DataIntegrityViolationException e) {
+            if (slotChanged) {
+                helper.releaseAppointmentSlot(slot, id);
+            }
+            throw new ResourceConflictException("Este médico já possui uma consulta agendada para este dia e horário.", e);
         } catch (DataAccessException e) {
+            if (slotChanged) {
+                helper.releaseAppointmentSlot(slot, id);
+            }
             log.error("Erro de banco de dados ao atualizar consulta: {}", e.getMessage());
             throw new DatabaseOperationException("Erro ao atualizar consulta", e);
         }
@@ -162,15 +205,24 @@ public class AppointmentServiceImpl implements IAppointmentService {
     public void deleteAppointment(String id) {
         log.info("Deletando consulta ID: {}", id);
         
-        // 1. Validar existência (delegado ao Helper)
-        helper.validateAppointmentExists(id);
+        // 1. Buscar a consulta (valida a existência e informa o paciente)
+        Consulta consulta = helper.findConsultaByPublicId(id);
+        ConsultaSlot slot = helper.slotOf(consulta);
         
         try {
-            // 2. Deletar
+            // 2. Deletar e devolver o horário
             consultaRepository.deleteByPublicId(id); 
+            afterTransaction(
+                    () -> {
+                        helper.releaseAppointmentSlot(slot, id);
+                        availabilityIndex.vacate(slot);
+                    },
+                    () -> { });
 
-            // 3. Invalidar cache
-            cacheService.delete(CACHE_KEY_ALL_APPOINTMENTS);
+            // 3. Invalidar cache (tudo que exibe consultas, inclusive o histórico do paciente)
+            cacheService.invalidateTags(List.of(
+                    CacheTags.APPOINTMENTS,
+                    CacheTags.user(consulta.getUser().getPublicId())));
             log.info("Consulta ID {} deletada e cache invalidado", id);
 
         } catch (DataAccessException e) {
@@ -178,4 +230,27 @@ public class AppointmentServiceImpl implements IAppointmentService {
             throw new DatabaseOperationException("Erro ao deletar consulta", e);
         }
     }
+
+    /**
+     * Reserva no Redis e índice de disponibilidade só mudam depois do commit
+     * (mesmo padrão de AvailabilityIndex.doctorsChanged): antes dele, outra
+     * requisição veria um horário livre que o banco ainda ocupa, ou o contrário
+     * se a transação for desfeita. Num rollback, a nova reserva é devolvida.
+     */
+    private static void afterTransaction(Runnable onCommit, Runnable onRollback) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        onCommit.run();
+                    } else {
+                        onRollback.run();
+                    }
+                }
+            });
+        } else {
+            onCommit.run();
+        }
+    }
 }
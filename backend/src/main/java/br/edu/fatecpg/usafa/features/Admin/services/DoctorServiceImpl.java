@@ -1,20 +1,26 @@
 package br.edu.fatecpg.usafa.features.Admin.services;
 
+import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+
 import br.edu.fatecpg.usafa.features.Admin.dtos.doctor.DoctorRequestDto;
 import br.edu.fatecpg.usafa.features.Admin.dtos.doctor.DoctorResponseDto;
 import br.edu.fatecpg.usafa.features.Admin.interfaces.IDoctorService;
 import br.edu.fatecpg.usafa.features.Admin.repositories.IMedicoRepository;
 import br.edu.fatecpg.usafa.features.Admin.utils.doctor.DoctorHelper;
 import br.edu.fatecpg.usafa.features.Admin.utils.doctor.DoctorMapper;
+import br.edu.fatecpg.usafa.features.caching.CacheKeys;
+import br.edu.fatecpg.usafa.features.caching.CacheOptions;
+import br.edu.fatecpg.usafa.features.caching.CacheTags;
 import br.edu.fatecpg.usafa.features.caching.ICacheService;
+import br.edu.fatecpg.usafa.features.consulta.services.AvailabilityIndex;
 import br.edu.fatecpg.usafa.models.Medico;
 import br.edu.fatecpg.usafa.models.TipoConsulta;
 import br.edu.fatecpg.usafa.shared.exceptions.BusinessRuleException;
@@ -30,42 +36,38 @@ public class DoctorServiceImpl implements IDoctorService {
     // Repositórios e Serviços principais
     private final IMedicoRepository medicoRepository;
     private final ICacheService cacheService;
+    private final AvailabilityIndex availabilityIndex;
 
     // Classes auxiliares
     private final DoctorHelper helper;
     private final DoctorMapper mapper;
 
-    private static final String CACHE_KEY_ALL_DOCTORS = "doctors:all";
+    // Lista servida do cache enquanto é recarregada em background (refresh-ahead)
+    private static final CacheOptions LIST_CACHE = CacheOptions.builder()
+            .ttl(Duration.ofHours(1))
+            .refreshAfter(Duration.ofMinutes(10))
+            .tag(CacheTags.DOCTORS)
+            .build();
+
+    // Toda entrada que exibe dados de médicos (lista do admin, consultas, formulário) tem esta tag
+    private static final List<String> DOCTOR_TAGS = List.of(CacheTags.DOCTORS);
 
     @Override
     @Transactional(readOnly = true)
     public List<DoctorResponseDto> getAllDoctors() {
         log.info("Buscando todos os médicos");
 
-        // 1. Tentar buscar do cache
-        try {
-            @SuppressWarnings("unchecked")
-            List<DoctorResponseDto> cachedDoctors = cacheService.get(CACHE_KEY_ALL_DOCTORS, List.class);
-            if (cachedDoctors != null) {
-                log.info("Retornando {} médicos do cache", cachedDoctors.size());
-                return cachedDoctors;
-            }
-        } catch (Exception e) {
-            log.warn("Erro ao buscar do cache: {}", e.getMessage());
-        }
-
         try {
-            // 2. Cache miss: Buscar do banco
-            log.info("Cache miss. Buscando do banco de dados...");
-            List<Medico> medicos = medicoRepository.findAll();
-
-            // 3. Mapear para DTO
-            List<DoctorResponseDto> dtos = medicos.stream()
-                    .map(mapper::toDto) // Usa o Mapper
-                    .collect(Collectors.toList());
-
-            // 4. Salvar no cache por 10 minutos
-            cacheService.saveWithTtl(CACHE_KEY_ALL_DOCTORS, dtos, 10, TimeUnit.MINUTES);
+            // Recarregado em background depois de 10 minutos; misses simultâneos compartilham uma única busca no banco
+            List<DoctorResponseDto> dtos = cacheService.getOrLoad(CacheKeys.DOCTORS_ALL, new TypeReference<List<DoctorResponseDto>>() {}, LIST_CACHE, () -> {
+                log.debug("Carregando lista do banco de dados...");
+                List<Medico> medicos = medicoRepository.findAll();
+
+                // Mapear para DTO
+                return medicos.stream()
+                        .map(mapper::toDto) // Usa o Mapper
+                        .collect(Collectors.toList());
+            });
             return dtos;
 
         } catch (DataAccessException e) {
@@ -95,7 +97,8 @@ public class DoctorServiceImpl implements IDoctorService {
             log.info("Médico criado com ID: {}", savedMedico.getPublicId());
 
             // 4. Invalidar cache
-            cacheService.delete(CACHE_KEY_ALL_DOCTORS); 
+            cacheService.invalidateTags(DOCTOR_TAGS);
+            availabilityIndex.doctorsChanged();
 
             // 5. Retornar DTO (delegado ao Mapper)
             return mapper.toDto(savedMedico);
@@ -130,7 +133,8 @@ public class DoctorServiceImpl implements IDoctorService {
             Medico updatedMedico = medicoRepository.save(medico);
 
             // 4. Invalidar cache
-            cacheService.delete(CACHE_KEY_ALL_DOCTORS);
+            cacheService.invalidateTags(DOCTOR_TAGS);
+            availabilityIndex.doctorsChanged();
 
             // 5. Retornar DTO (delegado ao Mapper)
             return mapper.toDto(updatedMedico);
@@ -160,7 +164,8 @@ public class DoctorServiceImpl implements IDoctorService {
             medicoRepository.delete(medico);
 
             // 4. Invalidar cache
-            cacheService.delete(CACHE_KEY_ALL_DOCTORS); 
+            cacheService.invalidateTags(DOCTOR_TAGS);
+            availabilityIndex.doctorsChanged();
             log.info("Médico ID {} deletado e cache invalidado", id);
 
         } catch (DataAccessException e) {
@@ -1,24 +1,31 @@
 package br.edu.fatecpg.usafa.features.Admin.services;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+
 import br.edu.fatecpg.usafa.features.Admin.dtos.patient.PatientRequestDto;
 import br.edu.fatecpg.usafa.features.Admin.dtos.patient.PatientResponseDto;
 import br.edu.fatecpg.usafa.features.Admin.interfaces.IPatientService;
 import br.edu.fatecpg.usafa.features.Admin.utils.patient.PatientHelper;
 import br.edu.fatecpg.usafa.features.Admin.utils.patient.PatientMapper;
 import br.edu.fatecpg.usafa.features.auth.repositories.IUserRepository;
+import br.edu.fatecpg.usafa.features.auth.utilis.UserCache;
+import br.edu.fatecpg.usafa.features.caching.CacheKeys;
+import br.edu.fatecpg.usafa.features.caching.CacheOptions;
+import br.edu.fatecpg.usafa.features.caching.CacheTags;
 import br.edu.fatecpg.usafa.features.caching.ICacheService;
 import br.edu.fatecpg.usafa.models.User;
 import br.edu.fatecpg.usafa.shared.exceptions.BusinessRuleException;
 import br.edu.fatecpg.usafa.shared.exceptions.DatabaseOperationException;
+import br.edu.fatecpg.usafa.shared.tokens.TokenRevocationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -30,6 +37,8 @@ public class PatientServiceImpl implements IPatientService {
     // Repositórios e Serviços principais
     private final IUserRepository userRepository;
     private final ICacheService cacheService;
+    private final TokenRevocationService tokenRevocations;
+    private final UserCache userCache;
     // (Você pode precisar do PasswordEncoder aqui se 'createPatient' definir uma senha)
     // private final PasswordEncoder passwordEncoder; 
 
@@ -37,39 +46,31 @@ public class PatientServiceImpl implements IPatientService {
     private final PatientMapper mapper;
     private final PatientHelper helper;
 
-    private static final String CACHE_KEY_ALL_PATIENTS = "patients:all";
+    // Lista servida do cache enquanto é recarregada em background (refresh-ahead)
+    private static final CacheOptions LIST_CACHE = CacheOptions.builder()
+            .ttl(Duration.ofHours(1))
+            .refreshAfter(Duration.ofMinutes(10))
+            .tag(CacheTags.PATIENTS)
+            .build();
 
     @Override
     @Transactional(readOnly = true)
     public List<PatientResponseDto> getAllPatients() {
         log.info("Buscando todos os pacientes");
 
-        // 1. Tentar buscar do cache
-        try {
-            @SuppressWarnings("unchecked")
-            List<PatientResponseDto> cachedPatients = cacheService.get(CACHE_KEY_ALL_PATIENTS, List.class);
-            if (cachedPatients != null) {
-                log.info("Retornando {} pacientes do cache", cachedPatients.size());
-                return cachedPatients;
-            }
-        } catch (Exception e) {
-            log.warn("Erro ao buscar do cache: {}", e.getMessage());
-        }
-
         try {
-            // 2. Cache miss: Buscar do banco
-            log.info("Cache miss. Buscando do banco de dados...");
-            // ATENÇÃO: Isso busca TODOS os usuários. Se "Paciente" for um
-            // subconjunto (ex: por Role), você deve alterar esta query.
-            List<User> patients = userRepository.findAll();
-
-            // 3. Mapear para DTO
-            List<PatientResponseDto> dtos = patients.stream()
-                    .map(mapper::toDto)
-                    .collect(Collectors.toList());
-
-            // 4. Salvar no cache por 10 minutos
-            cacheService.saveWithTtl(CACHE_KEY_ALL_PATIENTS, dtos, 10, TimeUnit.MINUTES); 
+            // Recarregado em background depois de 10 minutos; misses simultâneos compartilham uma única busca no banco
+            List<PatientResponseDto> dtos = cacheService.getOrLoad(CacheKeys.PATIENTS_ALL, new TypeReference<List<PatientResponseDto>>() {}, LIST_CACHE, () -> {
+                log.debug("Carregando lista do banco de dados...");
+                // ATENÇÃO: Isso busca TODOS os usuários. Se "Paciente" for um
+                // subconjunto (ex: por Role), você deve alterar esta query.
+                List<User> patients = userRepository.findAll();
+
+                // Mapear para DTO
+                return patients.stream()
+                        .map(mapper::toDto)
+                        .collect(Collectors.toList());
+            });
             return dtos;
 
         } catch (DataAccessException e) {
@@ -105,7 +106,7 @@ public class PatientServiceImpl implements IPatientService {
             log.info("Paciente criado com ID: {}", savedUser.getPublicId());
 
             // 4. Invalidar cache
-            cacheService.delete(CACHE_KEY_ALL_PATIENTS);
+            cacheService.invalidateTags(List.of(CacheTags.PATIENTS));
 
             // 5. Retornar DTO (delegado ao Mapper)
             return mapper.toDto(savedUser);
@@ -137,8 +138,12 @@ public class PatientServiceImpl implements IPatientService {
             // 4. Salvar
             User updatedUser = userRepository.save(user);
 
-            // 5. Invalidar cache
-            cacheService.delete(CACHE_KEY_ALL_PATIENTS);
+            // 5. Invalidar cache (listas com pacientes + entradas do próprio usuário)
+            cacheService.invalidateTags(List.of(CacheTags.PATIENTS, CacheTags.user(updatedUser.getPublicId())));
+
+            // O email (subject dos tokens) pode ter mudado: invalida os tokens já emitidos
+            userCache.evict(updatedUser);
+            tokenRevocations.revokeAll(updatedUser.getPublicId());
 
             // 6. Retornar DTO (delegado ao Mapper)
             return mapper.toDto(updatedUser);
@@ -168,8 +173,12 @@ public class PatientServiceImpl implements IPatientService {
             userRepository.delete(user);
             // (Alternativa: userRepository.deleteByPublicId(user.getPublicId()))
 
-            // 4. Invalidar cache
-            cacheService.delete(CACHE_KEY_ALL_PATIENTS);
+            // 4. Invalidar cache (listas com pacientes + entradas do próprio usuário)
+            cacheService.invalidateTags(List.of(CacheTags.PATIENTS, CacheTags.user(user.getPublicId())));
+
+            // Conta removida: os tokens dela não podem mais autenticar
+            userCache.evict(user);
+            tokenRevocations.revokeAll(user.getPublicId());
             log.info("Paciente ID {} deletado e cache invalidado", id);
 
         } catch (DataAccessException e) {
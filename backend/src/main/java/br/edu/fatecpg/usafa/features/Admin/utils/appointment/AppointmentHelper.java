@@ -3,19 +3,26 @@ package br.edu.fatecpg.usafa.features.Admin.utils.appointment;
 
 import br.edu.fatecpg.usafa.features.Admin.repositories.IMedicoRepository;
 import br.edu.fatecpg.usafa.features.auth.repositories.IUserRepository;
+import br.edu.fatecpg.usafa.features.caching.CacheKeys;
+import br.edu.fatecpg.usafa.features.caching.ICacheService;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaSlot;
 import br.edu.fatecpg.usafa.features.consulta.enums.ConsultaStatus;
 import br.edu.fatecpg.usafa.features.consulta.repositories.IConsultaRepository;
+import br.edu.fatecpg.usafa.features.consulta.services.SlotReservationService;
 import br.edu.fatecpg.usafa.models.Consulta;
 import br.edu.fatecpg.usafa.models.Medico;
 import br.edu.fatecpg.usafa.models.User;
 import br.edu.fatecpg.usafa.shared.exceptions.BusinessRuleException;
+import br.edu.fatecpg.usafa.shared.exceptions.ResourceConflictException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * Classe auxiliar para o AppointmentService.
@@ -30,12 +37,14 @@ public class AppointmentHelper {
     private final IUserRepository userRepository;
     private final IMedicoRepository medicoRepository;
     private final IConsultaRepository consultaRepository;
+    private final ICacheService cacheService;
+    private final SlotReservationService slotReservationService;
 
     /**
      * Busca um Paciente (User) pelo seu ID público ou lança exceção.
      */
     public User findPatientByPublicId(String publicId) {
-        return userRepository.findByPublicId(UUID.fromString(publicId))
+        return findOrRemember(CacheKeys.usuario(publicId), () -> userRepository.findByPublicId(UUID.fromString(publicId)))
                 .orElseThrow(() -> new BusinessRuleException("Paciente com ID " + publicId + " não encontrado"));
     }
 
@@ -43,7 +52,7 @@ public class AppointmentHelper {
      * Busca um Médico (Medico) pelo seu ID público ou lança exceção.
      */
     public Medico findDoctorByPublicId(String publicId) {
-        return medicoRepository.findByPublicId(publicId)
+        return findOrRemember(CacheKeys.medico(publicId), () -> medicoRepository.findByPublicId(publicId))
                 .orElseThrow(() -> new BusinessRuleException("Médico com ID " + publicId + " não encontrado"));
     }
 
@@ -51,10 +60,25 @@ public class AppointmentHelper {
      * Busca uma Consulta (Consulta) pelo seu ID público ou lança exceção.
      */
     public Consulta findConsultaByPublicId(String publicId) {
-        return consultaRepository.findByPublicId(publicId)
+        return findOrRemember(CacheKeys.consulta(publicId), () -> consultaRepository.findByPublicId(publicId))
                 .orElseThrow(() -> new BusinessRuleException("Consulta com ID " + publicId + " não encontrada"));
     }
 
+    /**
+     * Busca no banco, a menos que o ID tenha sido procurado há pouco sem sucesso (cache negativo).
+     * IDs não encontrados são lembrados pelo TTL curto do cache negativo.
+     */
+    private <T> Optional<T> findOrRemember(String cacheKey, Supplier<Optional<T>> finder) {
+        if (cacheService.isNotFound(cacheKey)) {
+            return Optional.empty();
+        }
+        Optional<T> found = finder.get();
+        if (found.isEmpty()) {
+            cacheService.saveNotFound(cacheKey);
+        }
+        return found;
+    }
+
     /**
      * Verifica se uma consulta existe pelo ID.
      */
@@ -87,12 +111,36 @@ public class AppointmentHelper {
     }
 
     /**
-     * REGRA DE NEGÓCIO: Verifica se o médico já tem uma consulta nesse horário.
+     * REGRA DE NEGÓCIO: Reserva o horário do médico para a consulta 'owner'.
+     * A reserva atômica no Redis barra duas requisições simultâneas; a consulta ao
+     * banco cobre os horários ocupados antes da reserva existir.
+     * O admin tem prioridade sobre uma solicitação de paciente ainda na fila: a
+     * reserva dela passa para a consulta (só outra consulta gera conflito).
+     * Se a gravação falhar, o horário deve ser devolvido com releaseAppointmentSlot.
      */
-    public void validateAppointmentSlot(Medico medico, LocalDate dia, LocalTime horario) {
-        boolean slotTaken = consultaRepository.existsByMedicoAndDiaAndHorario(medico, dia, horario);
-        if (slotTaken) {
-            throw new BusinessRuleException("Este médico já possui uma consulta agendada para este dia e horário.");
+    public ConsultaSlot reserveAppointmentSlot(Medico medico, LocalDate dia, LocalTime horario, String owner) {
+        ConsultaSlot slot = new ConsultaSlot(medico.getPublicId(), dia, horario);
+        if (!slotReservationService.reserveOverRequest(slot, owner)) {
+            throw new ResourceConflictException("Este horário já foi reservado por outra solicitação.");
         }
+        if (consultaRepository.existsByMedicoAndDiaAndHorario(medico, dia, horario)) {
+            slotReservationService.release(slot, owner);
+            throw new ResourceConflictException("Este médico já possui uma consulta agendada para este dia e horário.");
+        }
+        return slot;
+    }
+
+    /**
+     * Devolve o horário reservado pela consulta 'owner' (gravação falhou, remarcação ou exclusão).
+     */
+    public void releaseAppointmentSlot(ConsultaSlot slot, String owner) {
+        slotReservationService.release(slot, owner);
+    }
+
+    /**
+     * Horário ocupado por uma consulta já gravada.
+     */
+    public ConsultaSlot slotOf(Consulta consulta) {
+        return new ConsultaSlot(consulta.getMedico().getPublicId(), consulta.getDia(), consulta.getHorario());
     }
 }
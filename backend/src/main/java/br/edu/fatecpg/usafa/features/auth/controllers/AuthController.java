@@ -3,7 +3,6 @@ package br.edu.fatecpg.usafa.features.auth.controllers;
 import java.util.List;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -18,10 +17,12 @@ import org.springframework.web.bind.annotation.RestController;
 import br.edu.fatecpg.usafa.features.auth.dtos.*;
 import br.edu.fatecpg.usafa.features.auth.interfaces.IUserAppService;
 import br.edu.fatecpg.usafa.features.auth.utilis.UserUtils;
-import br.edu.fatecpg.usafa.features.caching.ICacheService;
 import br.edu.fatecpg.usafa.features.roles.interfaces.IRoleService;
 import br.edu.fatecpg.usafa.models.Role;
+import br.edu.fatecpg.usafa.shared.security.LoginThrottle;
 import br.edu.fatecpg.usafa.shared.tokens.JwtUtils;
+import br.edu.fatecpg.usafa.shared.tokens.RefreshTokenService;
+import br.edu.fatecpg.usafa.shared.tokens.TokenBlocklist;
 import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
@@ -32,8 +33,10 @@ public class AuthController {
     private final IUserAppService userAppService;
     private final UserUtils userUtils;
     private final JwtUtils jwtUtils; // 5. Injetar JwtUtils
-    private final ICacheService cacheService; // 6. Injetar ICacheService
+    private final TokenBlocklist tokenBlocklist; // 6. Injetar a blocklist de tokens
     private final IRoleService roleService; // 7. Injetar IRoleService
+    private final LoginThrottle loginThrottle; // 8. Limite de tentativas de login
+    private final RefreshTokenService refreshTokenService; // 9. Sessões (refresh tokens)
 
 
     @Autowired
@@ -41,22 +44,30 @@ public class AuthController {
             UserUtils userUtils,
             IRoleService roleService,
             JwtUtils jwtUtils,
-            ICacheService cacheService) {
+            TokenBlocklist tokenBlocklist,
+            LoginThrottle loginThrottle,
+            RefreshTokenService refreshTokenService) {
         this.userAppService = userAppService;
         this.jwtUtils = jwtUtils;
         this.userUtils = userUtils;
-        this.cacheService = cacheService;
+        this.tokenBlocklist = tokenBlocklist;
         this.roleService = roleService;
+        this.loginThrottle = loginThrottle;
+        this.refreshTokenService = refreshTokenService;
     }
 
     /**
      * Endpoint para autenticar um usuário com email e senha.
      * 
      * @param data O DTO contendo as credenciais de login.
-     * @return Um ResponseEntity com o token JWT em caso de sucesso.
+     * @param request O request HTTP (para o limite de tentativas por IP).
+     * @return Um ResponseEntity com o token JWT em caso de sucesso
+     *         (429 se o IP ou o email excedeu o limite de tentativas).
      */
     @PostMapping("/login")
-    public ResponseEntity<ResponseDTO> loginUser(@RequestBody LoginRequestDTO data) {
+    public ResponseEntity<ResponseDTO> loginUser(@RequestBody LoginRequestDTO data, HttpServletRequest request) {
+        loginThrottle.check(request.getRemoteAddr(), data.email());
+
         // A lógica foi movida para o serviço. O controller apenas delega.
         ResponseDTO response = userAppService.processManualLogin(data);
         return ResponseEntity.ok(response);
@@ -99,7 +110,8 @@ public class AuthController {
                             (user.getBirthDate() != null)
                                     ? user.getBirthDate().atStartOfDay().format(DateTimeFormatter.ISO_DATE_TIME) + "Z"
                                     : null,
-                            roles);
+                            roles,
+                            null); // Nem o refresh token
                     return ResponseEntity.ok(response);
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -118,17 +130,37 @@ public class AuthController {
         return ResponseEntity.ok(response.get());
     }
 
+    /**
+     * Endpoint para renovar a sessão sem novo login.
+     * O refresh token enviado deixa de valer e um novo é devolvido junto com o token JWT.
+     * Reusar um refresh token já trocado encerra a sessão (401).
+     *
+     * @param data O DTO com o refresh token.
+     * @return Um ResponseEntity com o novo token JWT e o novo refresh token.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<RefreshResponseDTO> refresh(@RequestBody RefreshRequestDTO data) {
+        return ResponseEntity.ok(userAppService.refreshSession(data));
+    }
+
     /**
      * Endpoint para realizar logout.
      * O endpoint salva o JTI do token na blocklist do Redis com o tempo restante de
      * validade do token.
      * Se o token for inválido (expirado, etc), apenas retorne OK.
+     * Se o refresh token for enviado no corpo, a sessão dele também é encerrada.
      * 
      * @param request O request HTTP.
+     * @param data (Opcional) O DTO com o refresh token da sessão.
      * @return Um ResponseEntity com uma resposta vazia em caso de sucesso.
      */
     @PostMapping("/logout")
-    public ResponseEntity<Void> logout(HttpServletRequest request) {
+    public ResponseEntity<Void> logout(HttpServletRequest request,
+            @RequestBody(required = false) RefreshRequestDTO data) {
+        if (data != null && data.refreshToken() != null) {
+            refreshTokenService.revoke(data.refreshToken());
+        }
+
         try {
             String authHeader = request.getHeader("Authorization");
             if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -142,8 +174,8 @@ public class AuthController {
 
             if (jti != null && remainingSeconds > 0) {
                 // Salva o JTI na blocklist do Redis com o tempo restante
-                // Usando o seu método `saveWithTtl`
-                cacheService.saveWithTtl("blocklist:" + jti, "blocked", remainingSeconds, TimeUnit.SECONDS);
+                // (e avisa as réplicas locais das outras instâncias)
+                tokenBlocklist.block(jti, remainingSeconds);
             }
 
             return ResponseEntity.ok().build();
@@ -0,0 +1,8 @@
+package br.edu.fatecpg.usafa.features.auth.dtos;
+
+/**
+ * DTO de entrada da renovação de sessão (e, opcionalmente, do logout).
+ *
+ * @param refreshToken O refresh token recebido no login.
+ */
+public record RefreshRequestDTO(String refreshToken) {}
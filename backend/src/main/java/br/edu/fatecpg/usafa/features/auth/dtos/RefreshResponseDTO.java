@@ -0,0 +1,9 @@
+package br.edu.fatecpg.usafa.features.auth.dtos;
+
+/**
+ * DTO de resposta da renovação de sessão.
+ *
+ * @param token        Novo token JWT (de curta duração).
+ * @param refreshToken Novo refresh token. O anterior deixa de valer.
+ */
+public record RefreshResponseDTO(String token, String refreshToken) {}
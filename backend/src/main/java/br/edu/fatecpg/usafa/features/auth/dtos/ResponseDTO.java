@@ -10,5 +10,6 @@ public record ResponseDTO(
     String cep,
     String phone,
     String birthDate,
-    List<String> roles // <-- ADICIONE
+    List<String> roles, // <-- ADICIONE
+    String refreshToken // Só no login/cadastro (null nos demais endpoints)
 ) {}
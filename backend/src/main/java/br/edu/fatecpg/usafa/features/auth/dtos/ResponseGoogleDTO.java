@@ -13,12 +13,14 @@ import java.util.List;
  * @param needsCompletion (NOVO) Flag que indica se o perfil precisa
  * ser completado (faltando CPF, CEP, etc.),
  * seja o usuário novo ou não.
+ * @param refreshToken    Refresh token para renovar a sessão sem novo login.
  */
 public record ResponseGoogleDTO(
         String token,
         String publicId,
         List<String> roles,
         boolean isNewUser,
-        boolean needsCompletion // <-- NOVO CAMPO
+        boolean needsCompletion, // <-- NOVO CAMPO
+        String refreshToken
 ) {
 }
\ No newline at end of file
@@ -10,4 +10,5 @@ public interface IUserAppService {
     ResponseDTO processManualRegistration(RegisterRequestDTO data);
     ResponseGoogleDTO processGoogleLogin(LoginGoogleRequestDTO googleUser);
     Optional<ResponseDTO> updateUserByPublicId(String publicId, UpdateUserByPublicIdDTO data);
+    RefreshResponseDTO refreshSession(RefreshRequestDTO data);
 }
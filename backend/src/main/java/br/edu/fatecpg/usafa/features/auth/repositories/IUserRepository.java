@@ -7,6 +7,8 @@ import org.springframework.stereotype.Repository;
 
 import br.edu.fatecpg.usafa.models.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -26,6 +28,12 @@ public interface IUserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByPublicId(UUID publicId);
 
+    /**
+     * Busca vários usuários em uma única consulta (IN).
+     * Usado pelo consumidor em lote da fila de consultas.
+     */
+    List<User> findByPublicIdIn(Collection<UUID> publicIds);
+
 
     boolean existsByPublicId(UUID publicId);
     void deleteByPublicId(UUID publicId);
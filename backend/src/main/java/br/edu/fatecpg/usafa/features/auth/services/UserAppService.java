@@ -3,7 +3,6 @@
 package br.edu.fatecpg.usafa.features.auth.services; // (Ajuste o package se necessário)
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -13,16 +12,21 @@ import org.springframework.stereotype.Service;
 
 import br.edu.fatecpg.usafa.features.auth.dtos.LoginGoogleRequestDTO;
 import br.edu.fatecpg.usafa.features.auth.dtos.LoginRequestDTO;
+import br.edu.fatecpg.usafa.features.auth.dtos.RefreshRequestDTO;
+import br.edu.fatecpg.usafa.features.auth.dtos.RefreshResponseDTO;
 import br.edu.fatecpg.usafa.features.auth.dtos.RegisterRequestDTO;
 import br.edu.fatecpg.usafa.features.auth.dtos.ResponseDTO;
 import br.edu.fatecpg.usafa.features.auth.dtos.ResponseGoogleDTO;
 import br.edu.fatecpg.usafa.features.auth.dtos.UpdateUserByPublicIdDTO;
 import br.edu.fatecpg.usafa.features.auth.interfaces.IUserAppService;
 import br.edu.fatecpg.usafa.features.auth.repositories.IUserRepository;
+import br.edu.fatecpg.usafa.features.auth.utilis.UserCache;
 import br.edu.fatecpg.usafa.features.roles.repositories.IRolesRepository;
 import br.edu.fatecpg.usafa.models.Role;
 import br.edu.fatecpg.usafa.models.User;
 import br.edu.fatecpg.usafa.shared.tokens.JwtUtils;
+import br.edu.fatecpg.usafa.shared.tokens.RefreshTokenService;
+import br.edu.fatecpg.usafa.shared.tokens.RefreshTokenSession;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -40,21 +44,26 @@ public class UserAppService implements IUserAppService {
     private final IRolesRepository roleRepository; // (Mantive seu nome)
     private final AuthenticationManager authenticationManager;
     private final JwtUtils jwtUtils;
+    private final UserCache userCache;
+    private final RefreshTokenService refreshTokenService;
 
     @Autowired
     public UserAppService(IUserRepository userRepository,
             PasswordEncoder passwordEncoder,
             IRolesRepository roleRepository,
             AuthenticationManager authenticationManager,
-            JwtUtils jwtUtils) {
+            JwtUtils jwtUtils,
+            UserCache userCache,
+            RefreshTokenService refreshTokenService) {
         this.roleRepository = roleRepository;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtUtils = jwtUtils;
+        this.userCache = userCache;
+        this.refreshTokenService = refreshTokenService;
     }
 
-    @Async
     @Override
     public ResponseDTO processManualLogin(LoginRequestDTO data) {
         Authentication authentication = authenticationManager.authenticate(
@@ -66,7 +75,7 @@ public class UserAppService implements IUserAppService {
         // 2. MUDANÇA CRÍTICA: Geramos o token a partir do UserDetails
         //    Isso permite que o JwtUtils coloque as roles DENTRO do token.
         //    (Estou assumindo que você ajustou o JwtUtils.generateToken conforme nossa conversa)
-        String token = jwtUtils.generateToken(userDetails); 
+        String token = generateToken(userDetails); 
 
         // 3. Pega a lista de roles (como strings) a partir das 'authorities'
         List<String> roles = userDetails.getAuthorities().stream()
@@ -84,11 +93,11 @@ public class UserAppService implements IUserAppService {
                 (userDetails.getBirthDate() != null)
                                     ? userDetails.getBirthDate().atStartOfDay().format(DateTimeFormatter.ISO_DATE_TIME) + "Z"
                                     : null,
-                roles // <-- PREENCHIDO
+                roles, // <-- PREENCHIDO
+                refreshTokenService.issue(userDetails.getPublicId(), userDetails.getEmail(), roles)
         );
     }
 
-    @Async
     @Override
     public ResponseDTO processManualRegistration(RegisterRequestDTO data) {
         if (userRepository.findByEmail(data.email()).isPresent()) {
@@ -113,7 +122,7 @@ public class UserAppService implements IUserAppService {
         User savedUser = userRepository.save(newUser);
 
         // 6. Gera o token (também a partir do UserDetails)
-        String token = jwtUtils.generateToken(savedUser);
+        String token = generateToken(savedUser);
 
         // 7. Pega as roles
         List<String> roles = savedUser.getAuthorities().stream()
@@ -131,11 +140,11 @@ public class UserAppService implements IUserAppService {
                (savedUser.getBirthDate() != null)
                                     ? savedUser.getBirthDate().atStartOfDay().format(DateTimeFormatter.ISO_DATE_TIME) + "Z"
                                     : null,
-                roles // <-- PREENCHIDO
+                roles, // <-- PREENCHIDO
+                refreshTokenService.issue(savedUser.getPublicId(), savedUser.getEmail(), roles)
         );
     }
 
-    @Async
     @Override
     public ResponseGoogleDTO processGoogleLogin(LoginGoogleRequestDTO googleUser) {
         Optional<User> existingUserOpt = userRepository.findByEmail(googleUser.email());
@@ -177,8 +186,11 @@ public class UserAppService implements IUserAppService {
         }
 
         User savedUser = userRepository.save(userToSave);
+        if (!isNewUser) {
+            userCache.evict(savedUser); // Nome e foto podem ter mudado
+        }
          // Gera o token (que agora terá a ROLE_USER)
-        String token = jwtUtils.generateToken(savedUser);
+        String token = generateToken(savedUser);
         // Pega as roles (para o DTO)
         List<String> roles = savedUser.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
@@ -190,12 +202,12 @@ public class UserAppService implements IUserAppService {
                 savedUser.getPublicId().toString(),
                 roles,
                 isNewUser,
-                needsCompletion // <-- RETORNA O NOVO FLAG
+                needsCompletion, // <-- RETORNA O NOVO FLAG
+                refreshTokenService.issue(savedUser.getPublicId(), savedUser.getEmail(), roles)
         
 );
     }
 
-    @Async
     @Override
     public Optional<ResponseDTO> updateUserByPublicId(String publicId, UpdateUserByPublicIdDTO data) {
         return userRepository.findByPublicId(UUID.fromString(publicId))
@@ -204,9 +216,10 @@ public class UserAppService implements IUserAppService {
                     user.setCep(data.cep());
                     user.setCpf(data.cpf());
                     User savedUser = userRepository.save(user);
+                    userCache.evict(savedUser);
 
                     // Gera um NOVO token (agora com CPF/CEP)
-                    String token = jwtUtils.generateToken(savedUser);
+                    String token = generateToken(savedUser);
 
                     // Pega as roles
                     List<String> roles = savedUser.getAuthorities().stream()
@@ -224,11 +237,24 @@ public class UserAppService implements IUserAppService {
                            (savedUser.getBirthDate() != null)
                                         ? savedUser.getBirthDate().atStartOfDay().format(DateTimeFormatter.ISO_DATE_TIME) + "Z"
                                         : null,
-                            roles // <-- PREENCHIDO
+                            roles, // <-- PREENCHIDO
+                            null // A sessão (refresh token) atual continua valendo
                     );
                 });
     }
 
+    /**
+     * Renova a sessão com o refresh token: um único script no Redis, sem
+     * verificar a senha e sem escrever na tabela users.
+     */
+    @Override
+    public RefreshResponseDTO refreshSession(RefreshRequestDTO data) {
+        RefreshTokenSession session = refreshTokenService.rotate(data.refreshToken());
+
+        String token = jwtUtils.generateToken(session.email(), UUID.fromString(session.userId()), session.roles());
+        return new RefreshResponseDTO(token, session.refreshToken());
+    }
+
     /**
      * Método privado (helper) para atribuir a role "ROLE_USER"
      * a um novo usuário.
@@ -241,4 +267,12 @@ public class UserAppService implements IUserAppService {
         // 2. Adiciona ao Set<Role> do usuário
         user.setRoles(Collections.singleton(defaultRole));
     }
+
+    /**
+     * Método privado (helper) que gera o token com o ID público do usuário,
+     * para o JwtAuthFilter não precisar ir ao banco.
+     */
+    private String generateToken(User user) {
+        return jwtUtils.generateToken(user, user.getPublicId());
+    }
 }
\ No newline at end of file
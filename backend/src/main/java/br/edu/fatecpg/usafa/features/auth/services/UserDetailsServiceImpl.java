@@ -1,6 +1,5 @@
 package br.edu.fatecpg.usafa.features.auth.services;
 
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -8,11 +7,14 @@ import org.springframework.stereotype.Service;
 
 import br.edu.fatecpg.usafa.features.auth.repositories.IUserRepository;
 import br.edu.fatecpg.usafa.models.User;
+import lombok.extern.slf4j.Slf4j;
 
 @Service
+@Slf4j
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     // A ÚNICA dependência que esta classe precisa é o repositório.
+    // (O login precisa da entidade com a senha, que não fica no UserCache.)
     private final IUserRepository userRepository;
 
     
@@ -29,12 +31,10 @@ public class UserDetailsServiceImpl implements UserDetailsService {
      * @return um objeto UserDetails (que a sua entidade 'User' vai implementar)
      * @throws UsernameNotFoundException se o usuário não for achado
      */
-    @Async
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         // 1. Log para debug
-        System.out.println("Tentando carregar usuário: " + username);
-        
+        log.debug("Tentando carregar usuário: {}", username);
 
         User user = userRepository.findByEmail(username)
                 .orElseThrow(() ->
@@ -0,0 +1,134 @@
+package br.edu.fatecpg.usafa.features.auth.utilis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import br.edu.fatecpg.usafa.features.auth.repositories.IUserRepository;
+import br.edu.fatecpg.usafa.models.User;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache em memória dos usuários autenticados, por email e por ID público.
+ *
+ * Evita que cada requisição autenticada repita o findByEmail (com o join das
+ * roles) em controllers e serviços. Guarda apenas um UserSnapshot imutável
+ * (sem a senha e sem coleções lazy), que pode ser compartilhado entre threads;
+ * a entidade nunca sai da transação que a carregou. Cada instância mantém a
+ * sua cópia por pouco tempo e as escritas chamam evict(), que avisa as outras
+ * instâncias via Pub/Sub.
+ */
+@Component
+@Slf4j
+public class UserCache implements MessageListener {
+
+    public static final String CHANNEL = "auth:user-cache";
+    private static final char SEPARATOR = '|';
+
+    private final IUserRepository userRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final Cache<String, UserSnapshot> byEmail;
+    private final Cache<UUID, UserSnapshot> byPublicId;
+
+    public UserCache(IUserRepository userRepository,
+                     StringRedisTemplate stringRedisTemplate,
+                     RedisMessageListenerContainer listenerContainer,
+                     @Value("${app.cache.user.ttl-seconds:60}") long ttlSeconds,
+                     @Value("${app.cache.user.max-size:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.byEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+        this.byPublicId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public Optional<UserSnapshot> findByEmail(String email) {
+        UserSnapshot cached = byEmail.getIfPresent(email);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return remember(userRepository.findByEmail(email));
+    }
+
+    public Optional<UserSnapshot> findByPublicId(UUID publicId) {
+        UserSnapshot cached = byPublicId.getIfPresent(publicId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return remember(userRepository.findByPublicId(publicId));
+    }
+
+    /**
+     * Só a cópia em memória desta instância, sem ir ao banco.
+     */
+    public Optional<UserSnapshot> findCachedByPublicId(UUID publicId) {
+        return Optional.ofNullable(byPublicId.getIfPresent(publicId));
+    }
+
+    /**
+     * Remove o usuário do cache desta e das outras instâncias.
+     * Chame depois de qualquer escrita no usuário (inclusive roles).
+     */
+    public void evict(User user) {
+        evictLocally(user.getPublicId(), user.getEmail());
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, user.getPublicId().toString() + SEPARATOR + user.getEmail());
+        } catch (Exception e) {
+            // O TTL local limita o tempo que as outras instâncias ficam com a cópia antiga
+            log.warn("Falha ao publicar a invalidação do usuário {}. Erro: {}", user.getPublicId(), e.getMessage());
+        }
+    }
+
+    private Optional<UserSnapshot> remember(Optional<User> user) {
+        Optional<UserSnapshot> snapshot = user.map(UserSnapshot::from);
+        snapshot.ifPresent(found -> {
+            byEmail.put(found.email(), found);
+            byPublicId.put(found.publicId(), found);
+        });
+        return snapshot;
+    }
+
+    private void evictLocally(UUID publicId, String email) {
+        // O email em cache pode ser o antigo (ex: o email foi alterado)
+        UserSnapshot previous = byPublicId.asMap().remove(publicId);
+        if (previous != null && previous.email() != null) {
+            byEmail.invalidate(previous.email());
+        }
+        if (email != null) {
+            byEmail.invalidate(email);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separatorIndex = body.indexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+            return;
+        }
+        try {
+            evictLocally(UUID.fromString(body.substring(0, separatorIndex)), body.substring(separatorIndex + 1));
+        } catch (IllegalArgumentException e) {
+            log.warn("Mensagem de invalidação de usuário inválida ignorada: {}", body);
+        }
+    }
+}
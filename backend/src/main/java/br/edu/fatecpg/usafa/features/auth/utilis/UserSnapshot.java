@@ -0,0 +1,29 @@
+package br.edu.fatecpg.usafa.features.auth.utilis;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import br.edu.fatecpg.usafa.models.Role;
+import br.edu.fatecpg.usafa.models.User;
+
+/**
+ * Cópia imutável dos dados do usuário que as requisições autenticadas usam.
+ *
+ * É o que o UserCache guarda: pode ser compartilhada entre threads sem risco,
+ * não tem a senha nem coleções lazy. Quem precisa da entidade (escritas,
+ * login, perfil completo) deve buscá-la no repositório.
+ */
+public record UserSnapshot(Long id, UUID publicId, String name, String email, Set<String> roles) {
+
+    public UserSnapshot {
+        roles = roles != null ? Set.copyOf(roles) : Set.of();
+    }
+
+    public static UserSnapshot from(User user) {
+        Set<String> roles = user.getRoles() != null
+                ? user.getRoles().stream().map(Role::getName).collect(Collectors.toUnmodifiableSet())
+                : Set.of();
+        return new UserSnapshot(user.getId(), user.getPublicId(), user.getName(), user.getEmail(), roles);
+    }
+}
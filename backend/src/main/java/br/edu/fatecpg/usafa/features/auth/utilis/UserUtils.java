@@ -7,62 +7,117 @@ import org.slf4j.Logger; // 1. Importar Logger
 import org.slf4j.LoggerFactory; // 2. Importar LoggerFactory
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import br.edu.fatecpg.usafa.features.auth.repositories.IUserRepository;
+import br.edu.fatecpg.usafa.features.caching.CacheKeys;
+import br.edu.fatecpg.usafa.features.caching.ICacheService;
 // (Ajuste esses imports para seus models e repositórios corretos)
 import br.edu.fatecpg.usafa.models.User;
+import br.edu.fatecpg.usafa.shared.tokens.JwtPrincipal;
 
 import java.util.Optional;
 import java.util.UUID; // 3. Importar UUID
+import java.util.function.Supplier;
 
 @Component
 @RequiredArgsConstructor
 public class UserUtils {
 
+    private final UserCache userCache;
     private final IUserRepository userRepository;
+    private final ICacheService cacheService;
     private static final Logger logger = LoggerFactory.getLogger(UserUtils.class);
 
+    // Usuário já resolvido na requisição atual
+    private static final String CURRENT_USER_ATTRIBUTE = UserUtils.class.getName() + ".currentUser";
+
     /**
-     * Busca a entidade User com base na autenticação do Spring Security.
+     * Busca o usuário autenticado (cópia imutável, sem a senha) com base na autenticação do Spring Security.
      * (Método que você já tinha)
+     * Dentro de uma mesma requisição, o usuário é resolvido uma única vez.
      */
-    public Optional<User> getUserFromAuthentication(Authentication authentication) {
+    public Optional<UserSnapshot> getUserFromAuthentication(Authentication authentication) {
         if (authentication == null || !authentication.isAuthenticated()) {
             return Optional.empty(); // Não autorizado
         }
 
+        // O filtro já carregou o usuário (autenticação pelo banco)
+        if (authentication.getPrincipal() instanceof User user) {
+            return Optional.of(UserSnapshot.from(user));
+        }
+
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null
+                && request.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof UserSnapshot user) {
+            return Optional.of(user);
+        }
+
+        Optional<UserSnapshot> user = resolve(authentication);
+        if (request != null) {
+            user.ifPresent(found -> request.setAttribute(CURRENT_USER_ATTRIBUTE, found, RequestAttributes.SCOPE_REQUEST));
+        }
+        return user;
+    }
+
+    private Optional<UserSnapshot> resolve(Authentication authentication) {
+        // Token com o ID público: busca pelo ID (não depende do email do token).
+        // A cópia em memória vem primeiro: o cache negativo (Redis) só é consultado numa falta local
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal && principal.publicId() != null) {
+            return parsePublicId(principal.publicId())
+                    .flatMap(uuid -> userCache.findCachedByPublicId(uuid)
+                            .or(() -> findOrRememberMissing(principal.publicId(), () -> userCache.findByPublicId(uuid))));
+        }
+
         String email = authentication.getName();
         if (email == null) {
             return Optional.empty();
         }
         
-        return userRepository.findByEmail(email);
+        return userCache.findByEmail(email);
     }
 
     /**
      * NOVO MÉTODO
      * Busca a entidade User com base no seu ID público (UUID como String).
+     * A entidade vem sempre do repositório (ela não é compartilhada entre requisições).
      *
      * @param publicId O ID público do usuário (em formato String).
      * @return Um Optional<User> contendo o usuário, se encontrado.
      */
     public Optional<User> getUserByPublicId(String publicId) {
+        return parsePublicId(publicId)
+                .flatMap(uuid -> findOrRememberMissing(publicId, () -> userRepository.findByPublicId(uuid)));
+    }
+
+    private Optional<UUID> parsePublicId(String publicId) {
         if (publicId == null || publicId.isEmpty()) {
             return Optional.empty();
         }
 
-        UUID uuid;
         try {
             // 1. Tenta converter a String para UUID
-            uuid = UUID.fromString(publicId);
+            return Optional.of(UUID.fromString(publicId));
         } catch (IllegalArgumentException e) {
             // 2. Se a string não for um UUID válido, loga e retorna vazio
             logger.warn("Tentativa de busca com ID público inválido (não-UUID): {}", publicId);
             return Optional.empty();
         }
+    }
+
+    private <T> Optional<T> findOrRememberMissing(String publicId, Supplier<Optional<T>> finder) {
+        // 3. IDs que já não foram encontrados há pouco não voltam ao banco
+        final String cacheKey = CacheKeys.usuario(publicId);
+        if (cacheService.isNotFound(cacheKey)) {
+            return Optional.empty();
+        }
 
-        // 3. Busca no repositório com o UUID
-        // (Assumindo que IUserRepository tem 'findByPublicId(UUID id)')
-        return userRepository.findByPublicId(uuid);
+        // 4. Busca pelo UUID (no cache de usuários ou no repositório)
+        Optional<T> user = finder.get();
+        if (user.isEmpty()) {
+            cacheService.saveNotFound(cacheKey);
+        }
+        return user;
     }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Valor a ser gravado pelo ICacheService.saveMany, com o seu próprio TTL.
+ * Um TTL nulo grava a chave sem expiração (como o save()).
+ */
+public record CacheEntry(Object value, Duration ttl) {
+
+    public static CacheEntry of(Object value, long timeout, TimeUnit timeUnit) {
+        return new CacheEntry(value, Duration.of(timeout, timeUnit.toChronoUnit()));
+    }
+
+    public static CacheEntry permanent(Object value) {
+        return new CacheEntry(value, null);
+    }
+}
@@ -0,0 +1,26 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Valor gravado no cache pelas chaves com CacheOptions. Guarda, junto com o valor:
+ * - refreshAt: instante (epoch millis) a partir do qual ele deve ser
+ *   recarregado em background;
+ * - tagVersions: a geração de cada tag no momento em que ele foi carregado.
+ */
+public record CacheEnvelope<T>(T value, long refreshAt, Map<String, Long> tagVersions) {
+
+    public static <T> CacheEnvelope<T> of(T value, CacheOptions options, Map<String, Long> tagVersions) {
+        long refreshAt = options.getRefreshAfter() != null
+                ? System.currentTimeMillis() + options.getRefreshAfter().toMillis()
+                : Long.MAX_VALUE;
+        return new CacheEnvelope<>(value, refreshAt, tagVersions);
+    }
+
+    @JsonIgnore
+    public boolean isStale() {
+        return System.currentTimeMillis() >= refreshAt;
+    }
+}
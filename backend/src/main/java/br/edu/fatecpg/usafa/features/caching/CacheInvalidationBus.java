@@ -0,0 +1,116 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Propaga invalidações do cache local (L1) entre as instâncias da aplicação
+ * usando o Pub/Sub do Redis.
+ *
+ * Quando uma instância grava ou remove uma chave, ela publica a chave no canal;
+ * as outras instâncias removem a sua cópia local, garantindo que o L1 nunca
+ * continue servindo uma chave que foi deletada.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBus implements MessageListener {
+
+    public static final String CHANNEL = "cache:invalidation";
+    private static final char SEPARATOR = '|';
+    // Separa as chaves de uma invalidação em lote (uma única mensagem)
+    private static final String KEY_SEPARATOR = "\n";
+
+    // Identifica esta instância, para ignorar as próprias mensagens
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    private final LocalCacheStore localCache;
+
+    public CacheInvalidationBus(StringRedisTemplate stringRedisTemplate,
+                                ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                                LocalCacheStore localCache,
+                                RedisMessageListenerContainer listenerContainer) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.reactiveStringRedisTemplate = reactiveStringRedisTemplate;
+        this.localCache = localCache;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Avisa as outras instâncias que a chave mudou.
+     * Uma falha aqui não deve quebrar a escrita: o TTL do L1 limita a desatualização.
+     */
+    public void publish(String key) {
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, nodeId + SEPARATOR + key);
+        } catch (Exception e) {
+            log.warn("Falha ao publicar invalidação do cache local (chave: {}). Erro: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Avisa as outras instâncias que várias chaves mudaram, em uma única mensagem.
+     */
+    public void publish(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, nodeId + SEPARATOR + String.join(KEY_SEPARATOR, keys));
+        } catch (Exception e) {
+            log.warn("Falha ao publicar invalidação do cache local ({} chaves). Erro: {}", keys.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Versão não bloqueante de publish(), para quem escreve pelo IAsyncCacheService.
+     * Assim como publish(), nunca completa com erro.
+     */
+    public CompletableFuture<Void> publishAsync(String key) {
+        return reactiveStringRedisTemplate.convertAndSend(CHANNEL, nodeId + SEPARATOR + key)
+                .onErrorResume(e -> {
+                    log.warn("Falha ao publicar invalidação do cache local (chave: {}). Erro: {}", key, e.getMessage());
+                    return Mono.empty();
+                })
+                .then()
+                .toFuture();
+    }
+
+    /**
+     * Versão não bloqueante de publish(Collection).
+     */
+    public CompletableFuture<Void> publishAsync(Collection<String> keys) {
+        return publishAsync(String.join(KEY_SEPARATOR, keys));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separatorIndex = body.indexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+            return;
+        }
+
+        String origin = body.substring(0, separatorIndex);
+        if (nodeId.equals(origin)) {
+            return; // A própria instância já atualizou o seu L1
+        }
+
+        localCache.evictAll(List.of(body.substring(separatorIndex + 1).split(KEY_SEPARATOR)));
+    }
+}
@@ -0,0 +1,50 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+/**
+ * Chaves de cache compartilhadas entre serviços.
+ * As escritas não apagam estas chaves diretamente: elas invalidam as tags
+ * (CacheTags) das quais as entradas dependem.
+ */
+public final class CacheKeys {
+
+    public static final String APPOINTMENTS_ALL = "appointments:all";
+    public static final String DOCTORS_ALL = "doctors:all";
+    public static final String PATIENTS_ALL = "patients:all";
+    public static final String CONSULTA_FORM_OPTIONS = "CONSULTA_FORM_OPTIONS";
+
+    private CacheKeys() {
+    }
+
+    /** Histórico de consultas de um usuário. */
+    public static String consultasDoUsuario(String userPublicId) {
+        return "CONSULTAS_USER_" + userPublicId;
+    }
+
+    /** Usuário (paciente) buscado pelo ID público. */
+    public static String usuario(String userPublicId) {
+        return "USER_" + userPublicId;
+    }
+
+    /** Médico buscado pelo ID público. */
+    public static String medico(String medicoPublicId) {
+        return "MEDICO_" + medicoPublicId;
+    }
+
+    /** Consulta buscada pelo ID público. */
+    public static String consulta(String consultaPublicId) {
+        return "CONSULTA_" + consultaPublicId;
+    }
+
+    /**
+     * Registro de cache negativo da chave (a busca não encontrou nada).
+     * Fica em uma chave separada, com TTL próprio, para não se misturar ao valor.
+     */
+    public static String naoEncontrado(String key) {
+        return "notfound:" + key;
+    }
+
+    /** USAFA (localização) cadastrada para um usuário. */
+    public static String localizacaoDoUsuario(String userPublicId) {
+        return "USAFA_USER_" + userPublicId;
+    }
+}
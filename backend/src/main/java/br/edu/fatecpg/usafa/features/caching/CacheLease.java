@@ -0,0 +1,64 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * "Lease" distribuído no Redis para repopular uma chave de cache.
+ * Garante que, entre todas as instâncias, apenas uma vá ao banco
+ * quando a chave expira; as demais aguardam o valor aparecer no Redis.
+ */
+@Component
+@Slf4j
+public class CacheLease {
+
+    private static final String LEASE_PREFIX = "cache:lease:";
+
+    // Só remove o lease se ele ainda pertencer a quem o adquiriu
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public CacheLease(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    /**
+     * Tenta adquirir o lease da chave (SET NX PX).
+     * @return O token do lease, ou null se outra instância já o possui.
+     *         Se o Redis estiver indisponível, devolve um token local para
+     *         que o chamador siga carregando normalmente.
+     */
+    public String tryAcquire(String cacheKey, Duration leaseTime) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(LEASE_PREFIX + cacheKey, token, leaseTime);
+            return Boolean.TRUE.equals(acquired) ? token : null;
+        } catch (Exception e) {
+            log.warn("Falha ao adquirir lease do cache (chave: {}). Erro: {}", cacheKey, e.getMessage());
+            return token;
+        }
+    }
+
+    /**
+     * Libera o lease, se ele ainda pertencer ao token informado.
+     */
+    public void release(String cacheKey, String token) {
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(LEASE_PREFIX + cacheKey), token);
+        } catch (Exception e) {
+            log.warn("Falha ao liberar lease do cache (chave: {}). Erro: {}", cacheKey, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import br.edu.fatecpg.usafa.features.caching.dtos.CacheNamespaceStatsDTO;
+
+/**
+ * Contadores do cache por namespace (prefixo da chave).
+ *
+ * Substitui os logs de "Cache HIT/MISS" por requisição: os contadores são
+ * LongAdder (sem lock e sem alocação no caminho quente) e podem ser
+ * consultados em /admin/cache/metrics para dimensionar os TTLs.
+ */
+@Component
+public class CacheMetrics {
+
+    // Chaves que não pertencem a nenhum namespace conhecido
+    public static final String OTHER = "other";
+
+    // Ordem importa: o primeiro prefixo que casar com a chave vence
+    private static final List<String> NAMESPACES = List.of(
+            "CONSULTAS_USER_",
+            "USAFA_USER_",
+            "CONSULTA_FORM_OPTIONS",
+            "appointments:",
+            "doctors:",
+            "patients:",
+            "blocklist:",
+            "notfound:");
+
+    private final Map<String, NamespaceStats> stats = new LinkedHashMap<>();
+
+    public CacheMetrics() {
+        NAMESPACES.forEach(namespace -> stats.put(namespace, new NamespaceStats()));
+        stats.put(OTHER, new NamespaceStats());
+    }
+
+    public void recordLocalHit(String key) {
+        statsOf(key).localHits.increment();
+    }
+
+    public void recordHit(String key) {
+        statsOf(key).hits.increment();
+    }
+
+    public void recordMiss(String key) {
+        statsOf(key).misses.increment();
+    }
+
+    public void recordWrite(String key, int valueBytes) {
+        NamespaceStats s = statsOf(key);
+        s.writes.increment();
+        s.bytesWritten.add(valueBytes);
+        s.maxValueBytes.accumulate(valueBytes);
+    }
+
+    public void recordError(String key) {
+        statsOf(key).errors.increment();
+    }
+
+    /**
+     * Executa o loader medindo o tempo do carregamento (mesmo se ele falhar).
+     */
+    public <T> T timeLoad(String key, Supplier<T> loader) {
+        long start = System.nanoTime();
+        try {
+            return loader.get();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            NamespaceStats s = statsOf(key);
+            s.loads.increment();
+            s.loadNanos.add(elapsed);
+            s.maxLoadNanos.accumulate(elapsed);
+        }
+    }
+
+    public Map<String, CacheNamespaceStatsDTO> snapshot() {
+        Map<String, CacheNamespaceStatsDTO> result = new LinkedHashMap<>();
+        stats.forEach((namespace, s) -> result.put(namespace, s.toDto(namespace)));
+        return result;
+    }
+
+    private NamespaceStats statsOf(String key) {
+        for (String namespace : NAMESPACES) {
+            if (key.startsWith(namespace)) {
+                return stats.get(namespace);
+            }
+        }
+        return stats.get(OTHER);
+    }
+
+    private static final class NamespaceStats {
+        final LongAdder localHits = new LongAdder();
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder loads = new LongAdder();
+        final LongAdder loadNanos = new LongAdder();
+        final LongAccumulator maxLoadNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder writes = new LongAdder();
+        final LongAdder bytesWritten = new LongAdder();
+        final LongAccumulator maxValueBytes = new LongAccumulator(Math::max, 0);
+        final LongAdder errors = new LongAdder();
+
+        CacheNamespaceStatsDTO toDto(String namespace) {
+            long local = localHits.sum();
+            long remote = hits.sum();
+            long reads = local + remote + misses.sum();
+            long loadCount = loads.sum();
+            long writeCount = writes.sum();
+
+            return CacheNamespaceStatsDTO.builder()
+                    .namespace(namespace)
+                    .localHits(local)
+                    .hits(remote)
+                    .misses(misses.sum())
+                    .hitRatio(reads > 0 ? (double) (local + remote) / reads : 0)
+                    .loads(loadCount)
+                    .avgLoadMillis(loadCount > 0 ? toMillis(loadNanos.sum()) / loadCount : 0)
+                    .maxLoadMillis(toMillis(maxLoadNanos.get()))
+                    .writes(writeCount)
+                    .avgValueBytes(writeCount > 0 ? (double) bytesWritten.sum() / writeCount : 0)
+                    .maxValueBytes(maxValueBytes.get())
+                    .errors(errors.sum())
+                    .build();
+        }
+
+        private static double toMillis(long nanos) {
+            return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+import java.time.Duration;
+import java.util.Set;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+/**
+ * Opções de uma entrada de cache gravada por getOrLoad.
+ *
+ * - ttl: expiração "dura" no Redis. Depois dela, a próxima leitura é um MISS.
+ * - refreshAfter: expiração "suave". Depois dela, o valor ainda é servido,
+ *   mas uma tarefa em background o recarrega (stale-while-revalidate).
+ *   Se nulo, a entrada só expira pelo ttl.
+ * - tags: dados dos quais a entrada depende (ver CacheTags). Invalidar
+ *   qualquer uma delas torna a entrada um MISS.
+ */
+@Value
+@Builder
+public class CacheOptions {
+
+    Duration ttl;
+
+    Duration refreshAfter;
+
+    @Singular
+    Set<String> tags;
+}
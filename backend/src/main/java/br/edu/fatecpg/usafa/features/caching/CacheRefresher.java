@@ -0,0 +1,99 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executa os recarregamentos em background do refresh-ahead.
+ *
+ * - Cada chave tem no máximo um recarregamento em andamento por instância.
+ * - Entre instâncias, o CacheLease garante que só uma delas recarregue a chave.
+ * - O loader roda em uma transação somente leitura, como nos métodos
+ *   @Transactional(readOnly = true) dos serviços que o definem.
+ *
+ * O pool é próprio (e não um bean Executor) para não substituir o executor
+ * padrão do Spring usado pelo @Async.
+ */
+@Component
+@Slf4j
+public class CacheRefresher {
+
+    private final ThreadPoolExecutor executor;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final TransactionTemplate readOnlyTransaction;
+    private final CacheLease cacheLease;
+    private final Duration leaseTime;
+
+    public CacheRefresher(PlatformTransactionManager transactionManager,
+                          CacheLease cacheLease,
+                          @Value("${app.cache.refresh.threads:2}") int threads,
+                          @Value("${app.cache.refresh.queue-size:100}") int queueSize,
+                          @Value("${app.cache.load.lease-ms:5000}") long leaseMillis) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.cacheLease = cacheLease;
+        this.leaseTime = Duration.ofMillis(leaseMillis);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cache-refresh-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), threadFactory);
+    }
+
+    /**
+     * Agenda o recarregamento da chave, se ele ainda não estiver em andamento.
+     * Nunca bloqueia: se a fila estiver cheia, o pedido é descartado
+     * (o valor atual continua sendo servido e a próxima leitura tenta de novo).
+     */
+    public void refreshAsync(String key, Runnable reload) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    refresh(key, reload);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            log.debug("Fila de refresh cheia. Recarregamento da chave {} adiado.", key);
+        }
+    }
+
+    private void refresh(String key, Runnable reload) {
+        String leaseToken = cacheLease.tryAcquire(key, leaseTime);
+        if (leaseToken == null) {
+            return; // Outra instância já está recarregando esta chave
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> reload.run());
+            log.debug("Chave {} recarregada em background.", key);
+        } catch (Exception e) {
+            log.warn("Falha ao recarregar a chave {} em background. Erro: {}", key, e.getMessage());
+        } finally {
+            cacheLease.release(key, leaseToken);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,26 +1,61 @@
 package br.edu.fatecpg.usafa.features.caching;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+
+import br.edu.fatecpg.usafa.features.caching.codec.CacheCodecRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.stereotype.Service;
 
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Serviço para interagir com o cache (Redis).
  * Fornece métodos básicos de CRUD (Create, Read, Update, Delete) para
  * armazenar, recuperar e remover objetos do cache.
+ *
+ * É a camada L2 do NearCacheService. As operações são síncronas: a invalidação
+ * do cache local só é publicada depois que o Redis já foi atualizado.
+ *
+ * Os valores são gravados como bytes pelo CacheCodecRegistry (JSON ou Smile),
+ * e lidos de volta direto no tipo pedido (Class, TypeReference ou JavaType).
+ *
+ * Cada leitura, escrita e carregamento é contabilizado no CacheMetrics.
  */
 @Service
+@Slf4j
 public class CacheService implements ICacheService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+    private final CacheCodecRegistry codecs;
+    private final CacheTagRegistry tagRegistry;
+    private final CacheMetrics metrics;
+    private final long notFoundTtlSeconds;
 
-    public CacheService(RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper) {
-        this.redisTemplate = redisTemplate;
-        this.objectMapper = objectMapper;
+    public CacheService(RedisTemplate<String, byte[]> binaryRedisTemplate,
+                        CacheCodecRegistry codecs,
+                        CacheTagRegistry tagRegistry,
+                        CacheMetrics metrics,
+                        @Value("${app.cache.negative.ttl-seconds:60}") long notFoundTtlSeconds) {
+        this.binaryRedisTemplate = binaryRedisTemplate;
+        this.codecs = codecs;
+        this.tagRegistry = tagRegistry;
+        this.metrics = metrics;
+        this.notFoundTtlSeconds = notFoundTtlSeconds;
     }
 
     /**
@@ -28,9 +63,14 @@ public class CacheService implements ICacheService {
      * @param key A chave única para o item no cache.
      * @param value O objeto a ser armazenado.
      */
-    @Async
     public void save(String key, Object value) {
-        redisTemplate.opsForValue().set(key, value);
+        byte[] payload = encode(key, value);
+        try {
+            binaryRedisTemplate.opsForValue().set(key, payload);
+        } catch (RuntimeException e) {
+            metrics.recordError(key);
+            throw e;
+        }
     }
 
     /**
@@ -40,9 +80,20 @@ public class CacheService implements ICacheService {
      * @param timeout O tempo de vida do item no cache.
      * @param timeUnit A unidade de tempo (ex: TimeUnit.MINUTES).
      */
-    @Async
     public void saveWithTtl(String key, Object value, long timeout, TimeUnit timeUnit) {
-        redisTemplate.opsForValue().set(key, value, timeout, timeUnit);
+        byte[] payload = encode(key, value);
+        try {
+            binaryRedisTemplate.opsForValue().set(key, payload, timeout, timeUnit);
+        } catch (RuntimeException e) {
+            metrics.recordError(key);
+            throw e;
+        }
+    }
+
+    private byte[] encode(String key, Object value) {
+        byte[] payload = codecs.encode(value);
+        metrics.recordWrite(key, payload.length);
+        return payload;
     }
 
     /**
@@ -51,19 +102,59 @@ public class CacheService implements ICacheService {
      * @param clazz O tipo (classe) para o qual o resultado deve ser convertido.
      * @return O objeto encontrado e convertido, ou null se a chave não existir.
      */
-    @Async
     public <T> T get(String key, Class<T> clazz) {
-        Object value = redisTemplate.opsForValue().get(key);
-        return objectMapper.convertValue(value, clazz);
+        return get(key, codecs.typeOf(clazz));
+    }
+
+    /**
+     * Busca um valor genérico do cache (ex: List<ConsultaDTO>).
+     * @param key A chave do item a ser buscado.
+     * @param type O tipo completo, com os parâmetros genéricos.
+     * @return O objeto encontrado, ou null se a chave não existir.
+     */
+    public <T> T get(String key, TypeReference<T> type) {
+        return get(key, codecs.typeOf(type));
+    }
+
+    /**
+     * Busca um valor do cache já desserializado no tipo informado.
+     * Um valor ilegível (formato antigo ou corrompido) é tratado como ausente.
+     */
+    public <T> T get(String key, JavaType type) {
+        byte[] payload;
+        try {
+            payload = binaryRedisTemplate.opsForValue().get(key);
+        } catch (RuntimeException e) {
+            metrics.recordError(key);
+            throw e;
+        }
+        return decode(key, payload, type);
+    }
+
+    private <T> T decode(String key, byte[] payload, JavaType type) {
+        T value;
+        try {
+            value = codecs.decode(payload, type);
+        } catch (UncheckedIOException e) {
+            log.warn("Valor ilegível no cache (chave: {}). Tratando como MISS. Erro: {}", key, e.getMessage());
+            metrics.recordError(key);
+            value = null;
+        }
+
+        if (value != null) {
+            metrics.recordHit(key);
+        } else {
+            metrics.recordMiss(key);
+        }
+        return value;
     }
 
     /**
-     * Deleta um valor do cache.
+     * Deleta um valor do cache (e o seu registro de cache negativo).
      * @param key A chave do item a ser removido.
      */
-    @Async
     public void delete(String key) {
-        redisTemplate.delete(key);
+        binaryRedisTemplate.unlink(List.of(key, CacheKeys.naoEncontrado(key)));
     }
 
     /**
@@ -71,9 +162,179 @@ public class CacheService implements ICacheService {
      * @param key A chave a ser verificada.
      * @return true se a chave existir, false caso contrário.
      */
-    @Async
     public boolean exists(String key) {
-        Boolean hasKey = redisTemplate.hasKey(key);
-        return hasKey != null && hasKey;
+        Boolean hasKey;
+        try {
+            hasKey = binaryRedisTemplate.hasKey(key);
+        } catch (RuntimeException e) {
+            metrics.recordError(key);
+            throw e;
+        }
+
+        boolean found = hasKey != null && hasKey;
+        if (found) {
+            metrics.recordHit(key);
+        } else {
+            metrics.recordMiss(key);
+        }
+        return found;
+    }
+
+    /**
+     * Busca várias chaves com um único MGET.
+     * @param keys As chaves a serem buscadas.
+     * @param clazz O tipo dos valores.
+     * @return Mapa (na ordem das chaves) apenas com as chaves encontradas.
+     */
+    public <T> Map<String, T> getMany(Collection<String> keys, Class<T> clazz) {
+        return getMany(keys, codecs.typeOf(clazz));
+    }
+
+    public <T> Map<String, T> getMany(Collection<String> keys, JavaType type) {
+        Map<String, T> result = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+
+        List<String> keyList = new ArrayList<>(keys);
+        List<byte[]> payloads;
+        try {
+            payloads = binaryRedisTemplate.opsForValue().multiGet(keyList);
+        } catch (RuntimeException e) {
+            keyList.forEach(metrics::recordError);
+            throw e;
+        }
+        if (payloads == null) {
+            keyList.forEach(metrics::recordMiss);
+            return result;
+        }
+
+        for (int i = 0; i < keyList.size(); i++) {
+            T value = decode(keyList.get(i), payloads.get(i), type);
+            if (value != null) {
+                result.put(keyList.get(i), value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Grava várias chaves em um único pipeline (um round trip).
+     * Cada chave é um SET com o seu próprio TTL; chaves sem TTL não expiram.
+     * @param entries Mapa chave -> (valor, TTL).
+     */
+    public void saveMany(Map<String, CacheEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        // Serializa tudo antes de abrir o pipeline
+        Map<byte[], byte[]> payloads = new LinkedHashMap<>();
+        List<Expiration> expirations = new ArrayList<>(entries.size());
+        entries.forEach((key, entry) -> {
+            payloads.put(key.getBytes(StandardCharsets.UTF_8), encode(key, entry.value()));
+            expirations.add(entry.ttl() != null ? Expiration.from(entry.ttl()) : Expiration.persistent());
+        });
+
+        try {
+            binaryRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                int i = 0;
+                for (Map.Entry<byte[], byte[]> payload : payloads.entrySet()) {
+                    connection.stringCommands().set(payload.getKey(), payload.getValue(), expirations.get(i++), SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            entries.keySet().forEach(metrics::recordError);
+            throw e;
+        }
+    }
+
+    /**
+     * Remove várias chaves com um único UNLINK.
+     * (A memória é liberada pelo Redis em background, sem bloquear o servidor)
+     * @param keys As chaves a serem removidas.
+     */
+    public void deleteMany(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        binaryRedisTemplate.unlink(keys);
+    }
+
+    /**
+     * Cache-aside simples: busca no Redis e, na falta, carrega e salva.
+     * (Sem coalescência de requisições; isso fica a cargo do NearCacheService)
+     */
+    public <T> T getOrLoad(String key, Class<T> clazz, long timeout, TimeUnit timeUnit, Supplier<T> loader) {
+        return getOrLoad(key, codecs.typeOf(clazz), timeout, timeUnit, loader);
+    }
+
+    public <T> T getOrLoad(String key, TypeReference<T> type, long timeout, TimeUnit timeUnit, Supplier<T> loader) {
+        return getOrLoad(key, codecs.typeOf(type), timeout, timeUnit, loader);
+    }
+
+    private <T> T getOrLoad(String key, JavaType type, long timeout, TimeUnit timeUnit, Supplier<T> loader) {
+        T cached = get(key, type);
+        if (cached != null) {
+            return cached;
+        }
+        T loaded = metrics.timeLoad(key, loader);
+        if (loaded != null) {
+            saveWithTtl(key, loaded, timeout, timeUnit);
+        }
+        return loaded;
+    }
+
+    /**
+     * Refresh-ahead sem background: aqui um valor vencido (refreshAfter) é
+     * recarregado na própria requisição. O recarregamento em background fica
+     * a cargo do NearCacheService.
+     */
+    public <T> T getOrLoad(String key, Class<T> clazz, CacheOptions options, Supplier<T> loader) {
+        return getOrLoad(key, codecs.typeOf(clazz), options, loader);
+    }
+
+    public <T> T getOrLoad(String key, TypeReference<T> type, CacheOptions options, Supplier<T> loader) {
+        return getOrLoad(key, codecs.typeOf(type), options, loader);
+    }
+
+    private <T> T getOrLoad(String key, JavaType type, CacheOptions options, Supplier<T> loader) {
+        CacheEnvelope<T> cached = get(key, codecs.envelopeOf(type));
+        if (cached != null && !cached.isStale() && tagRegistry.isCurrent(cached.tagVersions())) {
+            return cached.value();
+        }
+        return loadEnvelope(key, options, loader);
+    }
+
+    public <T> void reload(String key, CacheOptions options, Supplier<T> loader) {
+        loadEnvelope(key, options, loader);
+    }
+
+    private <T> T loadEnvelope(String key, CacheOptions options, Supplier<T> loader) {
+        // As gerações são lidas antes do loader (ver CacheTagRegistry.snapshot)
+        Map<String, Long> tagVersions = tagRegistry.snapshot(options.getTags());
+        T loaded = metrics.timeLoad(key, loader);
+        if (loaded != null) {
+            saveWithTtl(key, CacheEnvelope.of(loaded, options, tagVersions),
+                    options.getTtl().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return loaded;
+    }
+
+    public void invalidateTags(Collection<String> tags) {
+        tagRegistry.invalidate(tags);
+    }
+
+    public void saveNotFound(String key) {
+        saveWithTtl(CacheKeys.naoEncontrado(key), Boolean.TRUE, notFoundTtlSeconds, TimeUnit.SECONDS);
+    }
+
+    public boolean isNotFound(String key) {
+        return exists(CacheKeys.naoEncontrado(key));
+    }
+
+    public long getNotFoundTtlSeconds() {
+        return notFoundTtlSeconds;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,133 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Contadores de geração das tags do cache.
+ *
+ * Cada tag tem um contador no Redis (cache:tag:<tag>). Uma entrada com tags
+ * guarda, ao ser carregada, a geração de cada tag; ela só é válida enquanto
+ * essas gerações não mudarem. Invalidar uma tag é um único INCR, não importa
+ * quantas chaves dependam dela (as entradas antigas expiram pelo próprio TTL).
+ *
+ * As gerações também ficam no cache local (L1) e são descartadas pelo
+ * CacheInvalidationBus, então validar uma entrada normalmente não vai ao Redis.
+ * Uma geração lida do Redis só entra no L1 se nenhuma invalidação chegou
+ * durante a leitura (senão o L1 guardaria uma geração já ultrapassada).
+ */
+@Component
+@Slf4j
+public class CacheTagRegistry {
+
+    private static final String VERSION_KEY_PREFIX = "cache:tag:";
+    // Geração usada quando o Redis não responde: nunca coincide com uma real
+    private static final long UNKNOWN_VERSION = -1L;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final LocalCacheStore localCache;
+    private final CacheInvalidationBus invalidationBus;
+
+    public CacheTagRegistry(StringRedisTemplate stringRedisTemplate,
+                            LocalCacheStore localCache,
+                            CacheInvalidationBus invalidationBus) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.localCache = localCache;
+        this.invalidationBus = invalidationBus;
+    }
+
+    /**
+     * Geração atual de cada tag (0 para tags nunca invalidadas).
+     * Tags que não estão no L1 são buscadas com um único MGET.
+     */
+    public Map<String, Long> currentVersions(Collection<String> tags) {
+        Map<String, Long> versions = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+
+        for (String tag : tags) {
+            if (localCache.get(versionKey(tag)) instanceof Long version) {
+                versions.put(tag, version);
+            } else {
+                missing.add(tag);
+            }
+        }
+        if (missing.isEmpty()) {
+            return versions;
+        }
+
+        List<String> keys = missing.stream().map(this::versionKey).toList();
+        long epoch = localCache.evictionEpoch();
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            String value = values != null ? values.get(i) : null;
+            long version = value != null ? Long.parseLong(value) : 0L;
+            versions.put(missing.get(i), version);
+            localCache.putIfNotEvictedSince(keys.get(i), version, epoch);
+        }
+        return versions;
+    }
+
+    /**
+     * Gerações a gravar junto com um valor que está para ser carregado.
+     * Deve ser chamado ANTES do loader: uma invalidação durante o carregamento
+     * torna o valor carregado inválido. Se o Redis falhar, o valor fica
+     * marcado como inválido (e será recarregado na próxima leitura).
+     */
+    public Map<String, Long> snapshot(Collection<String> tags) {
+        if (tags.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            return currentVersions(tags);
+        } catch (Exception e) {
+            log.warn("Falha ao ler as gerações das tags {}. Erro: {}", tags, e.getMessage());
+            Map<String, Long> unknown = new HashMap<>();
+            tags.forEach(tag -> unknown.put(tag, UNKNOWN_VERSION));
+            return unknown;
+        }
+    }
+
+    /**
+     * Uma entrada é válida se nenhuma das suas tags foi invalidada desde que ela foi carregada.
+     */
+    public boolean isCurrent(Map<String, Long> tagVersions) {
+        if (tagVersions == null || tagVersions.isEmpty()) {
+            return true;
+        }
+        return currentVersions(tagVersions.keySet()).equals(tagVersions);
+    }
+
+    /**
+     * Invalida todas as entradas que dependem das tags (um INCR por tag, em um único pipeline).
+     */
+    public void invalidate(Collection<String> tags) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        List<String> keys = tags.stream().distinct().map(this::versionKey).toList();
+
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.stringCommands().incr(key.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+
+        localCache.evictAll(keys);
+        invalidationBus.publish(keys);
+    }
+
+    private String versionKey(String tag) {
+        return VERSION_KEY_PREFIX + tag;
+    }
+}
@@ -0,0 +1,33 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+import java.util.UUID;
+
+/**
+ * Tags de invalidação do cache.
+ *
+ * Uma entrada gravada com CacheOptions.tag(...) fica inválida assim que
+ * qualquer uma das suas tags é invalidada (ICacheService.invalidateTags).
+ * Assim, quem escreve só precisa saber QUAL dado mudou, e não quais chaves
+ * dependem dele.
+ */
+public final class CacheTags {
+
+    /** Qualquer consulta (agendamento) foi criada, alterada ou removida. */
+    public static final String APPOINTMENTS = "appointments";
+    /** Qualquer médico foi criado, alterado ou removido. */
+    public static final String DOCTORS = "doctors";
+    /** Qualquer paciente foi criado, alterado ou removido. */
+    public static final String PATIENTS = "patients";
+
+    private CacheTags() {
+    }
+
+    /** Dados de um usuário específico (ex: o seu histórico de consultas). */
+    public static String user(String userPublicId) {
+        return "user:" + userPublicId;
+    }
+
+    public static String user(UUID userPublicId) {
+        return user(userPublicId.toString());
+    }
+}
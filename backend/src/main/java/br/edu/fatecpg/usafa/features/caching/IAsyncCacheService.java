@@ -0,0 +1,29 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * API de cache não bloqueante.
+ * As operações retornam imediatamente um CompletableFuture, permitindo que o
+ * chamador sobreponha a ida ao Redis com outro trabalho (ex: banco de dados)
+ * em vez de prender a thread da requisição esperando a resposta.
+ */
+public interface IAsyncCacheService {
+
+    <T> CompletableFuture<T> getAsync(String key, Class<T> clazz);
+
+    CompletableFuture<Boolean> existsAsync(String key);
+
+    CompletableFuture<Void> saveWithTtlAsync(String key, Object value, long timeout, TimeUnit timeUnit);
+
+    /**
+     * Remove a chave e o seu registro de cache negativo (se houver).
+     */
+    CompletableFuture<Void> deleteAsync(String key);
+
+    /**
+     * @return true se uma busca recente pela chave não encontrou nada (ver ICacheService.saveNotFound).
+     */
+    CompletableFuture<Boolean> isNotFoundAsync(String key);
+}
@@ -1,5 +1,10 @@
 package br.edu.fatecpg.usafa.features.caching;
+import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.type.TypeReference;
 
 public interface ICacheService {
 
@@ -9,7 +14,78 @@ public interface ICacheService {
 
     <T> T get(String key, Class<T> clazz);
 
+    /**
+     * Leitura de tipos genéricos, ex: new TypeReference<List<ConsultaDTO>>() {}.
+     * Os elementos já voltam no tipo certo (e não como LinkedHashMap).
+     */
+    <T> T get(String key, TypeReference<T> type);
+
+    /**
+     * Remove a chave e o seu registro de cache negativo (se houver).
+     */
     void delete(String key);
 
     boolean exists(String key);
+
+    /**
+     * Busca várias chaves em uma única ida ao Redis (MGET).
+     * @return Mapa chave -> valor contendo apenas as chaves encontradas.
+     */
+    <T> Map<String, T> getMany(Collection<String> keys, Class<T> clazz);
+
+    /**
+     * Grava várias chaves em um único pipeline, cada uma com o seu TTL.
+     */
+    void saveMany(Map<String, CacheEntry> entries);
+
+    /**
+     * Remove várias chaves em um único comando (UNLINK, que libera a memória em background).
+     */
+    void deleteMany(Collection<String> keys);
+
+    /**
+     * Cache-aside com carregador: devolve o valor do cache ou, na falta,
+     * executa o 'loader', salva o resultado com o TTL informado e o devolve.
+     * Valores nulos retornados pelo loader não são armazenados.
+     */
+    <T> T getOrLoad(String key, Class<T> clazz, long timeout, TimeUnit timeUnit, Supplier<T> loader);
+
+    <T> T getOrLoad(String key, TypeReference<T> type, long timeout, TimeUnit timeUnit, Supplier<T> loader);
+
+    /**
+     * Cache-aside com refresh-ahead (stale-while-revalidate).
+     * Depois de options.refreshAfter o valor continua sendo devolvido, mas é
+     * recarregado em background; só depois de options.ttl a leitura é um MISS.
+     * As chaves gravadas por esta variante guardam um CacheEnvelope, então
+     * devem ser lidas sempre por ela (e não por get). Uma entrada cujas tags
+     * foram invalidadas é tratada como MISS.
+     */
+    <T> T getOrLoad(String key, Class<T> clazz, CacheOptions options, Supplier<T> loader);
+
+    <T> T getOrLoad(String key, TypeReference<T> type, CacheOptions options, Supplier<T> loader);
+
+    /**
+     * Executa o 'loader' e sobrescreve a chave (gravada por getOrLoad com CacheOptions),
+     * sem nunca deixá-la ausente para os leitores. Usado em recargas agendadas.
+     */
+    <T> void reload(String key, CacheOptions options, Supplier<T> loader);
+
+    /**
+     * Invalida todas as entradas gravadas com alguma das tags (ver CacheTags),
+     * sem precisar conhecer as suas chaves.
+     */
+    void invalidateTags(Collection<String> tags);
+
+    /**
+     * Cache negativo: registra que a busca pela chave não encontrou nada,
+     * com um TTL curto e separado (app.cache.negative.ttl-seconds).
+     * Assim, buscas repetidas por IDs inexistentes não voltam ao banco.
+     * É removido por delete(key), o que deve ser feito quando o dado for criado.
+     */
+    void saveNotFound(String key);
+
+    /**
+     * @return true se uma busca recente pela chave não encontrou nada.
+     */
+    boolean isNotFound(String key);
 }
@@ -0,0 +1,140 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Cache local (L1) em memória, limitado em tamanho.
+ * Fica na frente do Redis (L2) para que as chaves quentes não paguem
+ * um round trip de rede a cada leitura.
+ *
+ * Cada item vive no máximo 'app.cache.near.ttl-seconds' (ou menos, se o TTL
+ * pedido ao salvar for menor), o que limita o tempo que uma cópia local pode
+ * ficar desatualizada caso uma mensagem de invalidação se perca.
+ */
+@Component
+public class LocalCacheStore {
+
+    private final Cache<String, LocalEntry> cache;
+    private final long maxTtlNanos;
+    // Incrementado a cada remoção; permite detectar uma invalidação concorrente com uma leitura remota
+    private final AtomicLong evictionEpoch = new AtomicLong();
+
+    public LocalCacheStore(@Value("${app.cache.near.max-size:10000}") long maxSize,
+                           @Value("${app.cache.near.ttl-seconds:30}") long ttlSeconds) {
+        this.maxTtlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new EntryExpiry())
+                .build();
+    }
+
+    /**
+     * Busca um valor no cache local.
+     * @return O valor armazenado, ou null se não existir (ou já tiver expirado).
+     */
+    public Object get(String key) {
+        LocalEntry entry = cache.getIfPresent(key);
+        return entry != null ? entry.value() : null;
+    }
+
+    /**
+     * Armazena um valor com o TTL máximo do cache local.
+     */
+    public void put(String key, Object value) {
+        if (value == null) {
+            return;
+        }
+        cache.put(key, new LocalEntry(value, maxTtlNanos));
+    }
+
+    /**
+     * Armazena um valor respeitando o TTL pedido, limitado ao TTL máximo local.
+     */
+    public void put(String key, Object value, long timeout, TimeUnit timeUnit) {
+        if (value == null) {
+            return;
+        }
+        long ttlNanos = Math.min(maxTtlNanos, timeUnit.toNanos(timeout));
+        cache.put(key, new LocalEntry(value, ttlNanos));
+    }
+
+    /**
+     * Época atual de remoções. Deve ser lida ANTES de buscar o valor no Redis
+     * que depois será gravado com {@link #putIfNotEvictedSince}.
+     */
+    public long evictionEpoch() {
+        return evictionEpoch.get();
+    }
+
+    /**
+     * Armazena um valor lido do Redis, a menos que alguma remoção tenha ocorrido
+     * desde a época informada (o valor lido pode já estar desatualizado).
+     * A verificação é feita depois do put: uma remoção que chegue entre a leitura
+     * e a gravação sempre desfaz a gravação.
+     */
+    public void putIfNotEvictedSince(String key, Object value, long epoch) {
+        putIfNotEvictedSince(key, value, maxTtlNanos, TimeUnit.NANOSECONDS, epoch);
+    }
+
+    /**
+     * Igual a {@link #putIfNotEvictedSince(String, Object, long)}, respeitando o TTL pedido.
+     */
+    public void putIfNotEvictedSince(String key, Object value, long timeout, TimeUnit timeUnit, long epoch) {
+        if (value == null || evictionEpoch.get() != epoch) {
+            return;
+        }
+        put(key, value, timeout, timeUnit);
+        if (evictionEpoch.get() != epoch) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Remove um valor do cache local.
+     */
+    public void evict(String key) {
+        evictionEpoch.incrementAndGet();
+        cache.invalidate(key);
+    }
+
+    /**
+     * Remove vários valores do cache local.
+     */
+    public void evictAll(Collection<String> keys) {
+        evictionEpoch.incrementAndGet();
+        cache.invalidateAll(keys);
+    }
+
+    private record LocalEntry(Object value, long ttlNanos) {
+    }
+
+    /**
+     * Expiração por item: cada entrada usa o TTL com que foi gravada.
+     */
+    private static final class EntryExpiry implements Expiry<String, LocalEntry> {
+
+        @Override
+        public long expireAfterCreate(String key, LocalEntry entry, long currentTime) {
+            return entry.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, LocalEntry entry, long currentTime, long currentDuration) {
+            return entry.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, LocalEntry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
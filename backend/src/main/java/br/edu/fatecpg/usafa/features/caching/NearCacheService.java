@@ -0,0 +1,431 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache em duas camadas ("near cache").
+ * L1: LocalCacheStore, em memória, sem round trip de rede.
+ * L2: CacheService, no Redis, compartilhado entre as instâncias.
+ *
+ * Leituras tentam o L1 primeiro e só vão ao Redis em caso de falta.
+ * Escritas atualizam o Redis e publicam a chave no CacheInvalidationBus,
+ * para que as outras instâncias descartem a sua cópia local.
+ *
+ * É a implementação padrão (@Primary) de ICacheService: os serviços que
+ * injetam a interface passam a usar as duas camadas sem nenhuma mudança.
+ *
+ * getOrLoad evita o "efeito manada" quando uma chave expira:
+ * - Na instância, requisições simultâneas pela mesma chave compartilham
+ *   um único carregamento (single-flight).
+ * - Entre instâncias, um lease no Redis (CacheLease) faz com que só uma
+ *   delas vá ao banco; as outras aguardam o valor aparecer no Redis.
+ *
+ * getOrLoad com CacheOptions adiciona refresh-ahead: depois do refreshAfter o
+ * valor antigo continua sendo servido enquanto o CacheRefresher o recarrega,
+ * e entradas com tags invalidadas (CacheTagRegistry) são tratadas como MISS.
+ */
+@Service
+@Primary
+@Slf4j
+public class NearCacheService implements ICacheService {
+
+    // Intervalo entre as consultas ao Redis enquanto outra instância carrega a chave
+    private static final long LEASE_POLL_MILLIS = 50;
+
+    private final LocalCacheStore localCache;
+    private final CacheService remoteCache;
+    private final CacheInvalidationBus invalidationBus;
+    private final CacheLease cacheLease;
+    private final CacheRefresher cacheRefresher;
+    private final CacheTagRegistry tagRegistry;
+    private final CacheMetrics metrics;
+    private final ObjectMapper objectMapper;
+    private final Duration leaseTime;
+    private final long loadWaitMillis;
+
+    // Carregamentos em andamento nesta instância, por chave
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public NearCacheService(LocalCacheStore localCache,
+                            CacheService remoteCache,
+                            CacheInvalidationBus invalidationBus,
+                            CacheLease cacheLease,
+                            CacheRefresher cacheRefresher,
+                            CacheTagRegistry tagRegistry,
+                            CacheMetrics metrics,
+                            ObjectMapper objectMapper,
+                            @Value("${app.cache.load.lease-ms:5000}") long leaseMillis,
+                            @Value("${app.cache.load.wait-ms:3000}") long loadWaitMillis) {
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.invalidationBus = invalidationBus;
+        this.cacheLease = cacheLease;
+        this.cacheRefresher = cacheRefresher;
+        this.tagRegistry = tagRegistry;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        this.leaseTime = Duration.ofMillis(leaseMillis);
+        this.loadWaitMillis = loadWaitMillis;
+    }
+
+    @Override
+    public void save(String key, Object value) {
+        remoteCache.save(key, value);
+        localCache.put(key, value);
+        invalidationBus.publish(key);
+    }
+
+    @Override
+    public void saveWithTtl(String key, Object value, long timeout, TimeUnit timeUnit) {
+        remoteCache.saveWithTtl(key, value, timeout, timeUnit);
+        localCache.put(key, value, timeout, timeUnit);
+        invalidationBus.publish(key);
+    }
+
+    @Override
+    public <T> T get(String key, Class<T> clazz) {
+        return get(key, objectMapper.constructType(clazz));
+    }
+
+    @Override
+    public <T> T get(String key, TypeReference<T> type) {
+        return get(key, objectMapper.getTypeFactory().constructType(type));
+    }
+
+    private <T> T get(String key, JavaType type) {
+        // 1. L1: memória local
+        Object local = localCache.get(key);
+        if (local != null) {
+            metrics.recordLocalHit(key);
+            return fromLocal(local, type);
+        }
+
+        // 2. L2: Redis (e guarda no L1 para as próximas leituras, se nada foi invalidado no meio)
+        long epoch = localCache.evictionEpoch();
+        T remote = remoteCache.get(key, type);
+        if (remote != null) {
+            localCache.putIfNotEvictedSince(key, remote, epoch);
+        }
+        return remote;
+    }
+
+    @Override
+    public void delete(String key) {
+        List<String> keys = List.of(key, CacheKeys.naoEncontrado(key));
+        remoteCache.delete(key);
+        localCache.evictAll(keys);
+        invalidationBus.publish(keys);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        if (localCache.get(key) != null) {
+            metrics.recordLocalHit(key);
+            return true;
+        }
+        return remoteCache.exists(key);
+    }
+
+    /**
+     * Chaves presentes no L1 não vão ao Redis; as demais são buscadas
+     * com um único MGET e guardadas no L1.
+     */
+    @Override
+    public <T> Map<String, T> getMany(Collection<String> keys, Class<T> clazz) {
+        JavaType type = objectMapper.constructType(clazz);
+        Map<String, T> result = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+
+        for (String key : keys) {
+            Object local = localCache.get(key);
+            if (local != null) {
+                metrics.recordLocalHit(key);
+                result.put(key, fromLocal(local, type));
+            } else {
+                missing.add(key);
+            }
+        }
+
+        long epoch = localCache.evictionEpoch();
+        Map<String, T> remote = remoteCache.getMany(missing, type);
+        remote.forEach((key, value) -> localCache.putIfNotEvictedSince(key, value, epoch));
+        result.putAll(remote);
+        return result;
+    }
+
+    @Override
+    public void saveMany(Map<String, CacheEntry> entries) {
+        remoteCache.saveMany(entries);
+        entries.forEach((key, entry) -> {
+            if (entry.ttl() != null) {
+                localCache.put(key, entry.value(), entry.ttl().toNanos(), TimeUnit.NANOSECONDS);
+            } else {
+                localCache.put(key, entry.value());
+            }
+        });
+        invalidationBus.publish(entries.keySet());
+    }
+
+    @Override
+    public void deleteMany(Collection<String> keys) {
+        remoteCache.deleteMany(keys);
+        localCache.evictAll(keys);
+        invalidationBus.publish(keys);
+    }
+
+    @Override
+    public <T> T getOrLoad(String key, Class<T> clazz, long timeout, TimeUnit timeUnit, Supplier<T> loader) {
+        return getOrLoad(key, objectMapper.constructType(clazz), timeout, timeUnit, loader);
+    }
+
+    @Override
+    public <T> T getOrLoad(String key, TypeReference<T> type, long timeout, TimeUnit timeUnit, Supplier<T> loader) {
+        return getOrLoad(key, objectMapper.getTypeFactory().constructType(type), timeout, timeUnit, loader);
+    }
+
+    private <T> T getOrLoad(String key, JavaType type, long timeout, TimeUnit timeUnit, Supplier<T> loader) {
+        return getOrLoad(key, type, timeout, timeUnit, loader, value -> true);
+    }
+
+    /**
+     * @param isValid Valores em cache que não passam no teste são tratados como MISS
+     *                (ex: entradas cujas tags foram invalidadas).
+     */
+    private <T> T getOrLoad(String key, JavaType type, long timeout, TimeUnit timeUnit,
+                            Supplier<T> loader, Predicate<? super T> isValid) {
+        try {
+            T cached = get(key, type);
+            if (cached != null && isValid.test(cached)) {
+                return cached;
+            }
+        } catch (Exception e) {
+            log.warn("Falha ao ler o cache (chave: {}). Buscando no DB. Erro: {}", key, e.getMessage());
+        }
+
+        CompletableFuture<Object> myFlight = new CompletableFuture<>();
+        CompletableFuture<Object> flight = inFlight.putIfAbsent(key, myFlight);
+
+        if (flight != null) {
+            // Outra thread já está carregando esta chave: aguarda o resultado dela
+            return awaitFlight(key, type, flight, timeout, timeUnit, loader);
+        }
+
+        try {
+            T loaded = loadWithLease(key, type, timeout, timeUnit, loader, isValid);
+            myFlight.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            myFlight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, myFlight);
+        }
+    }
+
+    @Override
+    public <T> T getOrLoad(String key, Class<T> clazz, CacheOptions options, Supplier<T> loader) {
+        return getOrLoad(key, objectMapper.constructType(clazz), options, loader);
+    }
+
+    @Override
+    public <T> T getOrLoad(String key, TypeReference<T> type, CacheOptions options, Supplier<T> loader) {
+        return getOrLoad(key, objectMapper.getTypeFactory().constructType(type), options, loader);
+    }
+
+    /**
+     * O MISS passa pelo mesmo single-flight + lease do getOrLoad comum;
+     * um HIT vencido dispara o recarregamento em background e é devolvido como está.
+     */
+    private <T> T getOrLoad(String key, JavaType type, CacheOptions options, Supplier<T> loader) {
+        JavaType envelopeType = objectMapper.getTypeFactory().constructParametricType(CacheEnvelope.class, type);
+        Supplier<CacheEnvelope<T>> envelopeLoader = () -> loadEnvelope(options, loader);
+
+        CacheEnvelope<T> envelope = getOrLoad(key, envelopeType,
+                options.getTtl().toMillis(), TimeUnit.MILLISECONDS, envelopeLoader,
+                cached -> tagRegistry.isCurrent(cached.tagVersions()));
+        if (envelope == null) {
+            return null;
+        }
+        if (envelope.isStale()) {
+            cacheRefresher.refreshAsync(key, () -> reload(key, options, loader));
+        }
+        return envelope.value();
+    }
+
+    @Override
+    public <T> void reload(String key, CacheOptions options, Supplier<T> loader) {
+        CacheEnvelope<T> envelope = metrics.timeLoad(key, () -> loadEnvelope(options, loader));
+        if (envelope != null) {
+            saveWithTtl(key, envelope, options.getTtl().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private <T> CacheEnvelope<T> loadEnvelope(CacheOptions options, Supplier<T> loader) {
+        // As gerações são lidas antes do loader (ver CacheTagRegistry.snapshot)
+        Map<String, Long> tagVersions = tagRegistry.snapshot(options.getTags());
+        T loaded = loader.get();
+        return loaded != null ? CacheEnvelope.of(loaded, options, tagVersions) : null;
+    }
+
+    @Override
+    public void invalidateTags(Collection<String> tags) {
+        tagRegistry.invalidate(tags);
+    }
+
+    /**
+     * O cache negativo é só uma otimização: falhas no Redis não chegam ao chamador.
+     */
+    @Override
+    public void saveNotFound(String key) {
+        try {
+            saveWithTtl(CacheKeys.naoEncontrado(key), Boolean.TRUE, remoteCache.getNotFoundTtlSeconds(), TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("Falha ao salvar cache negativo (chave: {}). Erro: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isNotFound(String key) {
+        try {
+            return exists(CacheKeys.naoEncontrado(key));
+        } catch (Exception e) {
+            log.warn("Falha ao ler cache negativo (chave: {}). Erro: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Carrega a chave garantindo (via lease no Redis) que só uma instância vá ao banco.
+     * Se outra instância já possui o lease, espera o valor aparecer no Redis;
+     * se ele não aparecer a tempo, carrega localmente para não travar a requisição.
+     */
+    private <T> T loadWithLease(String key, JavaType type, long timeout, TimeUnit timeUnit,
+                                Supplier<T> loader, Predicate<? super T> isValid) {
+        String leaseToken = cacheLease.tryAcquire(key, leaseTime);
+
+        if (leaseToken == null) {
+            long epoch = localCache.evictionEpoch();
+            T fromOtherNode = waitForRemote(key, type, isValid);
+            if (fromOtherNode != null) {
+                localCache.putIfNotEvictedSince(key, fromOtherNode, timeout, timeUnit, epoch);
+                return fromOtherNode;
+            }
+            log.debug("Lease da chave {} não foi liberado a tempo. Carregando localmente.", key);
+        }
+
+        try {
+            // Outra instância pode ter acabado de gravar a chave antes do lease ser adquirido
+            long epoch = localCache.evictionEpoch();
+            T cached = getRemoteQuietly(key, type, isValid);
+            if (cached != null) {
+                localCache.putIfNotEvictedSince(key, cached, timeout, timeUnit, epoch);
+                return cached;
+            }
+
+            T loaded = metrics.timeLoad(key, loader);
+            if (loaded != null) {
+                saveQuietly(key, loaded, timeout, timeUnit);
+            }
+            return loaded;
+        } finally {
+            if (leaseToken != null) {
+                cacheLease.release(key, leaseToken);
+            }
+        }
+    }
+
+    private <T> T waitForRemote(String key, JavaType type, Predicate<? super T> isValid) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(loadWaitMillis);
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(LEASE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            T value = getRemoteQuietly(key, type, isValid);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private <T> T getRemoteQuietly(String key, JavaType type, Predicate<? super T> isValid) {
+        try {
+            T value = remoteCache.get(key, type);
+            return value != null && isValid.test(value) ? value : null;
+        } catch (Exception e) {
+            log.warn("Falha ao ler o Redis (chave: {}). Erro: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Uma falha ao gravar no cache não deve descartar o valor que já foi carregado do banco.
+     */
+    private void saveQuietly(String key, Object value, long timeout, TimeUnit timeUnit) {
+        try {
+            saveWithTtl(key, value, timeout, timeUnit);
+        } catch (Exception e) {
+            log.warn("Falha ao salvar no cache (chave: {}). Erro: {}", key, e.getMessage());
+        }
+    }
+
+    private <T> T awaitFlight(String key, JavaType type, CompletableFuture<Object> flight,
+                              long timeout, TimeUnit timeUnit, Supplier<T> loader) {
+        try {
+            Object value = flight.get(loadWaitMillis + leaseTime.toMillis(), TimeUnit.MILLISECONDS);
+            return value != null ? fromLocal(value, type) : null;
+        } catch (ExecutionException | CompletionException e) {
+            // O carregamento compartilhado falhou: repassa o mesmo erro a quem esperava
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            log.warn("Carregamento da chave {} demorou demais. Carregando sem coalescência.", key);
+            T loaded = metrics.timeLoad(key, loader);
+            if (loaded != null) {
+                saveQuietly(key, loaded, timeout, timeUnit);
+            }
+            return loaded;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando o carregamento da chave " + key, e);
+        }
+    }
+
+    /**
+     * Valores em memória já estão no tipo certo (foram gravados pelo próprio
+     * serviço); a conversão só acontece se o chamador pedir outro tipo.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T fromLocal(Object value, JavaType type) {
+        return type.getRawClass().isInstance(value) ? (T) value : objectMapper.convertValue(value, type);
+    }
+}
@@ -0,0 +1,144 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JavaType;
+
+import br.edu.fatecpg.usafa.features.caching.codec.CacheCodecRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implementação não bloqueante do cache, sobre o ReactiveRedisTemplate (Lettuce).
+ *
+ * Compartilha o cache local (L1) e o barramento de invalidação com o
+ * NearCacheService, então as duas APIs enxergam os mesmos dados:
+ * - Leituras tentam o L1 e só vão ao Redis em caso de falta.
+ * - Escritas atualizam o Redis, o L1 e avisam as outras instâncias.
+ *
+ * Nenhum método bloqueia a thread chamadora; os callbacks rodam nas threads
+ * de I/O do Lettuce, então não devem fazer trabalho bloqueante.
+ */
+@Service
+@Slf4j
+public class ReactiveCacheService implements IAsyncCacheService {
+
+    private final ReactiveRedisTemplate<String, byte[]> reactiveRedisTemplate;
+    private final LocalCacheStore localCache;
+    private final CacheInvalidationBus invalidationBus;
+    private final CacheCodecRegistry codecs;
+    private final CacheMetrics metrics;
+
+    public ReactiveCacheService(ReactiveRedisTemplate<String, byte[]> reactiveRedisTemplate,
+                                LocalCacheStore localCache,
+                                CacheInvalidationBus invalidationBus,
+                                CacheCodecRegistry codecs,
+                                CacheMetrics metrics) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.localCache = localCache;
+        this.invalidationBus = invalidationBus;
+        this.codecs = codecs;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Busca um valor do cache.
+     * @return Um future com o valor convertido, ou com null se a chave não existir.
+     */
+    @Override
+    public <T> CompletableFuture<T> getAsync(String key, Class<T> clazz) {
+        Object local = localCache.get(key);
+        if (clazz.isInstance(local)) {
+            metrics.recordLocalHit(key);
+            return CompletableFuture.completedFuture(clazz.cast(local));
+        }
+
+        JavaType type = codecs.typeOf(clazz);
+        // Lida antes do GET: uma invalidação que chegue durante a leitura impede a cópia no L1
+        long epoch = localCache.evictionEpoch();
+        return reactiveRedisTemplate.opsForValue().get(key)
+                .<T>handle((payload, sink) -> {
+                    T value = decodeOrMiss(key, payload, type);
+                    if (value != null) {
+                        localCache.putIfNotEvictedSince(key, value, epoch);
+                        sink.next(value);
+                    }
+                })
+                .doOnSuccess(value -> {
+                    if (value != null) {
+                        metrics.recordHit(key);
+                    } else {
+                        metrics.recordMiss(key);
+                    }
+                })
+                .doOnError(e -> metrics.recordError(key))
+                .toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> existsAsync(String key) {
+        if (localCache.get(key) != null) {
+            metrics.recordLocalHit(key);
+            return CompletableFuture.completedFuture(true);
+        }
+        return reactiveRedisTemplate.hasKey(key)
+                .defaultIfEmpty(false)
+                .doOnSuccess(found -> {
+                    if (Boolean.TRUE.equals(found)) {
+                        metrics.recordHit(key);
+                    } else {
+                        metrics.recordMiss(key);
+                    }
+                })
+                .doOnError(e -> metrics.recordError(key))
+                .toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> saveWithTtlAsync(String key, Object value, long timeout, TimeUnit timeUnit) {
+        Duration ttl = Duration.of(timeout, timeUnit.toChronoUnit());
+        byte[] payload = codecs.encode(value);
+        metrics.recordWrite(key, payload.length);
+        long epoch = localCache.evictionEpoch();
+        return reactiveRedisTemplate.opsForValue().set(key, payload, ttl)
+                .doOnError(e -> metrics.recordError(key))
+                .toFuture()
+                .thenCompose(saved -> {
+                    // Um delete que chegou depois do SET venceu: a cópia local não é gravada
+                    localCache.putIfNotEvictedSince(key, value, timeout, timeUnit, epoch);
+                    return invalidationBus.publishAsync(key);
+                });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(String key) {
+        List<String> keys = List.of(key, CacheKeys.naoEncontrado(key));
+        return reactiveRedisTemplate.delete(key, CacheKeys.naoEncontrado(key))
+                .toFuture()
+                .thenCompose(deleted -> {
+                    localCache.evictAll(keys);
+                    return invalidationBus.publishAsync(keys);
+                });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isNotFoundAsync(String key) {
+        return existsAsync(CacheKeys.naoEncontrado(key));
+    }
+
+    private <T> T decodeOrMiss(String key, byte[] payload, JavaType type) {
+        try {
+            return codecs.decode(payload, type);
+        } catch (UncheckedIOException e) {
+            log.warn("Valor ilegível no cache (chave: {}). Tratando como MISS. Erro: {}", key, e.getMessage());
+            metrics.recordError(key);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package br.edu.fatecpg.usafa.features.caching.codec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import br.edu.fatecpg.usafa.features.caching.CacheEnvelope;
+
+/**
+ * Ponto único de (de)serialização dos valores do cache.
+ *
+ * Grava com o codec escolhido em 'app.cache.codec' e prefixa o payload com o
+ * identificador do codec. Na leitura, o prefixo decide qual codec usar; assim,
+ * trocar o formato não quebra as entradas que já estão no Redis.
+ */
+@Component
+public class CacheCodecRegistry {
+
+    private final ICacheCodec[] codecsById = new ICacheCodec[Byte.MAX_VALUE + 1];
+    private final ICacheCodec activeCodec;
+    private final TypeFactory typeFactory = TypeFactory.defaultInstance();
+
+    public CacheCodecRegistry(List<ICacheCodec> codecs, @Value("${app.cache.codec:smile}") String activeName) {
+        ICacheCodec active = null;
+        for (ICacheCodec codec : codecs) {
+            codecsById[codec.formatId()] = codec;
+            if (codec.name().equalsIgnoreCase(activeName)) {
+                active = codec;
+            }
+        }
+        if (active == null) {
+            throw new IllegalStateException("Codec de cache desconhecido: " + activeName);
+        }
+        this.activeCodec = active;
+    }
+
+    public JavaType typeOf(Class<?> clazz) {
+        return typeFactory.constructType(clazz);
+    }
+
+    public JavaType typeOf(TypeReference<?> typeReference) {
+        return typeFactory.constructType(typeReference);
+    }
+
+    /**
+     * Tipo do CacheEnvelope que embrulha um valor do tipo informado.
+     */
+    public JavaType envelopeOf(JavaType valueType) {
+        return typeFactory.constructParametricType(CacheEnvelope.class, valueType);
+    }
+
+    /**
+     * Serializa o valor com o codec ativo: [id do codec][payload].
+     */
+    public byte[] encode(Object value) {
+        try {
+            byte[] payload = activeCodec.encode(value);
+            byte[] framed = new byte[payload.length + 1];
+            framed[0] = activeCodec.formatId();
+            System.arraycopy(payload, 0, framed, 1, payload.length);
+            return framed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao serializar valor para o cache", e);
+        }
+    }
+
+    /**
+     * Desserializa um valor lido do Redis.
+     * @return O valor, ou null se não houver valor ou se ele estiver em um formato
+     *         desconhecido (ex: entradas antigas, anteriores ao prefixo de codec).
+     * @throws UncheckedIOException se o payload estiver corrompido.
+     */
+    public <T> T decode(byte[] framed, JavaType type) {
+        if (framed == null || framed.length < 2) {
+            return null;
+        }
+        byte formatId = framed[0];
+        ICacheCodec codec = formatId > 0 ? codecsById[formatId] : null;
+        if (codec == null) {
+            return null;
+        }
+        try {
+            return codec.decode(framed, 1, framed.length - 1, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao desserializar valor do cache", e);
+        }
+    }
+}
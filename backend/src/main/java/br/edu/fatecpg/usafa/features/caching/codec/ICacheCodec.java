@@ -0,0 +1,23 @@
+package br.edu.fatecpg.usafa.features.caching.codec;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.JavaType;
+
+/**
+ * Formato de serialização dos valores gravados no Redis.
+ * Cada codec tem um identificador de 1 byte, gravado na frente do payload,
+ * para que entradas gravadas com outro codec continuem legíveis.
+ */
+public interface ICacheCodec {
+
+    /** Identificador gravado no primeiro byte do valor. */
+    byte formatId();
+
+    /** Nome usado na propriedade 'app.cache.codec'. */
+    String name();
+
+    byte[] encode(Object value) throws IOException;
+
+    <T> T decode(byte[] payload, int offset, int length, JavaType type) throws IOException;
+}
@@ -0,0 +1,33 @@
+package br.edu.fatecpg.usafa.features.caching.codec;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Base dos codecs baseados no Jackson.
+ * O tipo de destino (JavaType) vem do chamador, então o payload não precisa
+ * carregar metadados de tipo e a desserialização já produz os DTOs finais,
+ * sem uma segunda passada de convertValue.
+ */
+public abstract class JacksonCacheCodec implements ICacheCodec {
+
+    private final ObjectMapper mapper;
+
+    protected JacksonCacheCodec(ObjectMapper mapper) {
+        // Campos novos/removidos em um DTO não devem invalidar o que já está no cache
+        this.mapper = mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    @Override
+    public byte[] encode(Object value) throws IOException {
+        return mapper.writeValueAsBytes(value);
+    }
+
+    @Override
+    public <T> T decode(byte[] payload, int offset, int length, JavaType type) throws IOException {
+        return mapper.readValue(payload, offset, length, type);
+    }
+}
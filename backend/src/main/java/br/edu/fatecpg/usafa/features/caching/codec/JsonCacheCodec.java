@@ -0,0 +1,28 @@
+package br.edu.fatecpg.usafa.features.caching.codec;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Codec JSON: legível no redis-cli, útil para depuração.
+ */
+@Component
+public class JsonCacheCodec extends JacksonCacheCodec {
+
+    public static final byte FORMAT_ID = 1;
+
+    public JsonCacheCodec() {
+        super(new ObjectMapper());
+    }
+
+    @Override
+    public byte formatId() {
+        return FORMAT_ID;
+    }
+
+    @Override
+    public String name() {
+        return "json";
+    }
+}
@@ -0,0 +1,34 @@
+package br.edu.fatecpg.usafa.features.caching.codec;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Codec Smile (JSON binário): payload menor e leitura mais rápida que o JSON.
+ * Os nomes de campos repetidos (listas de DTOs) são gravados uma única vez.
+ */
+@Component
+public class SmileCacheCodec extends JacksonCacheCodec {
+
+    public static final byte FORMAT_ID = 2;
+
+    public SmileCacheCodec() {
+        super(new ObjectMapper(SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build()));
+    }
+
+    @Override
+    public byte formatId() {
+        return FORMAT_ID;
+    }
+
+    @Override
+    public String name() {
+        return "smile";
+    }
+}
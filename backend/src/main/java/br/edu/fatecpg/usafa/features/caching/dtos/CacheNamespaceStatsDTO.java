@@ -0,0 +1,37 @@
+package br.edu.fatecpg.usafa.features.caching.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estatísticas acumuladas de um namespace de chaves do cache
+ * (ex: "CONSULTAS_USER_", "blocklist:"), desde o início da instância.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheNamespaceStatsDTO {
+    private String namespace;
+
+    // Leituras
+    private long localHits;     // Atendidas pelo L1 (memória)
+    private long hits;          // Atendidas pelo Redis
+    private long misses;
+    private double hitRatio;    // (localHits + hits) / total de leituras
+
+    // Carregamentos (loader dos getOrLoad)
+    private long loads;
+    private double avgLoadMillis;
+    private double maxLoadMillis;
+
+    // Tamanho dos valores no Redis
+    private long writes;
+    private double avgValueBytes;
+    private long maxValueBytes;
+
+    // Falhas de acesso ao Redis ou valores ilegíveis
+    private long errors;
+}
@@ -4,25 +4,37 @@ package br.edu.fatecpg.usafa.features.consulta.controllers;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication; // 2. Importa Authentication
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import br.edu.fatecpg.usafa.config.queues.ConsultaQueueConfig;
+import br.edu.fatecpg.usafa.features.auth.utilis.UserSnapshot;
 import br.edu.fatecpg.usafa.features.auth.utilis.UserUtils;
+import br.edu.fatecpg.usafa.features.consulta.dtos.AvailabilityDTO;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaDTO;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaFormOptionsDTO;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaMessageDTO;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaRequestDTO;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaSlot;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaSummaryDTO;
 import br.edu.fatecpg.usafa.features.consulta.interfaces.IConsultaService;
-import br.edu.fatecpg.usafa.models.User;
+import br.edu.fatecpg.usafa.features.consulta.services.AvailabilityIndex;
+import br.edu.fatecpg.usafa.features.consulta.services.ConsultaIdempotencyService;
+import br.edu.fatecpg.usafa.features.consulta.services.ConsultaIdempotencyService.ClaimedRequest;
+import br.edu.fatecpg.usafa.features.consulta.services.ConsultaPublisher;
+import br.edu.fatecpg.usafa.features.consulta.services.SlotReservationService;
+import br.edu.fatecpg.usafa.shared.exceptions.TooManyRequestsException;
 
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/consultas") // Mapeia a URL base (ex: /api/consultas)
@@ -33,7 +45,19 @@ public class ConsultaController {
     // Instancia a INTERFACE do serviço (não a implementação)
     private final IConsultaService consultaService;
     private final UserUtils userUtils;
-    private final AmqpTemplate amqpTemplate;
+    private final ConsultaPublisher consultaPublisher;
+    private final ConsultaIdempotencyService idempotencyService;
+    private final SlotReservationService slotReservationService;
+    private final AvailabilityIndex availabilityIndex;
+
+    // Contrato de idempotência do POST /consultas
+    public static final String IDEMPOTENCY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 128;
+    // Sugestão ao cliente enquanto a solicitação original aguarda o broker
+    private static final String IN_PROGRESS_RETRY_AFTER_SECONDS = "2";
+
+    private static final String ACCEPTED_MESSAGE = "Sua solicitação foi recebida e está sendo processada.";
 
     /**
      * Endpoint para buscar o histórico de consultas de um usuário.
@@ -41,24 +65,23 @@ public class ConsultaController {
      *
      * GET /consultas/user/{userId}
      */
-    @SuppressWarnings("unlikely-arg-type")
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<ConsultaDTO>> getConsultasPorUsuario(
             @PathVariable String userId,
             Authentication authentication // 4. Recebe o usuário autenticado
     ) {
         // 5. Usa o UserUtils para buscar o usuário
-        Optional<User> userOptional = userUtils.getUserFromAuthentication(authentication);
+        Optional<UserSnapshot> userOptional = userUtils.getUserFromAuthentication(authentication);
 
         if (userOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        User user = userOptional.get();
+        UserSnapshot user = userOptional.get();
 
         // 6. Implementa a lógica de segurança que estava comentada
         // Verifica se o 'userId' do path é o mesmo do usuário logado
-        if (!user.getPublicId().equals(userId)) {
+        if (!user.publicId().toString().equals(userId)) {
             // (Você pode adicionar uma checagem de Admin aqui, se necessário)
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
@@ -80,46 +103,155 @@ public class ConsultaController {
         return ResponseEntity.ok(options);
     }
 
+    /**
+     * Endpoint para buscar os horários livres de um médico ou de uma especialidade.
+     * Respondido pelo índice em memória (sem banco).
+     *
+     * GET /consultas/availability?medicoId=...&tipoId=...&dia=12/11/2025
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<List<AvailabilityDTO>> getAvailability(
+            @RequestParam(required = false) String medicoId,
+            @RequestParam(required = false) String tipoId,
+            @RequestParam(required = false) String dia
+    ) {
+        return ResponseEntity.ok(consultaService.getAvailability(medicoId, tipoId, dia));
+    }
+
     /**
      * Cria uma SOLICITAÇÃO de consulta de forma assíncrona.
      * A requisição é validada minimamente e enviada para a fila do RabbitMQ.
+     *
+     * Com o cabeçalho Idempotency-Key, repetições da mesma solicitação (retry do
+     * cliente, clique duplo) recebem a resposta 202 original sem gerar uma nova
+     * mensagem, mas só depois que a original foi confirmada pelo broker; enquanto
+     * ela está em andamento, a repetição recebe 409 com Retry-After. A mesma chave
+     * com outro conteúdo é recusada com 422.
+     *
+     * O horário do médico é reservado aqui, antes da fila: se outro paciente já
+     * o tomou, a resposta é 409 imediatamente.
+     *
+     * O 202 só é enviado depois que o RabbitMQ confirma a gravação da mensagem
+     * (publisher confirms); até lá a thread do servidor fica livre. Sem confirmação
+     * a tempo, o resultado é desconhecido: a reserva e a chave são mantidas e a
+     * resposta é 503 com a Idempotency-Key a ser usada na repetição.
      */
     @PostMapping
-    public ResponseEntity<String> criarConsulta(
+    public CompletableFuture<ResponseEntity<String>> criarConsulta(
             @Validated @RequestBody ConsultaRequestDTO requestDTO,
+            @RequestHeader(value = IDEMPOTENCY_HEADER, required = false) String idempotencyKey,
             Authentication authentication // [cite: 1]
     ) {
         // 1. Pega o usuário da autenticação [cite: 1, 3]
-        Optional<User> userOptional = userUtils.getUserFromAuthentication(authentication);
+        Optional<UserSnapshot> userOptional = userUtils.getUserFromAuthentication(authentication);
         if (userOptional.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build(); // [cite: 2]
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build()); // [cite: 2]
         }
-        User user = userOptional.get();
+        UserSnapshot user = userOptional.get();
+        String userPublicId = user.publicId().toString();
 
-        // 2. Cria o DTO da Mensagem (com o ID do usuário)
+        // O horário pedido (normalizado) é a chave da reserva
+        ConsultaSlot slot;
+        try {
+            slot = ConsultaSlot.of(requestDTO);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                                 .body("Médico, dia ou horário inválido. Use o dia em DD/MM/YYYY (ou YYYY-MM-DD) e o horário em HH:MM."));
+        }
+
+        // 2. Idempotência: sem o cabeçalho, a chamada recebe uma chave própria
+        // (o consumidor continua descartando as reentregas do RabbitMQ)
+        boolean clientKey = idempotencyKey != null && !idempotencyKey.isBlank();
+        if (clientKey && idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                                 .body("Idempotency-Key deve ter no máximo " + MAX_IDEMPOTENCY_KEY_LENGTH + " caracteres."));
+        }
+        String requestKey = clientKey ? idempotencyKey.trim() : UUID.randomUUID().toString();
+        String scopedKey = idempotencyService.scopedKey(userPublicId, requestKey);
+
+        String fingerprint = clientKey ? idempotencyService.fingerprint(requestDTO) : null;
+        if (clientKey) {
+            // Uma única ida ao Redis: reserva a chave ou devolve quem a reservou
+            Optional<ClaimedRequest> previous = idempotencyService.claimRequest(scopedKey, fingerprint);
+            if (previous.isPresent()) {
+                if (!previous.get().fingerprint().equals(fingerprint)) {
+                    return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                                         .body("Esta Idempotency-Key já foi usada com outra solicitação."));
+                }
+                if (!previous.get().accepted()) {
+                    // A original ainda aguarda o broker: ela pode falhar e liberar a chave
+                    return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT)
+                                         .header(HttpHeaders.RETRY_AFTER, IN_PROGRESS_RETRY_AFTER_SECONDS)
+                                         .body("Esta solicitação ainda está sendo enviada. Tente novamente em instantes."));
+                }
+                log.info("Solicitação de consulta repetida (Idempotency-Key) do usuário {}. Resposta original devolvida.", userPublicId);
+                return CompletableFuture.completedFuture(ResponseEntity.accepted()
+                                     .header(REPLAYED_HEADER, "true")
+                                     .body(ACCEPTED_MESSAGE));
+            }
+        }
+
+        // 3. Reserva o horário (uma operação atômica no Redis)
+        if (!slotReservationService.reserve(slot, scopedKey)) {
+            if (clientKey) {
+                idempotencyService.releaseRequest(scopedKey);
+            }
+            log.info("Horário {} já reservado. Solicitação do usuário {} recusada.", slot.key(), userPublicId);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT)
+                                 .body("Este horário não está mais disponível. Escolha outro."));
+        }
+        availabilityIndex.occupy(slot);
+
+        // 4. Cria o DTO da Mensagem (com o ID do usuário e a chave de idempotência)
         ConsultaMessageDTO message = new ConsultaMessageDTO(
                 requestDTO,
-                user.getPublicId().toString()
+                userPublicId,
+                scopedKey
         );
 
-        // 3. Publica a mensagem na fila do RabbitMQ
-        try {
-            amqpTemplate.convertAndSend(
-                    ConsultaQueueConfig.EXCHANGE_NAME,
-                    ConsultaQueueConfig.CONSULTA_ROUTING_KEY,
-                    message // O template converte isso para JSON
-            );
-            log.info("Solicitação de consulta enviada para a fila pelo usuário: {}", user.getPublicId());
-
-            // 4. Retorna 202 Accepted (Aceito) IMEDIATAMENTE.
-            // O front-end não recebe mais o ConsultaSummaryDTO 
-            return ResponseEntity.accepted()
-                                 .body("Sua solicitação foi recebida e está sendo processada.");
-
-        } catch (Exception e) {
-            log.error("Falha ao publicar mensagem no RabbitMQ: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                                 .body("Não foi possível processar sua solicitação no momento.");
-        }
+        // 5. Publica a mensagem na fila do RabbitMQ (em lote, com confirmação do broker)
+        return consultaPublisher.publish(message)
+                .thenApply(confirmed -> {
+                    log.info("Solicitação de consulta enviada para a fila pelo usuário: {}", userPublicId);
+                    if (clientKey) {
+                        idempotencyService.acceptRequest(scopedKey, fingerprint);
+                    }
+
+                    // 6. Retorna 202 Accepted (Aceito) assim que o broker confirmar.
+                    // O front-end não recebe mais o ConsultaSummaryDTO
+                    return ResponseEntity.accepted()
+                                         .body(ACCEPTED_MESSAGE);
+                })
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    if (cause instanceof TimeoutException) {
+                        // A mensagem pode ter chegado ao broker: nada é desfeito. A repetição com a
+                        // mesma chave reaproveita a reserva e o consumidor descarta a duplicata
+                        log.warn("Publicação da solicitação {} sem confirmação do RabbitMQ. Resultado desconhecido.", scopedKey);
+                        slotReservationService.holdUnconfirmed(slot, scopedKey);
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                             .header(IDEMPOTENCY_HEADER, requestKey)
+                                             .header(HttpHeaders.RETRY_AFTER, Long.toString(
+                                                     clientKey ? idempotencyService.getPendingTtl().toSeconds() : 1))
+                                             .body("Não foi possível confirmar sua solicitação. Repita com a mesma "
+                                                     + "Idempotency-Key: ela não será duplicada.");
+                    }
+                    log.error("Falha ao publicar mensagem no RabbitMQ: {}", cause.getMessage(), cause);
+                    // Sem confirmação, a mensagem é tratada como não enviada: o cliente
+                    // pode repetir com a mesma chave (o consumidor descarta a duplicata)
+                    slotReservationService.release(slot, scopedKey);
+                    availabilityIndex.vacate(slot);
+                    if (clientKey) {
+                        idempotencyService.releaseRequest(scopedKey);
+                    }
+                    if (cause instanceof TooManyRequestsException) {
+                        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                             .body(cause.getMessage());
+                    }
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                                         .body("Não foi possível processar sua solicitação no momento.");
+                });
     }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package br.edu.fatecpg.usafa.features.consulta.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Horários livres de um médico em um dia (GET /consultas/availability).
+ * Os valores de 'dia' e 'horarios' são os mesmos das opções do formulário.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityDTO {
+    private String medicoId;        // publicId do Medico
+    private String medicoNome;
+    private String dia;             // dd/MM/yyyy
+    private List<String> horarios;  // HH:mm
+}
@@ -1,7 +1,9 @@
 package br.edu.fatecpg.usafa.features.consulta.dtos;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.util.List;
 
 /**
@@ -10,6 +12,8 @@ import java.util.List;
  */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class ConsultaFormOptionsDTO {
     private List<FormSelectOptionDTO> medicos;
     private List<FormSelectOptionDTO> tipos;
@@ -19,4 +19,7 @@ public class ConsultaMessageDTO {
 
     // O ID público do usuário que está autenticado
     private String userPublicId;
+
+    // Chave de idempotência (no escopo do usuário), usada pelo consumidor para descartar reentregas
+    private String idempotencyKey;
 }
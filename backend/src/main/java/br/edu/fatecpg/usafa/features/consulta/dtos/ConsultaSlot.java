@@ -0,0 +1,51 @@
+package br.edu.fatecpg.usafa.features.consulta.dtos;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Horário de um médico (médico + dia + horário), a unidade que só pode ter uma consulta.
+ * Os campos são normalizados para que "14:30" e "14:30:00" sejam o mesmo horário.
+ */
+public record ConsultaSlot(String medicoPublicId, LocalDate dia, LocalTime horario) {
+
+    // Formato dos dias nas opções do formulário (IConsultaMapper.DATE_FORMATTER)
+    private static final DateTimeFormatter FORM_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    /**
+     * Horário pedido no formulário (dia em 12/11/2025 ou 2025-11-12, horário em 14:30).
+     * O ID do médico é usado como veio (Medico.publicId é um texto livre, não um UUID).
+     * @throws IllegalArgumentException se o ID do médico estiver vazio.
+     * @throws DateTimeParseException se o dia ou o horário forem inválidos.
+     */
+    public static ConsultaSlot of(ConsultaRequestDTO request) {
+        String medicoId = request.getMedicoId();
+        if (medicoId == null || medicoId.isBlank()) {
+            throw new IllegalArgumentException("O ID do médico é obrigatório.");
+        }
+        return new ConsultaSlot(
+                medicoId,
+                parseDia(request.getDia()),
+                LocalTime.parse(request.getHorario()));
+    }
+
+    /**
+     * Aceita o formato das opções do formulário (dd/MM/yyyy) e o ISO (yyyy-MM-dd).
+     */
+    public static LocalDate parseDia(String dia) {
+        try {
+            return LocalDate.parse(dia, FORM_DATE);
+        } catch (DateTimeParseException e) {
+            return LocalDate.parse(dia);
+        }
+    }
+
+    /**
+     * Identificador estável do horário (ex: chave no Redis).
+     */
+    public String key() {
+        return medicoPublicId + ":" + dia + ":" + horario;
+    }
+}
@@ -0,0 +1,20 @@
+package br.edu.fatecpg.usafa.features.consulta.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Mensagem parada no parking lot da fila de consultas, como exibida ao admin.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParkedConsultaDTO {
+    private String reason;      // Motivo da última falha
+    private int retries;        // Retentativas feitas antes de ir para o parking lot
+    private String parkedAt;    // Quando entrou no parking lot (ISO-8601)
+    private String payload;     // Corpo da mensagem (JSON do ConsultaMessageDTO)
+}
@@ -5,11 +5,12 @@ package br.edu.fatecpg.usafa.features.consulta.interfaces;
 
 import java.util.List;
 
+import br.edu.fatecpg.usafa.features.consulta.dtos.AvailabilityDTO;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaDTO;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaFormOptionsDTO;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaRequestDTO;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaSummaryDTO;
-import br.edu.fatecpg.usafa.models.User;
+import br.edu.fatecpg.usafa.features.auth.utilis.UserSnapshot;
 
 /**
  * Interface para o serviço de Consultas.
@@ -24,7 +25,7 @@ public interface IConsultaService {
      * @param user O usuário autenticado.
      * @return Uma lista de ConsultaDTO.
      */
-    List<ConsultaDTO> findConsultasByUser(User user);
+    List<ConsultaDTO> findConsultasByUser(UserSnapshot user);
 
     /**
      * Busca as opções para preencher os selects do formulário.
@@ -34,6 +35,17 @@ public interface IConsultaService {
      */
     ConsultaFormOptionsDTO getFormOptions();
 
+    /**
+     * Busca os horários livres, por médico e dia.
+     * (Filtra os horários do formulário depois que o médico ou a especialidade é escolhido)
+     *
+     * @param medicoId publicId do médico (opcional).
+     * @param tipoId publicId da especialidade (opcional).
+     * @param dia Um único dia, em dd/MM/yyyy ou ISO (opcional; sem ele, os dias do formulário).
+     * @return Um AvailabilityDTO por médico e dia com pelo menos um horário livre.
+     */
+    List<AvailabilityDTO> getAvailability(String medicoId, String tipoId, String dia);
+
     /**
      * Cria uma nova solicitação de consulta.
      * (Consumido por 'requestConsulta' do front-end)
@@ -1,10 +1,12 @@
 package br.edu.fatecpg.usafa.features.consulta.repositories;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import br.edu.fatecpg.usafa.document.ConsultaDocument;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -15,4 +17,10 @@ import java.util.List;
 public interface ConsultaDocumentRepository extends MongoRepository<ConsultaDocument, String> {
 
     List<ConsultaDocument> findByUserPublicId(String userPublicId);
+
+    /**
+     * Horários ocupados pelas solicitações a partir de um dia (só médico, dia e horário).
+     */
+    @Query(value = "{ 'dia': { $gte: ?0 } }", fields = "{ 'medicoPublicId': 1, 'dia': 1, 'horario': 1 }")
+    List<ConsultaDocument> findSlotsFrom(LocalDate dia);
 }
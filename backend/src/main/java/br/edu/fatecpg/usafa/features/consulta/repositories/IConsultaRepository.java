@@ -1,5 +1,6 @@
 package br.edu.fatecpg.usafa.features.consulta.repositories;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,6 +12,7 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface IConsultaRepository extends JpaRepository<Consulta, Long> {
@@ -19,7 +21,7 @@ public interface IConsultaRepository extends JpaRepository<Consulta, Long> {
      * Busca todas as consultas de um usuário específico,
      * ordenadas pela data (dia) da consulta em ordem decrescente.
      */
-    List<Consulta> findByUserOrderByDiaDesc(User user);
+    List<Consulta> findByUserPublicIdOrderByDiaDesc(UUID userPublicId);
 
     // Adicione estes métodos ao seu IConsultaRepository.java
     Optional<Consulta> findByPublicId(String publicId);
@@ -31,4 +33,10 @@ public interface IConsultaRepository extends JpaRepository<Consulta, Long> {
     boolean existsByPublicId(String publicId);
 
     boolean existsByUser(User user);
+
+    /**
+     * Consultas a partir de um dia, já com o médico (índice de disponibilidade).
+     */
+    @EntityGraph(attributePaths = "medico")
+    List<Consulta> findByDiaGreaterThanEqual(LocalDate dia);
 }
@@ -0,0 +1,371 @@
+package br.edu.fatecpg.usafa.features.consulta.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import br.edu.fatecpg.usafa.document.ConsultaDocument;
+import br.edu.fatecpg.usafa.features.Admin.repositories.IMedicoRepository;
+import br.edu.fatecpg.usafa.features.consulta.dtos.AvailabilityDTO;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaSlot;
+import br.edu.fatecpg.usafa.features.consulta.mappers.IConsultaMapper;
+import br.edu.fatecpg.usafa.features.consulta.repositories.ConsultaDocumentRepository;
+import br.edu.fatecpg.usafa.features.consulta.repositories.IConsultaRepository;
+import br.edu.fatecpg.usafa.models.Consulta;
+import br.edu.fatecpg.usafa.models.Medico;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Índice em memória dos horários ocupados: um long por médico por dia, com um
+ * bit para cada horário da grade (HORARIOS). Uma consulta de disponibilidade
+ * é só leitura de mapa e operações de bit, sem banco nem Redis.
+ *
+ * Montado a partir das consultas (Postgres) e das solicitações (MongoDB) de
+ * hoje em diante, e atualizado a cada reserva, gravação, remarcação ou
+ * exclusão. As atualizações são enviadas às outras instâncias via Pub/Sub; a
+ * reconstrução diária corrige o que uma mensagem perdida deixar para trás.
+ * As atualizações que chegam durante uma reconstrução são guardadas e
+ * reaplicadas no índice novo antes da troca (a leitura dos bancos pode não
+ * ter visto elas).
+ *
+ * O índice só orienta o formulário: quem garante o horário é o
+ * SlotReservationService (e a restrição única do banco).
+ */
+@Service
+@Slf4j
+public class AvailabilityIndex implements MessageListener {
+
+    public static final String CHANNEL = "consulta:availability";
+
+    // Grade de horários oferecida no formulário (no máximo 64: um bit por horário)
+    public static final List<LocalTime> HORARIOS = List.of(
+            LocalTime.of(9, 0), LocalTime.of(10, 0), LocalTime.of(11, 0),
+            LocalTime.of(13, 0), LocalTime.of(14, 0), LocalTime.of(15, 0), LocalTime.of(16, 0));
+    // Quantos dias úteis o formulário oferece
+    public static final int DIAS_OFERECIDOS = 7;
+
+    private static final long ALL_SLOTS = (1L << HORARIOS.size()) - 1;
+    private static final String[] HORARIO_LABELS = HORARIOS.stream()
+            .map(h -> h.format(IConsultaMapper.TIME_FORMATTER))
+            .toArray(String[]::new);
+    private static final char SEPARATOR = '|';
+    private static final String OCCUPY = "+";
+    private static final String VACATE = "-";
+    private static final String DOCTORS = "D";
+
+    private final IConsultaRepository consultaRepository;
+    private final ConsultaDocumentRepository consultaDocumentRepository;
+    private final IMedicoRepository medicoRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // medicoPublicId -> dia -> bits dos horários ocupados (dias sem ocupação não têm entrada)
+    private volatile Map<String, Map<LocalDate, Long>> occupied = new ConcurrentHashMap<>();
+    // Médicos em ordem de nome, e por especialidade (tipoConsulta publicId)
+    private volatile List<DoctorEntry> doctors = List.of();
+    private volatile Map<String, List<DoctorEntry>> doctorsByTipo = Map.of();
+    private volatile Map<String, DoctorEntry> doctorsById = Map.of();
+    private volatile boolean built;
+
+    // Atualizações recebidas durante uma reconstrução (null fora dela); protegido por updatesLock
+    private final Object updatesLock = new Object();
+    private List<SlotUpdate> replay;
+
+    public AvailabilityIndex(IConsultaRepository consultaRepository,
+                             ConsultaDocumentRepository consultaDocumentRepository,
+                             IMedicoRepository medicoRepository,
+                             StringRedisTemplate stringRedisTemplate,
+                             RedisMessageListenerContainer listenerContainer) {
+        this.consultaRepository = consultaRepository;
+        this.consultaDocumentRepository = consultaDocumentRepository;
+        this.medicoRepository = medicoRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Horários livres por médico e dia.
+     * @param medicoId só este médico (opcional).
+     * @param tipoId só os médicos desta especialidade (opcional).
+     * @param dia só este dia; sem ele, os dias oferecidos no formulário.
+     */
+    public List<AvailabilityDTO> findFree(String medicoId, String tipoId, LocalDate dia) {
+        ensureBuilt();
+
+        List<DoctorEntry> candidates;
+        if (medicoId != null) {
+            DoctorEntry doctor = doctorsById.get(medicoId);
+            candidates = doctor == null || (tipoId != null && !tipoId.equals(doctor.tipoId()))
+                    ? List.of()
+                    : List.of(doctor);
+        } else if (tipoId != null) {
+            candidates = doctorsByTipo.getOrDefault(tipoId, List.of());
+        } else {
+            candidates = doctors;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<LocalDate> dias = dia != null ? List.of(dia) : proximosDiasUteis(now.toLocalDate(), DIAS_OFERECIDOS);
+        Map<String, Map<LocalDate, Long>> snapshot = occupied;
+
+        List<AvailabilityDTO> result = new ArrayList<>(candidates.size() * dias.size());
+        for (DoctorEntry doctor : candidates) {
+            Map<LocalDate, Long> days = snapshot.getOrDefault(doctor.publicId(), Map.of());
+            for (LocalDate d : dias) {
+                long free = ~days.getOrDefault(d, 0L) & ALL_SLOTS & notPast(d, now);
+                if (free != 0) {
+                    result.add(AvailabilityDTO.builder()
+                            .medicoId(doctor.publicId())
+                            .medicoNome(doctor.nome())
+                            .dia(d.format(IConsultaMapper.DATE_FORMATTER))
+                            .horarios(labels(free))
+                            .build());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Marca o horário como ocupado (nesta instância e nas outras).
+     */
+    public void occupy(ConsultaSlot slot) {
+        apply(OCCUPY, slot);
+        broadcast(OCCUPY + SEPARATOR + encode(slot));
+    }
+
+    /**
+     * Marca o horário como livre (nesta instância e nas outras).
+     */
+    public void vacate(ConsultaSlot slot) {
+        apply(VACATE, slot);
+        broadcast(VACATE + SEPARATOR + encode(slot));
+    }
+
+    /**
+     * Recarrega a lista de médicos (chame quando um médico for criado, alterado ou removido).
+     * Dentro de uma transação, só depois do commit (as outras instâncias leem do banco).
+     */
+    public void doctorsChanged() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reloadDoctors();
+                }
+            });
+        } else {
+            reloadDoctors();
+        }
+    }
+
+    /**
+     * Remonta o índice inteiro a partir dos bancos. Também descarta os dias que já passaram.
+     */
+    @Scheduled(cron = "${app.consulta.availability.rebuild-cron:0 5 0 * * *}")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        Map<String, Map<LocalDate, Long>> index = new ConcurrentHashMap<>();
+
+        // A partir daqui, as atualizações também são guardadas para o índice novo
+        synchronized (updatesLock) {
+            replay = new ArrayList<>();
+        }
+        try {
+            for (Consulta consulta : consultaRepository.findByDiaGreaterThanEqual(today)) {
+                set(index, consulta.getMedico().getPublicId(), consulta.getDia(), consulta.getHorario());
+            }
+            for (ConsultaDocument document : consultaDocumentRepository.findSlotsFrom(today)) {
+                set(index, document.getMedicoPublicId(), document.getDia(), document.getHorario());
+            }
+            loadDoctors();
+
+            // Reaplica em ordem (a última atualização de um horário vence) e troca o índice
+            synchronized (updatesLock) {
+                replay.forEach(update -> update.applyTo(index));
+                occupied = index;
+                log.debug("{} atualizações reaplicadas no índice de disponibilidade.", replay.size());
+            }
+        } finally {
+            synchronized (updatesLock) {
+                replay = null;
+            }
+        }
+        built = true;
+        log.info("Índice de disponibilidade montado: {} médicos em {} ms.",
+                index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Próximos 'count' dias úteis a partir de 'from' (inclusive).
+     */
+    public static List<LocalDate> proximosDiasUteis(LocalDate from, int count) {
+        return Stream.iterate(from, d -> d.plusDays(1))
+                .filter(d -> d.getDayOfWeek() != DayOfWeek.SATURDAY && d.getDayOfWeek() != DayOfWeek.SUNDAY)
+                .limit(count)
+                .toList();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            if (DOCTORS.equals(body)) {
+                loadDoctors();
+                return;
+            }
+            // O ID do médico é texto livre (pode conter o separador): dia e horário são lidos do fim
+            int horarioStart = body.lastIndexOf(SEPARATOR);
+            int diaStart = body.lastIndexOf(SEPARATOR, horarioStart - 1);
+            apply(body.substring(0, 1), new ConsultaSlot(body.substring(2, diaStart),
+                    LocalDate.parse(body.substring(diaStart + 1, horarioStart)),
+                    LocalTime.parse(body.substring(horarioStart + 1))));
+        } catch (Exception e) {
+            log.warn("Mensagem de disponibilidade inválida ignorada: {}", body);
+        }
+    }
+
+    // --- Métodos Auxiliares ---
+
+    private void reloadDoctors() {
+        try {
+            loadDoctors();
+        } catch (Exception e) {
+            log.warn("Falha ao recarregar os médicos do índice de disponibilidade. Erro: {}", e.getMessage());
+        }
+        broadcast(DOCTORS);
+    }
+
+    private void ensureBuilt() {
+        if (!built) {
+            synchronized (this) {
+                if (!built) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    private void apply(String operation, ConsultaSlot slot) {
+        if (!OCCUPY.equals(operation) && !VACATE.equals(operation)) {
+            return;
+        }
+        SlotUpdate update = new SlotUpdate(OCCUPY.equals(operation), slot);
+        synchronized (updatesLock) {
+            update.applyTo(occupied);
+            if (replay != null) {
+                replay.add(update);
+            }
+        }
+    }
+
+    private static void set(Map<String, Map<LocalDate, Long>> index, String medicoId, LocalDate dia, LocalTime horario) {
+        long bit = bitOf(horario);
+        // Horários fora da grade (ex: encaixe do admin) não aparecem no formulário
+        if (bit == 0 || medicoId == null || dia == null) {
+            return;
+        }
+        index.computeIfAbsent(medicoId, id -> new ConcurrentHashMap<>())
+                .merge(dia, bit, (a, b) -> a | b);
+    }
+
+    private static void clear(Map<String, Map<LocalDate, Long>> index, String medicoId, LocalDate dia, LocalTime horario) {
+        long bit = bitOf(horario);
+        Map<LocalDate, Long> days = medicoId != null ? index.get(medicoId) : null;
+        if (bit != 0 && days != null && dia != null) {
+            days.computeIfPresent(dia, (d, bits) -> (bits & ~bit) == 0 ? null : bits & ~bit);
+        }
+    }
+
+    private static long bitOf(LocalTime horario) {
+        int position = horario != null ? HORARIOS.indexOf(horario.withSecond(0).withNano(0)) : -1;
+        return position < 0 ? 0 : 1L << position;
+    }
+
+    // Hoje, os horários que já passaram não são oferecidos
+    private static long notPast(LocalDate dia, LocalDateTime now) {
+        if (!dia.equals(now.toLocalDate())) {
+            return dia.isBefore(now.toLocalDate()) ? 0 : ALL_SLOTS;
+        }
+        long mask = 0;
+        for (int i = 0; i < HORARIOS.size(); i++) {
+            if (HORARIOS.get(i).isAfter(now.toLocalTime())) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    private static List<String> labels(long free) {
+        List<String> labels = new ArrayList<>(Long.bitCount(free));
+        for (long bits = free; bits != 0; bits &= bits - 1) {
+            labels.add(HORARIO_LABELS[Long.numberOfTrailingZeros(bits)]);
+        }
+        return labels;
+    }
+
+    private void loadDoctors() {
+        List<DoctorEntry> all = medicoRepository.findAllByOrderByNomeAsc().stream()
+                .map(DoctorEntry::of)
+                .toList();
+        Map<String, List<DoctorEntry>> byTipo = new HashMap<>();
+        Map<String, DoctorEntry> byId = new HashMap<>();
+        for (DoctorEntry doctor : all) {
+            byTipo.computeIfAbsent(doctor.tipoId(), id -> new ArrayList<>()).add(doctor);
+            byId.put(doctor.publicId(), doctor);
+        }
+        doctorsById = byId;
+        doctorsByTipo = byTipo;
+        doctors = all;
+    }
+
+    private void broadcast(String message) {
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, message);
+        } catch (Exception e) {
+            // As outras instâncias se corrigem na próxima reconstrução
+            log.warn("Falha ao enviar a atualização de disponibilidade. Erro: {}", e.getMessage());
+        }
+    }
+
+    private static String encode(ConsultaSlot slot) {
+        return slot.medicoPublicId() + SEPARATOR + slot.dia() + SEPARATOR + slot.horario();
+    }
+
+    private record SlotUpdate(boolean occupy, ConsultaSlot slot) {
+
+        void applyTo(Map<String, Map<LocalDate, Long>> index) {
+            if (occupy) {
+                set(index, slot.medicoPublicId(), slot.dia(), slot.horario());
+            } else {
+                clear(index, slot.medicoPublicId(), slot.dia(), slot.horario());
+            }
+        }
+    }
+
+    private record DoctorEntry(String publicId, String nome, String tipoId) {
+
+        static DoctorEntry of(Medico medico) {
+            return new DoctorEntry(medico.getPublicId(), medico.getNome(),
+                    medico.getTipoConsulta() != null ? medico.getTipoConsulta().getPublicId() : null);
+        }
+    }
+}
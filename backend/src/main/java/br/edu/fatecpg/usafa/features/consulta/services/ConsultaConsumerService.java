@@ -1,21 +1,46 @@
 package br.edu.fatecpg.usafa.features.consulta.services;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import org.bson.types.ObjectId;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.rabbitmq.client.Channel;
+
+import tools.jackson.databind.ObjectMapper;
+
 import br.edu.fatecpg.usafa.config.queues.ConsultaQueueConfig;
 import br.edu.fatecpg.usafa.document.ConsultaDocument;
 import br.edu.fatecpg.usafa.features.Admin.repositories.IMedicoRepository;
 import br.edu.fatecpg.usafa.features.Admin.repositories.ITipoConsultaRepository;
 import br.edu.fatecpg.usafa.features.auth.repositories.IUserRepository;
+import br.edu.fatecpg.usafa.features.caching.CacheTags;
 import br.edu.fatecpg.usafa.features.caching.ICacheService;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaMessageDTO;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaRequestDTO;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaSlot;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaSummaryDTO;
 import br.edu.fatecpg.usafa.features.consulta.notifications.NotificationService;
-import br.edu.fatecpg.usafa.features.consulta.repositories.ConsultaDocumentRepository;
 import br.edu.fatecpg.usafa.models.Medico;
 import br.edu.fatecpg.usafa.models.TipoConsulta;
 import br.edu.fatecpg.usafa.models.User;
@@ -27,14 +52,36 @@ import lombok.extern.slf4j.Slf4j;
  * Serviço Consumidor do RabbitMQ.
  * Escuta a fila de solicitações de consulta, valida os dados
  * (cruzando com o banco SQL) e salva no MongoDB.
+ *
+ * As mensagens são consumidas em lotes (ver ConsultaQueueConfig): usuários,
+ * médicos e tipos do lote são buscados com uma consulta IN por entidade, os
+ * documentos são gravados com um único insert e os caches são invalidados em
+ * um único pipeline. O ACK continua sendo por mensagem: uma mensagem inválida
+ * é rejeitada sozinha e não derruba o restante do lote.
+ *
+ * Mensagens cuja chave de idempotência já foi processada (reentregas do
+ * RabbitMQ, cliques duplos) são confirmadas e descartadas sem gerar um novo
+ * documento nem uma nova notificação. A chave só é marcada como processada
+ * depois do insert; se o consumidor cair antes disso, a reentrega esbarra no
+ * índice único da chave no MongoDB e também é descartada (nunca perdida).
+ *
+ * Nenhuma falha é só registrada em log (ver ConsultaRetryService):
+ * - Falha temporária (Postgres, MongoDB): nova tentativa com backoff, em uma
+ *   fila de espera, sem prender o consumidor.
+ * - Regra de negócio ou mensagem inválida: parking lot, para análise do admin.
+ *
+ * O horário foi reservado pela API (SlotReservationService); aqui a garantia
+ * final é o índice único do MongoDB. O insert não é ordenado, então um horário
+ * duplicado vai para o parking lot sozinho e o restante do lote é gravado.
+ * Uma solicitação recusada libera a reserva do horário.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ConsultaConsumerService {
 
-    // Repositório Mongo
-    private final ConsultaDocumentRepository mongoRepository;
+    // MongoDB (insert em lote não ordenado)
+    private final MongoTemplate mongoTemplate;
 
     // Repositórios SQL (para validação)
     private final IUserRepository userRepository;
@@ -47,75 +94,367 @@ public class ConsultaConsumerService {
     // Serviço de notifacação 
     private final NotificationService notificationService; 
 
+    // Converte o corpo de cada mensagem (JSON)
+    private final ObjectMapper objectMapper;
+
+    // Descarta as mensagens já processadas
+    private final ConsultaIdempotencyService idempotencyService;
+
+    // Retentativas com backoff e parking lot
+    private final ConsultaRetryService retryService;
+
+    // Libera o horário das solicitações recusadas e mantém o índice de disponibilidade
+    private final SlotReservationService slotReservationService;
+    private final AvailabilityIndex availabilityIndex;
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    /**
+     * Escuta a fila de solicitações de consulta, um lote por vez.
+     */
+    @RabbitListener(queues = ConsultaQueueConfig.CONSULTA_QUEUE_NAME,
+            containerFactory = ConsultaQueueConfig.CONSULTA_BATCH_FACTORY)
+    public void handleConsultaBatch(List<Message> messages, Channel channel) {
+        log.info("Lote de {} mensagens recebido da fila de consultas.", messages.size());
+
+        // 1. Converter cada mensagem (JSON e IDs inválidos vão para o parking lot)
+        List<PendingConsulta> pending = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            try {
+                pending.add(PendingConsulta.of(message,
+                        objectMapper.readValue(message.getBody(), ConsultaMessageDTO.class)));
+            } catch (Exception e) {
+                park(channel, message, "Mensagem inválida: " + e.getMessage());
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // 2. Descartar as mensagens já processadas (uma ida ao Redis para o lote todo)
+        pending = dropProcessed(pending, channel);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // 3. Buscar os dados do banco SQL (uma consulta IN por entidade)
+        Map<UUID, User> users;
+        Map<String, Medico> medicos;
+        Map<String, TipoConsulta> tipos;
+        try {
+            users = userRepository.findByPublicIdIn(collect(pending, PendingConsulta::userId)).stream()
+                    .collect(Collectors.toMap(User::getPublicId, Function.identity()));
+            medicos = medicoRepository.findByPublicIdIn(collect(pending, PendingConsulta::medicoId)).stream()
+                    .collect(Collectors.toMap(Medico::getPublicId, Function.identity()));
+            tipos = tipoConsultaRepository.findByPublicIdIn(collect(pending, PendingConsulta::tipoId)).stream()
+                    .collect(Collectors.toMap(TipoConsulta::getPublicId, Function.identity()));
+        } catch (Exception e) {
+            // Falha de infraestrutura: o lote inteiro é tentado de novo mais tarde
+            log.error("Erro ao buscar os dados do lote de consultas. As mensagens serão tentadas de novo.", e);
+            retryLater(channel, pending, "Erro no banco SQL: " + e.getMessage());
+            return;
+        }
+
+        // 4. Validar e mapear para o Documento Mongo, mensagem a mensagem
+        List<PendingConsulta> accepted = new ArrayList<>(pending.size());
+        List<ConsultaDocument> documents = new ArrayList<>(pending.size());
+        for (PendingConsulta p : pending) {
+            try {
+                documents.add(toDocument(p, users, medicos, tipos));
+                accepted.add(p);
+            } catch (BusinessRuleException e) {
+                log.warn("Falha na regra de negócio ao processar consulta da fila: {}. Mensagem: {}",
+                        p.message(), e.getMessage());
+                // Repetir não resolve: a mensagem vai para o parking lot
+                reject(channel, p, "Regra de negócio: " + e.getMessage());
+            } catch (Exception e) {
+                // Ex: data em formato inválido (o resultado seria o mesmo em uma nova tentativa)
+                log.error("Erro inesperado ao processar consulta da fila. Mensagem: {}", p.message(), e);
+                reject(channel, p, "Erro ao processar: " + e.getMessage());
+            }
+        }
+        if (documents.isEmpty()) {
+            return;
+        }
+
+        // 5. Salvar todos os documentos no MongoDB de uma vez (insertMany não ordenado)
+        Map<Integer, Integer> failures;
+        try {
+            failures = insertAll(documents);
+        } catch (Exception e) {
+            log.error("Erro ao salvar o lote de consultas no MongoDB. As mensagens serão tentadas de novo.", e);
+            retryLater(channel, accepted, "Erro no MongoDB: " + e.getMessage());
+            return;
+        }
+
+        // Chave duplicada: a própria solicitação já gravada (reentrega) ou o horário tomado por outra
+        Set<String> alreadySaved;
+        try {
+            alreadySaved = savedKeys(duplicateKeys(accepted, failures));
+        } catch (Exception e) {
+            log.error("Erro ao verificar as solicitações já gravadas no MongoDB. As duplicatas serão tentadas de novo.", e);
+            alreadySaved = null;
+        }
+
+        // Separa as gravadas, as reentregas, as recusadas (horário já tomado) e as que falharam
+        List<ConsultaDocument> savedDocs = new ArrayList<>(documents.size());
+        List<PendingConsulta> saved = new ArrayList<>(accepted.size());
+        List<PendingConsulta> redelivered = new ArrayList<>();
+        List<PendingConsulta> failed = new ArrayList<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            PendingConsulta p = accepted.get(i);
+            Integer code = failures.get(i);
+            if (code == null) {
+                saved.add(p);
+                savedDocs.add(documents.get(i));
+            } else if (code == DUPLICATE_KEY && alreadySaved == null) {
+                failed.add(p);
+            } else if (code == DUPLICATE_KEY && p.idempotencyKey() != null
+                    && alreadySaved.contains(p.idempotencyKey())) {
+                log.info("Solicitação de consulta já gravada descartada (chave {}).", p.idempotencyKey());
+                ack(channel, p.deliveryTag());
+                redelivered.add(p);
+            } else if (code == DUPLICATE_KEY) {
+                log.warn("Horário já reservado para a solicitação {}. Mensagem: {}", p.idempotencyKey(), p.message());
+                // O horário continua ocupado (pela outra solicitação): só a reserva desta é desfeita
+                park(channel, p.raw(), "Regra de negócio: horário já reservado por outra consulta.");
+                slotOf(p).ifPresent(slot -> slotReservationService.release(slot, p.idempotencyKey()));
+            } else {
+                failed.add(p);
+            }
+        }
+        // Só agora as chaves contam como processadas (o documento já está no MongoDB)
+        idempotencyService.markProcessed(keysOf(Stream.concat(saved.stream(), redelivered.stream()).toList()));
+        if (!failed.isEmpty()) {
+            retryLater(channel, failed, "Erro no MongoDB ao gravar a solicitação.");
+        }
+        log.info("{} solicitações de consulta salvas no MongoDB.", savedDocs.size());
+        savedDocs.forEach(doc -> availabilityIndex.occupy(
+                new ConsultaSlot(doc.getMedicoPublicId(), doc.getDia(), doc.getHorario())));
+        accepted = saved;
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        // 6. Invalidar o cache de todos os usuários do lote (um único pipeline no Redis)
+        try {
+            cacheService.invalidateTags(accepted.stream()
+                    .map(p -> CacheTags.user(p.userId()))
+                    .toList());
+        } catch (Exception e) {
+            // As consultas já foram salvas; o cache expira sozinho
+            log.error("Falha ao invalidar o cache dos usuários do lote. Erro: {}", e.getMessage());
+        }
+
+        // 7. Notificar via WebSocket e confirmar cada mensagem
+        for (int i = 0; i < accepted.size(); i++) {
+            PendingConsulta p = accepted.get(i);
+            try {
+                notificationService.sendConsultaConfirmation(
+                        p.message().getUserPublicId(),
+                        createSummaryFromDocument(savedDocs.get(i)));
+            } catch (Exception e) {
+                log.error("Falha ao notificar o usuário {} sobre a consulta salva. Erro: {}",
+                        p.message().getUserPublicId(), e.getMessage());
+            }
+            ack(channel, p.deliveryTag());
+        }
+    }
+
+    /**
+     * Confirma (sem processar) as mensagens cujas chaves já foram processadas.
+     * Com o Redis fora, o lote segue e o índice único do MongoDB barra as duplicatas.
+     */
+    private List<PendingConsulta> dropProcessed(List<PendingConsulta> pending, Channel channel) {
+        List<String> keys = keysOf(pending);
+        if (keys.isEmpty()) {
+            return pending;
+        }
+
+        List<Boolean> processed;
+        try {
+            processed = idempotencyService.findProcessed(keys);
+        } catch (Exception e) {
+            log.warn("Falha ao verificar as chaves de idempotência do lote. O MongoDB barra as duplicatas. Erro: {}",
+                    e.getMessage());
+            return pending;
+        }
+
+        List<PendingConsulta> fresh = new ArrayList<>(pending.size());
+        int next = 0;
+        for (PendingConsulta p : pending) {
+            // Mensagens sem chave (publicadas antes do contrato de idempotência) sempre seguem
+            if (p.idempotencyKey() == null || !processed.get(next++)) {
+                fresh.add(p);
+            } else {
+                log.info("Solicitação de consulta já processada descartada (chave {}).", p.idempotencyKey());
+                ack(channel, p.deliveryTag());
+            }
+        }
+        return fresh;
+    }
+
     /**
-     * Escuta a fila de solicitações de consulta.
+     * Agenda uma nova tentativa para cada mensagem (as chaves delas não foram
+     * marcadas como processadas, então a próxima entrega é processada normalmente).
      */
-    @RabbitListener(queues = ConsultaQueueConfig.CONSULTA_QUEUE_NAME)
-    public void handleConsultaRequest(ConsultaMessageDTO message) {
-        log.info("Mensagem recebida da fila para o usuário: {}", message.getUserPublicId());
-        ConsultaRequestDTO request = message.getRequestData();
+    private void retryLater(Channel channel, List<PendingConsulta> pending, String reason) {
+        for (PendingConsulta p : pending) {
+            try {
+                retryService.retry(p.raw(), reason);
+                ack(channel, p.deliveryTag());
+            } catch (Exception e) {
+                // Sem como reagendar (RabbitMQ com problema): devolve para a fila
+                log.error("Falha ao reagendar a solicitação de consulta. Erro: {}", e.getMessage());
+                reject(channel, p.deliveryTag(), true);
+            }
+        }
+    }
 
+    /**
+     * Grava os documentos em um único insertMany não ordenado.
+     * @return o código de erro de cada documento não gravado, pela posição na lista.
+     */
+    private Map<Integer, Integer> insertAll(List<ConsultaDocument> documents) {
+        // IDs gerados aqui: o bulk não os devolve aos objetos, e o protocolo sai deles
+        documents.forEach(doc -> doc.setId(new ObjectId().toHexString()));
         try {
-            // 1. Validar e Buscar dados do banco SQL
-            User user = findUserOrThrow(message.getUserPublicId());
-            Medico medico = findMedicoOrThrow(UUID.fromString(request.getMedicoId()));
-            TipoConsulta tipo = findTipoConsultaOrThrow(UUID.fromString(request.getTipoId()));
-
-            // 2. Executar Regras de Negócio (ex: lógica do 'consultaService' )
-            if (!medico.getTipoConsulta().getId().equals(tipo.getId())) {
-                throw new BusinessRuleException("O médico selecionado não pertence a esta especialidade.");
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ConsultaDocument.class)
+                    .insert(documents)
+                    .execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            Map<Integer, Integer> failures = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(error.getIndex(), error.getCode());
             }
-            // (Adicione outras validações, ex: horário vago, etc.)
-
-            // 3. Mapear para o Documento Mongo
-            ConsultaDocument consultaDoc = new ConsultaDocument(request, user, medico, tipo);
-
-            // 4. Salvar no MongoDB
-            ConsultaDocument savedDoc = mongoRepository.save(consultaDoc);
-            log.info("Solicitação de consulta salva no MongoDB com ID: {}", savedDoc.getId());
-
-            // 5. Invalidar Caches (se necessário)
-            // (Ex: se o usuário tem um cache das suas consultas pendentes)
-            cacheService.delete(getConsultasCacheKey(user.getPublicId().toString()));
-            
-            // 6. !! ENVIAR NOTIFICAÇÃO VIA WEBSOCKET !!
-            // (Crie um método para mapear o 'savedDoc' para o 'ConsultaSummaryDTO')
-            ConsultaSummaryDTO summary = createSummaryFromDocument(savedDoc);
-            
-            notificationService.sendConsultaConfirmation(
-                message.getUserPublicId(), 
-                summary
-            );
-        } catch (BusinessRuleException e) {
-            log.warn("Falha na regra de negócio ao processar consulta da fila: {}. Mensagem: {}",
-                    message, e.getMessage());
-            // A mensagem será rejeitada e (se configurado) irá para uma Dead Letter Queue
+            return failures;
+        }
+    }
+
+    /**
+     * Chaves das solicitações que o MongoDB recusou por chave duplicada.
+     */
+    private static List<String> duplicateKeys(List<PendingConsulta> accepted, Map<Integer, Integer> failures) {
+        List<String> keys = new ArrayList<>();
+        failures.forEach((index, code) -> {
+            String key = accepted.get(index).idempotencyKey();
+            if (code == DUPLICATE_KEY && key != null) {
+                keys.add(key);
+            }
+        });
+        return keys;
+    }
+
+    /**
+     * Quais das chaves já têm um documento gravado (uma consulta IN, só com o campo da chave).
+     */
+    private Set<String> savedKeys(List<String> keys) {
+        if (keys.isEmpty()) {
+            return Set.of();
+        }
+        Query query = Query.query(Criteria.where("idempotencyKey").in(keys));
+        query.fields().include("idempotencyKey");
+        return mongoTemplate.find(query, ConsultaDocument.class).stream()
+                .map(ConsultaDocument::getIdempotencyKey)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Recusa a solicitação (parking lot) e libera o horário reservado por ela.
+     */
+    private void reject(Channel channel, PendingConsulta p, String reason) {
+        park(channel, p.raw(), reason);
+        slotOf(p).ifPresent(slot -> {
+            slotReservationService.release(slot, p.idempotencyKey());
+            availabilityIndex.vacate(slot);
+        });
+    }
+
+    /**
+     * Horário reservado pela solicitação na API (mensagens sem chave não reservaram nada).
+     */
+    private Optional<ConsultaSlot> slotOf(PendingConsulta p) {
+        if (p.idempotencyKey() == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(ConsultaSlot.of(p.message().getRequestData()));
         } catch (Exception e) {
-            log.error("Erro inesperado ao processar consulta da fila. Mensagem: {}", message, e);
-            // Rejeita a mensagem para possível nova tentativa
+            // Dia ou horário inválidos: não há reserva para liberar
+            log.debug("Solicitação sem horário válido; nenhuma reserva liberada. Erro: {}", e.getMessage());
+            return Optional.empty();
         }
     }
 
+    private void park(Channel channel, Message message, String reason) {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        try {
+            retryService.park(message, reason);
+            ack(channel, deliveryTag);
+        } catch (Exception e) {
+            log.error("Falha ao mover a solicitação de consulta para o parking lot. Erro: {}", e.getMessage());
+            reject(channel, deliveryTag, true);
+        }
+    }
+
+    private static List<String> keysOf(List<PendingConsulta> pending) {
+        return pending.stream()
+                .map(PendingConsulta::idempotencyKey)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     // --- Métodos Auxiliares de Validação (SQL) ---
 
-    private User findUserOrThrow(String publicId) {
-        return userRepository.findByPublicId(UUID.fromString(publicId))
-                .orElseThrow(() -> new BusinessRuleException("Usuário não encontrado: " + publicId));
+    private ConsultaDocument toDocument(PendingConsulta p,
+                                        Map<UUID, User> users,
+                                        Map<String, Medico> medicos,
+                                        Map<String, TipoConsulta> tipos) {
+        User user = users.get(p.userId());
+        if (user == null) {
+            throw new BusinessRuleException("Usuário não encontrado: " + p.userId());
+        }
+        Medico medico = medicos.get(p.medicoId());
+        if (medico == null) {
+            throw new BusinessRuleException("Médico não encontrado: " + p.medicoId());
+        }
+        TipoConsulta tipo = tipos.get(p.tipoId());
+        if (tipo == null) {
+            throw new BusinessRuleException("Tipo de consulta não encontrado: " + p.tipoId());
+        }
+
+        // Regras de Negócio (ex: lógica do 'consultaService')
+        if (!medico.getTipoConsulta().getId().equals(tipo.getId())) {
+            throw new BusinessRuleException("O médico selecionado não pertence a esta especialidade.");
+        }
+        // (Adicione outras validações, ex: horário vago, etc.)
+
+        ConsultaDocument document = new ConsultaDocument(p.message().getRequestData(), user, medico, tipo);
+        document.setIdempotencyKey(p.idempotencyKey());
+        return document;
     }
 
-    private Medico findMedicoOrThrow(UUID publicId) {
-        return medicoRepository.findByPublicId(publicId.toString())
-                .orElseThrow(() -> new BusinessRuleException("Médico não encontrado: " + publicId));
+    private static <T> Set<T> collect(List<PendingConsulta> pending, Function<PendingConsulta, T> id) {
+        return pending.stream().map(id).collect(Collectors.toSet());
     }
 
-    private TipoConsulta findTipoConsultaOrThrow(UUID publicId) {
-        return tipoConsultaRepository.findByPublicId(publicId.toString())
-                .orElseThrow(() -> new BusinessRuleException("Tipo de consulta não encontrado: " + publicId));
+    private void ack(Channel channel, long deliveryTag) {
+        try {
+            channel.basicAck(deliveryTag, false);
+        } catch (IOException e) {
+            log.error("Falha ao confirmar a mensagem {} da fila de consultas. Erro: {}", deliveryTag, e.getMessage());
+        }
     }
 
-    private String getConsultasCacheKey(String userPublicId) {
-        return "CONSULTAS_USER_" + userPublicId;
+    private void reject(Channel channel, long deliveryTag, boolean requeue) {
+        try {
+            channel.basicReject(deliveryTag, requeue);
+        } catch (IOException e) {
+            log.error("Falha ao rejeitar a mensagem {} da fila de consultas. Erro: {}", deliveryTag, e.getMessage());
+        }
     }
+
     private ConsultaSummaryDTO createSummaryFromDocument(ConsultaDocument doc) {
         // Este protocolo é gerado pelo Mongo (o ID)
         String protocolo = doc.getId().substring(doc.getId().length() - 8).toUpperCase(); 
@@ -130,4 +469,29 @@ public class ConsultaConsumerService {
                 doc.getSintomas()
         );
     }
+
+    /**
+     * Mensagem do lote já convertida, com os IDs no formato das consultas IN.
+     * Médico e tipo são usados como vieram (publicId em texto livre); só o
+     * usuário tem o ID público em UUID.
+     */
+    private record PendingConsulta(Message raw, ConsultaMessageDTO message,
+                                   UUID userId, String medicoId, String tipoId) {
+
+        static PendingConsulta of(Message raw, ConsultaMessageDTO message) {
+            ConsultaRequestDTO request = message.getRequestData();
+            return new PendingConsulta(raw, message,
+                    UUID.fromString(message.getUserPublicId()),
+                    Objects.requireNonNull(request.getMedicoId(), "medicoId"),
+                    Objects.requireNonNull(request.getTipoId(), "tipoId"));
+        }
+
+        long deliveryTag() {
+            return raw.getMessageProperties().getDeliveryTag();
+        }
+
+        String idempotencyKey() {
+            return message.getIdempotencyKey();
+        }
+    }
 }
@@ -0,0 +1,207 @@
+package br.edu.fatecpg.usafa.features.consulta.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Service;
+
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaRequestDTO;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deduplicação das solicitações de consulta pelo cabeçalho Idempotency-Key.
+ *
+ * Duas etapas, cada uma com uma única ida ao Redis:
+ * - API: a chave é reservada junto com a impressão digital da requisição, como
+ *   "em andamento" (TTL curto). Só depois da confirmação do broker ela passa a
+ *   "aceita" (TTL completo). Uma repetição recebe 409 enquanto a original está
+ *   em andamento e a mesma resposta 202 depois que ela foi aceita; se a original
+ *   falhar, a chave é liberada e a repetição é processada do zero.
+ * - Fila: o consumidor descarta as mensagens cujas chaves já foram processadas
+ *   (reentregas do RabbitMQ, ou duplicatas que passaram pela API com o Redis fora).
+ *   A chave só é marcada como processada DEPOIS que o documento foi gravado no
+ *   MongoDB: se o consumidor cair antes disso, a reentrega é processada de novo.
+ *   Entre a gravação e a marcação, quem barra a duplicata é o índice único da
+ *   chave em ConsultaDocument.
+ */
+@Service
+@Slf4j
+public class ConsultaIdempotencyService {
+
+    private static final String REQUEST_PREFIX = "consulta:idempotency:";
+    private static final String PROCESSED_PREFIX = "consulta:processed:";
+    private static final byte[] PROCESSED = "1".getBytes(StandardCharsets.UTF_8);
+
+    // Valor da chave na API: "{estado}|{impressão digital}"
+    private static final String PENDING = "P";
+    private static final String ACCEPTED = "A";
+    private static final char STATE_SEPARATOR = '|';
+
+    // Reserva a chave (em andamento) se ela estiver livre; senão devolve o valor já gravado
+    private static final RedisScript<String> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1]) "
+            + "if current then return current end "
+            + "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+            + "return false",
+            String.class);
+
+    // Em andamento -> aceita, só se a chave ainda for desta requisição
+    private static final RedisScript<Long> ACCEPT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end "
+            + "redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) "
+            + "return 1",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Duration ttl;
+    // Se a confirmação nunca chegar (ex: a instância caiu), a repetição é processada de novo depois disso
+    private final Duration pendingTtl;
+
+    public ConsultaIdempotencyService(StringRedisTemplate stringRedisTemplate,
+                                      @Value("${app.consulta.idempotency.ttl-hours:24}") long ttlHours,
+                                      @Value("${app.consulta.idempotency.pending-ttl-seconds:30}") long pendingTtlSeconds) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.pendingTtl = Duration.ofSeconds(pendingTtlSeconds);
+    }
+
+    /**
+     * Depois disso, uma chave que ficou "em andamento" pode ser usada de novo.
+     */
+    public Duration getPendingTtl() {
+        return pendingTtl;
+    }
+
+    /**
+     * Chave de idempotência no escopo do usuário (duas contas podem gerar a mesma chave).
+     */
+    public String scopedKey(String userPublicId, String idempotencyKey) {
+        return userPublicId + ":" + idempotencyKey;
+    }
+
+    /**
+     * Reserva a chave para esta requisição (em andamento).
+     * @return vazio se a chave foi reservada agora; senão, a requisição que a
+     *         reservou primeiro (compare a impressão digital com fingerprint(request)).
+     *         Com o Redis fora, a requisição segue (o consumidor ainda deduplica).
+     */
+    public Optional<ClaimedRequest> claimRequest(String scopedKey, String fingerprint) {
+        try {
+            String current = stringRedisTemplate.execute(CLAIM_SCRIPT, List.of(REQUEST_PREFIX + scopedKey),
+                    PENDING + STATE_SEPARATOR + fingerprint, Long.toString(pendingTtl.toMillis()));
+            return Optional.ofNullable(current).map(ClaimedRequest::parse);
+        } catch (Exception e) {
+            log.warn("Falha ao reservar a chave de idempotência {}. Erro: {}", scopedKey, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Marca a chave como aceita (o broker confirmou a mensagem): as repetições
+     * passam a receber o 202 original. Uma falha aqui só é registrada: a chave
+     * expira como "em andamento" e a repetição é publicada de novo (o consumidor
+     * descarta a duplicata).
+     */
+    public void acceptRequest(String scopedKey, String fingerprint) {
+        try {
+            stringRedisTemplate.execute(ACCEPT_SCRIPT, List.of(REQUEST_PREFIX + scopedKey),
+                    PENDING + STATE_SEPARATOR + fingerprint, ACCEPTED + STATE_SEPARATOR + fingerprint,
+                    Long.toString(ttl.toMillis()));
+        } catch (Exception e) {
+            log.warn("Falha ao marcar a chave de idempotência {} como aceita. Erro: {}", scopedKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Libera a chave quando a solicitação não chegou à fila, para que o cliente possa repetir.
+     */
+    public void releaseRequest(String scopedKey) {
+        try {
+            stringRedisTemplate.delete(REQUEST_PREFIX + scopedKey);
+        } catch (Exception e) {
+            log.warn("Falha ao liberar a chave de idempotência {}. Erro: {}", scopedKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Verifica quais chaves do lote já foram processadas (um único MGET).
+     * @return para cada chave, true se a solicitação dela já foi gravada.
+     */
+    public List<Boolean> findProcessed(List<String> scopedKeys) {
+        List<String> values = stringRedisTemplate.opsForValue()
+                .multiGet(scopedKeys.stream().map(key -> PROCESSED_PREFIX + key).toList());
+
+        List<Boolean> processed = new ArrayList<>(scopedKeys.size());
+        for (int i = 0; i < scopedKeys.size(); i++) {
+            processed.add(values != null && values.get(i) != null);
+        }
+        return processed;
+    }
+
+    /**
+     * Marca as chaves como processadas (um pipeline de SET com TTL).
+     * Chame só depois que as solicitações foram gravadas no MongoDB. Uma falha
+     * aqui não é propagada: o índice único do MongoDB continua barrando as reentregas.
+     */
+    public void markProcessed(Collection<String> scopedKeys) {
+        if (scopedKeys.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : scopedKeys) {
+                    connection.stringCommands().set((PROCESSED_PREFIX + key).getBytes(StandardCharsets.UTF_8),
+                            PROCESSED, Expiration.from(ttl), SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Falha ao marcar {} chaves como processadas. Erro: {}", scopedKeys.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Requisição que já reservou a chave.
+     * @param accepted false enquanto a publicação dela não foi confirmada.
+     */
+    public record ClaimedRequest(String fingerprint, boolean accepted) {
+
+        static ClaimedRequest parse(String value) {
+            int separatorIndex = value.indexOf(STATE_SEPARATOR);
+            if (separatorIndex < 0) {
+                // Valor gravado antes dos estados (só a impressão digital): já foi aceita
+                return new ClaimedRequest(value, true);
+            }
+            return new ClaimedRequest(value.substring(separatorIndex + 1),
+                    ACCEPTED.equals(value.substring(0, separatorIndex)));
+        }
+    }
+
+    /**
+     * Impressão digital da requisição: a mesma chave com outro conteúdo é um erro do cliente.
+     */
+    public String fingerprint(ConsultaRequestDTO request) {
+        String canonical = String.join("|", request.getMedicoId(), request.getTipoId(),
+                request.getDia(), request.getHorario(), String.valueOf(request.getSintomas()));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível.", e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package br.edu.fatecpg.usafa.features.consulta.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import br.edu.fatecpg.usafa.config.queues.ConsultaQueueConfig;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaMessageDTO;
+import br.edu.fatecpg.usafa.shared.exceptions.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publica as solicitações de consulta com confirmação do broker (publisher confirms).
+ *
+ * As requisições entram em uma fila em memória e uma única thread publica tudo
+ * o que estiver acumulado (até 'batch-size') de uma vez, no mesmo canal. Cada
+ * mensagem leva um CorrelationData; o future devolvido só completa quando o
+ * RabbitMQ confirma que gravou a mensagem (ACK), e falha em NACK, mensagem sem
+ * rota (mandatory) ou falta de confirmação dentro de 'confirm-timeout-ms'.
+ *
+ * O prazo da confirmação começa quando a mensagem é enviada ao broker, não
+ * quando entra na fila em memória. Esgotado o prazo, o future falha com
+ * TimeoutException: a mensagem pode ter sido gravada ou não (resultado
+ * desconhecido). As demais falhas garantem que ela não foi gravada.
+ *
+ * Sem carga, cada mensagem é publicada assim que chega (não há espera para
+ * formar lote); numa rajada, os lotes crescem sozinhos e o broker confirma
+ * várias mensagens por vez.
+ */
+@Service
+@Slf4j
+public class ConsultaPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final BlockingQueue<PendingPublish> queue;
+    private final int batchSize;
+    private final long confirmTimeoutMs;
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    public ConsultaPublisher(ConnectionFactory connectionFactory,
+                             MessageConverter jsonMessageConverter,
+                             @Value("${app.consulta.publisher.batch-size:100}") int batchSize,
+                             @Value("${app.consulta.publisher.queue-capacity:10000}") int queueCapacity,
+                             @Value("${app.consulta.publisher.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        if (connectionFactory instanceof CachingConnectionFactory caching && !caching.isPublisherConfirms()) {
+            log.warn("Publisher confirms desligados (spring.rabbitmq.publisher-confirm-type). "
+                    + "As solicitações de consulta vão falhar por falta de confirmação.");
+        }
+
+        // Template próprio: mandatory e callback de retorno não afetam os outros publicadores
+        this.rabbitTemplate = new RabbitTemplate(connectionFactory);
+        this.rabbitTemplate.setMessageConverter(jsonMessageConverter);
+        this.rabbitTemplate.setMandatory(true);
+
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("consulta-publisher-");
+        threadFactory.setDaemon(true);
+        this.worker = threadFactory.newThread(this::publishLoop);
+        this.worker.start();
+    }
+
+    /**
+     * Enfileira a mensagem para publicação.
+     * @return future completado quando o broker confirmar a mensagem. Falha com
+     *         TooManyRequestsException se a fila em memória estiver cheia e com
+     *         TimeoutException se a mensagem foi enviada mas não confirmada a tempo.
+     */
+    public CompletableFuture<Void> publish(ConsultaMessageDTO message) {
+        PendingPublish pending = new PendingPublish(message, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            log.warn("Fila de publicação de consultas cheia ({} aguardando). Solicitação recusada.", queue.size());
+            return CompletableFuture.failedFuture(
+                    new TooManyRequestsException("Servidor ocupado. Tente novamente em instantes."));
+        }
+        return pending.result();
+    }
+
+    private void publishLoop() {
+        List<PendingPublish> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                publishBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void publishBatch(List<PendingPublish> batch) {
+        // Mensagens já entregues ao canal: numa falha, só as demais são dadas como não publicadas
+        AtomicInteger sent = new AtomicInteger();
+        try {
+            // Um único canal para o lote inteiro; as confirmações chegam de forma assíncrona
+            rabbitTemplate.invoke(operations -> {
+                for (PendingPublish pending : batch) {
+                    CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+                    correlation.getFuture().whenComplete((confirm, error) -> complete(pending, correlation, confirm, error));
+                    sent.incrementAndGet();
+                    pending.result().orTimeout(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+                    operations.convertAndSend(
+                            ConsultaQueueConfig.EXCHANGE_NAME,
+                            ConsultaQueueConfig.CONSULTA_ROUTING_KEY,
+                            pending.message(),
+                            correlation);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            List<PendingPublish> unsent = batch.subList(sent.get(), batch.size());
+            log.error("Falha ao publicar {} solicitações de consulta no RabbitMQ: {}", unsent.size(), e.getMessage());
+            // As já enviadas aguardam a confirmação (ou o prazo) normalmente
+            unsent.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    private static void complete(PendingPublish pending, CorrelationData correlation,
+                                 CorrelationData.Confirm confirm, Throwable error) {
+        if (error != null) {
+            pending.result().completeExceptionally(error);
+        } else if (!confirm.isAck()) {
+            pending.result().completeExceptionally(
+                    new AmqpException("Mensagem recusada pelo broker (NACK): " + confirm.getReason()));
+        } else if (correlation.getReturned() != null) {
+            // ACK de uma mensagem que não chegou a nenhuma fila
+            pending.result().completeExceptionally(
+                    new AmqpException("Mensagem sem rota: " + correlation.getReturned().getReplyText()));
+        } else {
+            pending.result().complete(null);
+        }
+    }
+
+    /**
+     * Para de aceitar mensagens e falha as que ainda não foram publicadas
+     * (o cliente recebe erro e pode repetir com a mesma Idempotency-Key).
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+        List<PendingPublish> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(pending -> pending.result().completeExceptionally(
+                new AmqpException("Aplicação encerrando; solicitação não publicada.")));
+    }
+
+    private record PendingPublish(ConsultaMessageDTO message, CompletableFuture<Void> result) {
+    }
+}
@@ -0,0 +1,243 @@
+package br.edu.fatecpg.usafa.features.consulta.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageBuilderSupport;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.GetResponse;
+
+import br.edu.fatecpg.usafa.config.queues.ConsultaQueueConfig;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ParkedConsultaDTO;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Retentativas e parking lot da fila de consultas (topologia em ConsultaQueueConfig).
+ *
+ * O consumidor não espera o backoff: uma falha temporária republica a mensagem
+ * na fila de espera do próximo nível e a mensagem original é confirmada logo depois.
+ * Toda republicação espera a confirmação do broker (publisher confirms) e falha
+ * em NACK, mensagem sem rota ou timeout; só então o chamador confirma a original.
+ * Assim uma cópia perdida no caminho nunca leva a original junto.
+ * Os cabeçalhos x-consulta-* acompanham a mensagem (tentativas e último erro).
+ */
+@Service
+@Slf4j
+public class ConsultaRetryService {
+
+    public static final String RETRIES_HEADER = "x-consulta-retries";
+    public static final String ERROR_HEADER = "x-consulta-error";
+    public static final String PARKED_AT_HEADER = "x-consulta-parked-at";
+
+    // Cabeçalhos que não voltam para a fila principal num reenvio pelo admin
+    private static final Set<String> REPLAY_DROPPED_HEADERS = Set.of(
+            RETRIES_HEADER, ERROR_HEADER, PARKED_AT_HEADER, "x-death");
+    private static final int MAX_REASON_LENGTH = 500;
+
+    private final RabbitTemplate rabbitTemplate;
+    // Template próprio para as republicações: mandatory não afeta os outros publicadores
+    private final RabbitTemplate confirmingTemplate;
+    private final long[] delaysMs;
+    private final long confirmTimeoutMs;
+
+    public ConsultaRetryService(RabbitTemplate rabbitTemplate,
+                                @Value("${app.consulta.retry.delays-ms:5000,30000,120000,600000}") long[] delaysMs,
+                                @Value("${app.consulta.publisher.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.confirmingTemplate = new RabbitTemplate(rabbitTemplate.getConnectionFactory());
+        this.confirmingTemplate.setMandatory(true);
+        this.delaysMs = delaysMs;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+    }
+
+    /**
+     * Agenda uma nova tentativa no próximo nível de espera.
+     * Esgotados os níveis, a mensagem vai para o parking lot.
+     * @throws AmqpException se o broker não confirmar a nova mensagem (não confirme a original).
+     */
+    public void retry(Message message, String reason) {
+        int retries = retriesOf(message.getMessageProperties());
+        if (retries >= delaysMs.length) {
+            park(message, "Tentativas esgotadas (" + retries + "): " + reason);
+            return;
+        }
+
+        long delayMs = delaysMs[retries];
+        Message retryMessage = copyOf(message)
+                .setHeader(RETRIES_HEADER, retries + 1)
+                .setHeader(ERROR_HEADER, truncate(reason))
+                .build();
+        sendConfirmed(ConsultaQueueConfig.RETRY_EXCHANGE_NAME,
+                ConsultaQueueConfig.retryRoutingKey(delayMs), retryMessage);
+        log.info("Solicitação de consulta reagendada (tentativa {} em {} ms). Motivo: {}", retries + 1, delayMs, reason);
+    }
+
+    /**
+     * Move a mensagem para o parking lot, onde ela fica até um admin reenviá-la.
+     * @throws AmqpException se o broker não confirmar a mensagem (não confirme a original).
+     */
+    public void park(Message message, String reason) {
+        Message parked = copyOf(message)
+                .setHeader(ERROR_HEADER, truncate(reason))
+                .setHeader(PARKED_AT_HEADER, Instant.now().toString())
+                .build();
+        sendConfirmed(ConsultaQueueConfig.DEAD_LETTER_EXCHANGE_NAME,
+                ConsultaQueueConfig.PARKING_LOT_ROUTING_KEY, parked);
+        log.warn("Solicitação de consulta movida para o parking lot. Motivo: {}", reason);
+    }
+
+    /**
+     * Lê as primeiras mensagens do parking lot sem consumi-las.
+     */
+    public List<ParkedConsultaDTO> peekParked(int limit) {
+        return rabbitTemplate.execute(channel -> {
+            List<ParkedConsultaDTO> parked = new ArrayList<>();
+            long lastDeliveryTag = -1;
+            for (int i = 0; i < limit; i++) {
+                GetResponse response = channel.basicGet(ConsultaQueueConfig.PARKING_LOT_QUEUE_NAME, false);
+                if (response == null) {
+                    break;
+                }
+                lastDeliveryTag = response.getEnvelope().getDeliveryTag();
+                parked.add(toDto(response));
+            }
+            // Nada é consumido: as mensagens lidas voltam todas para o parking lot
+            if (lastDeliveryTag >= 0) {
+                channel.basicNack(lastDeliveryTag, true, true);
+            }
+            return parked;
+        });
+    }
+
+    /**
+     * Reenvia até 'limit' mensagens do parking lot para a fila principal, com o
+     * contador de tentativas zerado.
+     * @return quantas mensagens foram reenviadas.
+     */
+    public int replayParked(int limit) {
+        Integer replayed = rabbitTemplate.execute(channel -> {
+            channel.confirmSelect();
+            int count = 0;
+            while (count < limit) {
+                GetResponse response = channel.basicGet(ConsultaQueueConfig.PARKING_LOT_QUEUE_NAME, false);
+                if (response == null) {
+                    break;
+                }
+                channel.basicPublish(ConsultaQueueConfig.EXCHANGE_NAME, ConsultaQueueConfig.CONSULTA_ROUTING_KEY,
+                        replayProperties(response.getProps()), response.getBody());
+                // Só sai do parking lot depois que o broker confirmar a publicação
+                // (uma duplicata é descartada pela idempotência)
+                channel.waitForConfirmsOrDie(confirmTimeoutMs);
+                channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+                count++;
+            }
+            return count;
+        });
+        log.info("{} solicitações de consulta reenviadas do parking lot.", replayed);
+        return replayed != null ? replayed : 0;
+    }
+
+    /**
+     * Publica e espera a confirmação do broker (ACK e mensagem roteada para alguma fila).
+     */
+    private void sendConfirmed(String exchange, String routingKey, Message message) {
+        CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+        confirmingTemplate.send(exchange, routingKey, message, correlation);
+
+        CorrelationData.Confirm confirm;
+        try {
+            confirm = correlation.getFuture().get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrompido aguardando a confirmação do broker.", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new AmqpException("Sem confirmação do broker para a mensagem em " + exchange + ".", e);
+        }
+        if (!confirm.isAck()) {
+            throw new AmqpException("Mensagem recusada pelo broker (NACK): " + confirm.getReason());
+        }
+        if (correlation.getReturned() != null) {
+            throw new AmqpException("Mensagem sem rota: " + correlation.getReturned().getReplyText());
+        }
+    }
+
+    private static MessageBuilderSupport<Message> copyOf(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        MessageBuilderSupport<Message> builder = MessageBuilder.withBody(message.getBody())
+                .setContentType(properties.getContentType())
+                .setContentEncoding(properties.getContentEncoding())
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        properties.getHeaders().forEach((name, value) -> {
+            // O histórico de dead-letter das filas de espera não precisa crescer a cada tentativa
+            if (!"x-death".equals(name)) {
+                builder.setHeader(name, value);
+            }
+        });
+        return builder;
+    }
+
+    private static AMQP.BasicProperties replayProperties(AMQP.BasicProperties original) {
+        Map<String, Object> headers = new HashMap<>();
+        if (original.getHeaders() != null) {
+            original.getHeaders().forEach((name, value) -> {
+                if (!REPLAY_DROPPED_HEADERS.contains(name)) {
+                    headers.put(name, value);
+                }
+            });
+        }
+        return original.builder()
+                .headers(headers)
+                .deliveryMode(2) // persistente
+                .build();
+    }
+
+    private static ParkedConsultaDTO toDto(GetResponse response) {
+        Map<String, Object> headers = response.getProps().getHeaders() != null
+                ? response.getProps().getHeaders()
+                : Map.of();
+        Object retries = headers.get(RETRIES_HEADER);
+
+        return ParkedConsultaDTO.builder()
+                .reason(headerAsString(headers.get(ERROR_HEADER)))
+                .retries(retries instanceof Number number ? number.intValue() : 0)
+                .parkedAt(headerAsString(headers.get(PARKED_AT_HEADER)))
+                .payload(new String(response.getBody(), StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private static int retriesOf(MessageProperties properties) {
+        Object retries = properties.getHeader(RETRIES_HEADER);
+        return retries instanceof Number number ? number.intValue() : 0;
+    }
+
+    // Os cabeçalhos de texto chegam do cliente AMQP como LongString
+    private static String headerAsString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static String truncate(String reason) {
+        if (reason == null) {
+            return "";
+        }
+        return reason.length() <= MAX_REASON_LENGTH ? reason : reason.substring(0, MAX_REASON_LENGTH);
+    }
+}
@@ -1,23 +1,32 @@
 package br.edu.fatecpg.usafa.features.consulta.services;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
+import java.time.format.DateTimeParseException;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+
 import br.edu.fatecpg.usafa.features.Admin.repositories.IMedicoRepository;
 import br.edu.fatecpg.usafa.features.Admin.repositories.ITipoConsultaRepository;
+import br.edu.fatecpg.usafa.features.auth.utilis.UserSnapshot;
+import br.edu.fatecpg.usafa.features.caching.CacheKeys;
+import br.edu.fatecpg.usafa.features.caching.CacheOptions;
+import br.edu.fatecpg.usafa.features.caching.CacheTags;
 import br.edu.fatecpg.usafa.features.caching.ICacheService;
+import br.edu.fatecpg.usafa.features.consulta.dtos.AvailabilityDTO;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaDTO;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaFormOptionsDTO;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaRequestDTO;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaSlot;
 import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaSummaryDTO;
 import br.edu.fatecpg.usafa.features.consulta.dtos.FormSelectOptionDTO;
 import br.edu.fatecpg.usafa.features.consulta.enums.ConsultaStatus;
@@ -43,43 +52,40 @@ public class ConsultaService implements IConsultaService {
     private final ITipoConsultaRepository tipoConsultaRepository;
     private final IConsultaMapper mapper;
     private final ICacheService cacheService;
+    private final AvailabilityIndex availabilityIndex;
 
-    private String getConsultasCacheKey(String userPublicId) {
-        return "CONSULTAS_USER_" + userPublicId;
-    }
-    private static final String FORM_OPTIONS_CACHE_KEY = "CONSULTA_FORM_OPTIONS";
+    // Opções do formulário: recarregadas em background depois de 1 hora e
+    // reconstruídas à meia-noite (os dias disponíveis mudam com a data)
+    private static final CacheOptions FORM_OPTIONS_CACHE = CacheOptions.builder()
+            .ttl(Duration.ofHours(6))
+            .refreshAfter(Duration.ofHours(1))
+            .tag(CacheTags.DOCTORS)
+            .build();
 
     @Override
     @Transactional(readOnly = true)
-    public List<ConsultaDTO> findConsultasByUser(User user) {
-        final String cacheKey = getConsultasCacheKey(user.getPublicId().toString());
-
-        try {
-            // A anotação SuppressWarnings é usada para o cast de List para List<ConsultaDTO>
-            // 1. Tenta buscar do Cache
-            @SuppressWarnings("unchecked") List<ConsultaDTO> cachedConsultas = (List<ConsultaDTO>) cacheService.get(cacheKey, List.class);
-            if (cachedConsultas != null) {
-                log.info("Cache HIT para consultas do usuário: {}", user.getPublicId());
-                return cachedConsultas;
-            }
-        } catch (Exception e) {
-            log.warn("Falha ao ler cache de consultas. Buscando no DB. Erro: {}", e.getMessage());
-        }
+    public List<ConsultaDTO> findConsultasByUser(UserSnapshot user) {
+        final String cacheKey = CacheKeys.consultasDoUsuario(user.publicId().toString());
+        // O histórico exibe dados do usuário e dos médicos
+        final CacheOptions options = CacheOptions.builder()
+                .ttl(Duration.ofMinutes(5))
+                .tag(CacheTags.user(user.publicId()))
+                .tag(CacheTags.DOCTORS)
+                .build();
 
         try {
-            // 2. Se não achar, busca no DB
-            log.info("Cache MISS para consultas do usuário: {}", user.getPublicId());
-            List<Consulta> consultas = consultaRepository.findByUserOrderByDiaDesc(user);
-            List<ConsultaDTO> dtos = consultas.stream()
-                    .map(mapper::toDTO) // ou .map(consulta -> mapper.toDTO(consulta))
-                    .collect(Collectors.toList());
-
-            // 3. Salva no cache (expira em 5 minutos)
-            cacheService.saveWithTtl(cacheKey, dtos, 5, TimeUnit.MINUTES);
+            // Busca do Cache (expira em 5 minutos); no MISS, só uma requisição vai ao DB
+            List<ConsultaDTO> dtos = cacheService.getOrLoad(cacheKey, new TypeReference<List<ConsultaDTO>>() {}, options, () -> {
+                log.debug("Cache MISS para consultas do usuário: {}", user.publicId());
+                List<Consulta> consultas = consultaRepository.findByUserPublicIdOrderByDiaDesc(user.publicId());
+                return consultas.stream()
+                        .map(mapper::toDTO) // ou .map(consulta -> mapper.toDTO(consulta))
+                        .collect(Collectors.toList());
+            });
             return dtos;
 
         } catch (DataAccessException e) {
-            log.error("Erro de banco ao buscar consultas para o usuário: {}", user.getPublicId(), e);
+            log.error("Erro de banco ao buscar consultas para o usuário: {}", user.publicId(), e);
             throw new DatabaseOperationException("Erro ao consultar seu histórico de consultas.", e);
         }
     }
@@ -88,41 +94,33 @@ public class ConsultaService implements IConsultaService {
     @Transactional(readOnly = true)
     public ConsultaFormOptionsDTO getFormOptions() {
         try {
-            // 1. Tenta buscar do Cache
-            ConsultaFormOptionsDTO cachedOptions = cacheService.get(FORM_OPTIONS_CACHE_KEY, ConsultaFormOptionsDTO.class);
-            if (cachedOptions != null) {
-                log.info("Cache HIT para opções do formulário.");
-                return cachedOptions;
+            // Valor vencido é servido enquanto é recarregado em background; no MISS, só uma requisição monta as opções
+            return cacheService.getOrLoad(CacheKeys.CONSULTA_FORM_OPTIONS, ConsultaFormOptionsDTO.class, FORM_OPTIONS_CACHE,
+                    this::buildFormOptions);
+
+        } catch (DataAccessException e) {
+            log.error("Erro de banco ao buscar opções do formulário.", e);
+            throw new DatabaseOperationException("Erro ao carregar opções de agendamento.", e);
+        }
+    }
+
+    @Override
+    public List<AvailabilityDTO> getAvailability(String medicoId, String tipoId, String dia) {
+        LocalDate day = null;
+        if (dia != null && !dia.isBlank()) {
+            try {
+                day = ConsultaSlot.parseDia(dia);
+            } catch (DateTimeParseException e) {
+                throw new BusinessRuleException("Dia inválido. Use DD/MM/YYYY (ou YYYY-MM-DD).", e);
             }
-        } catch (Exception e) {
-            log.warn("Falha ao ler cache de opções. Buscando no DB. Erro: {}", e.getMessage());
         }
 
         try {
-            // 2. Se não achar, busca no DB
-            log.info("Cache MISS para opções do formulário. Buscando no DB.");
-            List<Medico> medicos = medicoRepository.findAll();
-            List<TipoConsulta> tipos = tipoConsultaRepository.findAll();
-
-            // 3. Lógica de Negócio para gerar dias e horários (como no LogErro)
-            List<FormSelectOptionDTO> dias = gerarProximosDias();
-            List<FormSelectOptionDTO> horarios = gerarHorarios();
-
-            // 4. Mapeia e constrói o DTO
-            ConsultaFormOptionsDTO options = ConsultaFormOptionsDTO.builder()
-                    .medicos(mapper.medicosToOptions(medicos))
-                    .tipos(mapper.tiposToOptions(tipos))
-                    .dias(dias)
-                    .horarios(horarios)
-                    .build();
-
-            // 5. Salva no cache (expira em 1 hora)
-            cacheService.saveWithTtl(FORM_OPTIONS_CACHE_KEY, options, 1, TimeUnit.HOURS);
-            return options;
-
+            // Só memória: o índice é montado no aquecimento e mantido a cada reserva
+            return availabilityIndex.findFree(blankToNull(medicoId), blankToNull(tipoId), day);
         } catch (DataAccessException e) {
-            log.error("Erro de banco ao buscar opções do formulário.", e);
-            throw new DatabaseOperationException("Erro ao carregar opções de agendamento.", e);
+            log.error("Erro de banco ao montar o índice de disponibilidade.", e);
+            throw new DatabaseOperationException("Erro ao carregar os horários disponíveis.", e);
         }
     }
 
@@ -157,9 +155,12 @@ public class ConsultaService implements IConsultaService {
             // 4. Salva
             Consulta savedConsulta = consultaRepository.save(consulta);
 
-            // 5. Invalida o cache do histórico do usuário
-            cacheService.delete(getConsultasCacheKey(user.getPublicId().toString()));
+            // 5. Invalida tudo que exibe consultas (inclusive o histórico do usuário)
+            cacheService.invalidateTags(List.of(
+                    CacheTags.user(user.getPublicId()),
+                    CacheTags.APPOINTMENTS));
             log.info("Cache de consultas invalidado para o usuário: {}", user.getPublicId());
+            availabilityIndex.occupy(new ConsultaSlot(medico.getPublicId(), savedConsulta.getDia(), savedConsulta.getHorario()));
 
             // 6. Retorna o DTO de Sucesso
             return mapper.toSummaryDTO(savedConsulta);
@@ -174,16 +175,47 @@ public class ConsultaService implements IConsultaService {
     }
 
 
+    /**
+     * Reconstrói as opções do formulário na virada do dia, para que a lista de
+     * dias nunca fique com a data de ontem. A chave é sobrescrita (sem MISS).
+     */
+    @Scheduled(cron = "${app.cache.form-options.rebuild-cron:0 0 0 * * *}")
+    @Transactional(readOnly = true)
+    public void rebuildFormOptions() {
+        try {
+            cacheService.reload(CacheKeys.CONSULTA_FORM_OPTIONS, FORM_OPTIONS_CACHE, this::buildFormOptions);
+            log.info("Opções do formulário reconstruídas para o novo dia.");
+        } catch (Exception e) {
+            log.error("Falha ao reconstruir as opções do formulário. Erro: {}", e.getMessage());
+        }
+    }
+
+
     // --- Métodos de Negócio (Helpers) ---
 
-    // (Pode ser movido para um 'AvailabilityService' no futuro)
+    private ConsultaFormOptionsDTO buildFormOptions() {
+        log.info("Montando opções do formulário. Buscando no DB.");
+        List<Medico> medicos = medicoRepository.findAll();
+        List<TipoConsulta> tipos = tipoConsultaRepository.findAll();
+
+        // Lógica de Negócio para gerar dias e horários (como no LogErro)
+        List<FormSelectOptionDTO> dias = gerarProximosDias();
+        List<FormSelectOptionDTO> horarios = gerarHorarios();
+
+        // Mapeia e constrói o DTO
+        return ConsultaFormOptionsDTO.builder()
+                .medicos(mapper.medicosToOptions(medicos))
+                .tipos(mapper.tiposToOptions(tipos))
+                .dias(dias)
+                .horarios(horarios)
+                .build();
+    }
+
+    // Dias e horários vêm da mesma grade do índice de disponibilidade (AvailabilityIndex)
 
     private List<FormSelectOptionDTO> gerarProximosDias() {
         // Gera os próximos 7 dias úteis
-        return Stream.iterate(LocalDate.now(), d -> d.plusDays(1))
-                .filter(d -> !d.getDayOfWeek().equals(java.time.DayOfWeek.SATURDAY) &&
-                             !d.getDayOfWeek().equals(java.time.DayOfWeek.SUNDAY))
-                .limit(7)
+        return AvailabilityIndex.proximosDiasUteis(LocalDate.now(), AvailabilityIndex.DIAS_OFERECIDOS).stream()
                 .map(d -> new FormSelectOptionDTO(
                         d.format(IConsultaMapper.DATE_FORMATTER),
                         d.format(DateTimeFormatter.ofPattern("dd/MM (EEEE)", IConsultaMapper.LOCALE_BR))
@@ -192,15 +224,20 @@ public class ConsultaService implements IConsultaService {
     }
 
     private List<FormSelectOptionDTO> gerarHorarios() {
-        // Gera horários (ex: 09:00, 10:00, ... 16:00)
-        return Arrays.asList(
-                new FormSelectOptionDTO("09:00", "09:00"),
-                new FormSelectOptionDTO("10:00", "10:00"),
-                new FormSelectOptionDTO("11:00", "11:00"),
-                new FormSelectOptionDTO("13:00", "13:00 (Tarde)"),
-                new FormSelectOptionDTO("14:00", "14:00"),
-                new FormSelectOptionDTO("15:00", "15:00"),
-                new FormSelectOptionDTO("16:00", "16:00")
-        );
+        // Gera horários (ex: 09:00, 10:00, ... 16:00); o primeiro depois do almoço leva "(Tarde)"
+        LocalTime tarde = AvailabilityIndex.HORARIOS.stream()
+                .filter(h -> !h.isBefore(LocalTime.NOON))
+                .findFirst()
+                .orElse(null);
+        return AvailabilityIndex.HORARIOS.stream()
+                .map(h -> {
+                    String value = h.format(IConsultaMapper.TIME_FORMATTER);
+                    return new FormSelectOptionDTO(value, h.equals(tarde) ? value + " (Tarde)" : value);
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
     }
 }
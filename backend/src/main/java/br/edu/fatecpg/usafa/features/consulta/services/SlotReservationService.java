@@ -0,0 +1,160 @@
+package br.edu.fatecpg.usafa.features.consulta.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaSlot;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reserva atômica dos horários dos médicos (uma chave no Redis por horário).
+ *
+ * O horário é tomado no momento da solicitação, antes de ir para a fila: quem
+ * chega depois recebe 409 na hora, em vez de descobrir pelo consumidor. Cada
+ * reserva/liberação é um único comando atômico no Redis, sem lock nem consulta
+ * ao banco.
+ *
+ * O Redis é só a verificação rápida: a garantia final é a restrição única de
+ * (médico, dia, horário) no Postgres (consultas) e no MongoDB (solicitações).
+ * Com o Redis fora, a reserva é aceita e quem barra a duplicata é o banco.
+ */
+@Service
+@Slf4j
+public class SlotReservationService {
+
+    private static final String SLOT_PREFIX = "consulta:slot:";
+
+    // Reserva o horário se estiver livre; o mesmo dono pode reservar de novo (retry idempotente)
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1]) "
+            + "if not current then redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) return 1 end "
+            + "if current == ARGV[1] then return 1 end "
+            + "return 0",
+            Long.class);
+
+    // Como RESERVE_SCRIPT, mas também toma o horário de uma solicitação de paciente
+    // (dono com ':', formato de ConsultaIdempotencyService.scopedKey); 2 = horário transferido
+    private static final RedisScript<Long> TAKE_OVER_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1]) "
+            + "if current == ARGV[1] then return 1 end "
+            + "if current and not string.find(current, ':', 1, true) then return 0 end "
+            + "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+            + "if current then return 2 end "
+            + "return 1",
+            Long.class);
+
+    // Só o dono libera o horário (uma reserva vencida e refeita por outro não é apagada)
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end "
+            + "return 0",
+            Long.class);
+
+    // Encurta a reserva, só se ela ainda for do mesmo dono
+    private static final RedisScript<Long> SHORTEN_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end "
+            + "return 0",
+            Long.class);
+
+    private static final Duration MIN_TTL = Duration.ofMinutes(1);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Duration grace;
+    private final Duration unconfirmedTtl;
+
+    public SlotReservationService(StringRedisTemplate stringRedisTemplate,
+                                  @Value("${app.consulta.slot.grace-hours:24}") long graceHours,
+                                  @Value("${app.consulta.slot.unconfirmed-ttl-minutes:10}") long unconfirmedTtlMinutes) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.grace = Duration.ofHours(graceHours);
+        this.unconfirmedTtl = Duration.ofMinutes(unconfirmedTtlMinutes);
+    }
+
+    /**
+     * Tenta reservar o horário para 'owner' (ex: a chave de idempotência da solicitação).
+     * @return false se o horário já pertence a outro dono.
+     */
+    public boolean reserve(ConsultaSlot slot, String owner) {
+        try {
+            Long reserved = stringRedisTemplate.execute(RESERVE_SCRIPT,
+                    List.of(SLOT_PREFIX + slot.key()), owner, Long.toString(ttlOf(slot).toMillis()));
+            return reserved == null || reserved == 1L;
+        } catch (Exception e) {
+            log.warn("Falha ao reservar o horário {} no Redis. A restrição única do banco decide. Erro: {}",
+                    slot.key(), e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Reserva o horário para uma consulta do admin ('owner' = ID público da consulta).
+     * Se o horário estiver reservado por uma solicitação de paciente ainda na fila,
+     * a reserva passa para a consulta: a liberação feita depois pela solicitação
+     * (ex: recusada pelo consumidor) não apaga a reserva do admin.
+     * @return false se o horário já pertence a outra consulta.
+     */
+    public boolean reserveOverRequest(ConsultaSlot slot, String owner) {
+        try {
+            Long reserved = stringRedisTemplate.execute(TAKE_OVER_SCRIPT,
+                    List.of(SLOT_PREFIX + slot.key()), owner, Long.toString(ttlOf(slot).toMillis()));
+            if (reserved != null && reserved == 2L) {
+                log.info("Horário {} transferido de uma solicitação pendente para a consulta {}.", slot.key(), owner);
+            }
+            return reserved == null || reserved != 0L;
+        } catch (Exception e) {
+            log.warn("Falha ao reservar o horário {} no Redis. A restrição única do banco decide. Erro: {}",
+                    slot.key(), e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Desfaz a reserva de 'owner' (ex: a solicitação não chegou à fila ou foi recusada).
+     */
+    public void release(ConsultaSlot slot, String owner) {
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(SLOT_PREFIX + slot.key()), owner);
+        } catch (Exception e) {
+            log.warn("Falha ao liberar o horário {} no Redis. Erro: {}", slot.key(), e.getMessage());
+        }
+    }
+
+    /**
+     * Mantém a reserva de 'owner' só por 'unconfirmed-ttl-minutes' (ex: o broker não
+     * confirmou a mensagem a tempo e ela pode ter se perdido). Se a mensagem chegou,
+     * o documento gravado pelo consumidor segura o horário; se não, o horário volta
+     * a ficar livre sem esperar a data da consulta.
+     */
+    public void holdUnconfirmed(ConsultaSlot slot, String owner) {
+        try {
+            stringRedisTemplate.execute(SHORTEN_SCRIPT, List.of(SLOT_PREFIX + slot.key()),
+                    owner, Long.toString(unconfirmedTtl.toMillis()));
+        } catch (Exception e) {
+            log.warn("Falha ao encurtar a reserva do horário {} no Redis. Erro: {}", slot.key(), e.getMessage());
+        }
+    }
+
+    /**
+     * Libera o horário independente do dono (ex: o admin apagou ou remarcou a consulta).
+     */
+    public void free(ConsultaSlot slot) {
+        try {
+            stringRedisTemplate.delete(SLOT_PREFIX + slot.key());
+        } catch (Exception e) {
+            log.warn("Falha ao liberar o horário {} no Redis. Erro: {}", slot.key(), e.getMessage());
+        }
+    }
+
+    // A reserva dura até o horário passar (mais uma folga), nunca menos que MIN_TTL
+    private Duration ttlOf(ConsultaSlot slot) {
+        Duration untilSlot = Duration.between(LocalDateTime.now(), slot.dia().atTime(slot.horario()));
+        Duration ttl = untilSlot.plus(grace);
+        return ttl.compareTo(MIN_TTL) < 0 ? MIN_TTL : ttl;
+    }
+}
@@ -10,6 +10,8 @@ import br.edu.fatecpg.usafa.features.location.dtos.LocationCreateDTO;
 import br.edu.fatecpg.usafa.features.location.dtos.LocationDTO;
 import lombok.RequiredArgsConstructor;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/v1/usafas")
 @RequiredArgsConstructor // Cria um construtor com os campos 'final'
@@ -21,12 +23,14 @@ public class LocationController {
      * GET /api/v1/usafas/user/{publicId}
      * Busca a USAFA salva para um usuário específico.
      * Corresponde a 'getSavedLocation' no seu api.ts.
+     * Retorna um CompletableFuture: o Spring libera a thread enquanto o cache responde.
      */
     @GetMapping("/user/{publicId}")
-    public ResponseEntity<LocationDTO> getByUserPublicId(@PathVariable String publicId) {
+    public CompletableFuture<ResponseEntity<LocationDTO>> getByUserPublicId(@PathVariable String publicId) {
         return locationService.findByUserPublicId(publicId)
-                .map(ResponseEntity::ok) // Se encontrar, retorna 200 OK com o DTO
-                .orElse(ResponseEntity.notFound().build()); // Se não, retorna 404 Not Found
+                .thenApply(location -> location
+                        .map(ResponseEntity::ok) // Se encontrar, retorna 200 OK com o DTO
+                        .orElse(ResponseEntity.notFound().build())); // Se não, retorna 404 Not Found
     }
 
     /**
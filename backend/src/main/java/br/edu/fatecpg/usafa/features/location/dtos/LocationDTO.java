@@ -1,7 +1,9 @@
 package br.edu.fatecpg.usafa.features.location.dtos;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * DTO para representar os dados de uma USAFA que são enviados ao frontend.
@@ -9,6 +11,8 @@ import lombok.Data;
  */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class LocationDTO {
 
     private Long id;
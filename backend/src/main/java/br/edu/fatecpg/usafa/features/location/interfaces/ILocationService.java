@@ -5,6 +5,7 @@ import br.edu.fatecpg.usafa.features.location.dtos.LocationDTO;
 import br.edu.fatecpg.usafa.features.location.dtos.LocationUpdateDTO;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface para o serviço de localização, definindo os métodos
@@ -16,9 +17,10 @@ public interface ILocationService {
      * Busca a USAFA salva de um usuário pelo seu ID público.
      *
      * @param publicId O ID público do usuário.
-     * @return Um Optional contendo o LocationDTO se encontrado.
+     * @return Um future com um Optional contendo o LocationDTO se encontrado.
+     *         A leitura do cache não bloqueia a thread chamadora.
      */
-    Optional<LocationDTO> findByUserPublicId(String publicId);
+    CompletableFuture<Optional<LocationDTO>> findByUserPublicId(String publicId);
 
     /**
      * Cria um novo registro de USAFA para um usuário.
@@ -1,6 +1,8 @@
 package br.edu.fatecpg.usafa.features.location.services;
 
 import br.edu.fatecpg.usafa.features.auth.repositories.IUserRepository;
+import br.edu.fatecpg.usafa.features.caching.CacheKeys;
+import br.edu.fatecpg.usafa.features.caching.IAsyncCacheService;
 import br.edu.fatecpg.usafa.features.caching.ICacheService;
 import br.edu.fatecpg.usafa.features.location.interfaces.ILocationService;
 import br.edu.fatecpg.usafa.features.location.dtos.LocationCreateDTO;
@@ -16,12 +18,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -32,36 +37,58 @@ public class LocationService implements ILocationService {
     private final ILocationRepository locationRepository;
     private final IUserRepository userRepository; // (Assumido)
     private final ICacheService cacheService;
+    private final IAsyncCacheService asyncCacheService;
     private final LocationMapper locationMapper; // (Assumindo um Mapper)
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor taskExecutor; // Executor padrão do Spring (@Async)
 
-    private static final String CACHE_KEY_PREFIX = "USAFA_USER_";
     private String getCacheKey(String publicId) {
-        return CACHE_KEY_PREFIX + publicId;
+        return CacheKeys.localizacaoDoUsuario(publicId);
     }
 
-    @Async
-    @Transactional(readOnly = true)
+    /**
+     * Leitura não bloqueante: a consulta ao Redis não prende a thread da requisição.
+     * Só em caso de MISS o banco é consultado, em uma thread do executor padrão.
+     * Usuários sem USAFA ficam no cache negativo, para não irem ao banco a cada chamada.
+     */
     @Override
-    public Optional<LocationDTO> findByUserPublicId(String publicId) {
+    public CompletableFuture<Optional<LocationDTO>> findByUserPublicId(String publicId) {
         final String cacheKey = getCacheKey(publicId);
 
-        try {
-            // 1. Tenta buscar do Cache primeiro
-            LocationDTO cachedLocation = cacheService.get(cacheKey, LocationDTO.class);
+        // 1. Busca o valor e o cache negativo ao mesmo tempo (uma única espera)
+        CompletableFuture<LocationDTO> cached = asyncCacheService.getAsync(cacheKey, LocationDTO.class)
+                .exceptionally(e -> {
+                    log.warn("Falha ao ler do cache (chave: {}). Buscando no DB. Erro: {}", cacheKey, e.getMessage());
+                    return null;
+                });
+        CompletableFuture<Boolean> knownMissing = asyncCacheService.isNotFoundAsync(cacheKey)
+                .exceptionally(e -> false);
+
+        return cached.thenCompose(cachedLocation -> {
             if (cachedLocation != null) {
-                log.info("Cache HIT para a chave: {}", cacheKey);
-                return Optional.of(cachedLocation);
+                log.debug("Cache HIT para a chave: {}", cacheKey);
+                return CompletableFuture.completedFuture(Optional.of(cachedLocation));
             }
-        } catch (Exception e) {
-            log.warn("Falha ao ler do cache (chave: {}). Buscando no DB. Erro: {}", cacheKey, e.getMessage());
-        }
+            return knownMissing.thenCompose(missing -> {
+                if (Boolean.TRUE.equals(missing)) {
+                    log.debug("Cache negativo para a chave: {}", cacheKey);
+                    return CompletableFuture.completedFuture(Optional.<LocationDTO>empty());
+                }
+                // 2. Se não achar no cache, busca no DB (fora da thread de I/O do Redis)
+                return CompletableFuture.supplyAsync(
+                        () -> transactionTemplate.execute(status -> loadFromDatabase(publicId, cacheKey)),
+                        taskExecutor);
+            });
+        });
+    }
 
+    private Optional<LocationDTO> loadFromDatabase(String publicId, String cacheKey) {
         try {
-            // 2. Se não achar no cache, busca no DB
-            log.info("Cache MISS para a chave: {}. Buscando no DB.", cacheKey);
+            log.debug("Cache MISS para a chave: {}. Buscando no DB.", cacheKey);
             Optional<Usafa> usafa = locationRepository.findByUser_PublicId(publicId);
 
             if (usafa.isEmpty()) {
+                cacheService.saveNotFound(cacheKey);
                 return Optional.empty();
             }
 
@@ -69,7 +96,6 @@ public class LocationService implements ILocationService {
             LocationDTO dto = locationMapper.toDTO(usafa.get());
 
             // 4. Salva no cache para a próxima vez (ex: expira em 10 minutos)
-            // (O método 'saveWithTtl' do seu CacheService já é @Async)
             cacheService.saveWithTtl(cacheKey, dto, 10, TimeUnit.MINUTES);
 
             return Optional.of(dto);
@@ -106,6 +132,9 @@ public class LocationService implements ILocationService {
             // 4. Salva no DB
             Usafa savedUsafa = locationRepository.save(newUsafa);
 
+            // 4.1 O usuário agora tem USAFA: descarta o cache negativo
+            cacheService.delete(getCacheKey(publicId));
+
             // 5. Mapeia a entidade salva para o DTO de retorno
             return locationMapper.toDTO(savedUsafa);
 
@@ -146,7 +175,6 @@ public class LocationService implements ILocationService {
             Usafa updatedUsafa = locationRepository.save(usafa);
 
             // 4. Invalida (deleta) o cache do usuário
-            // (O método 'delete' do seu CacheService já é @Async)
             final String cacheKey = getCacheKey(updatedUsafa.getUser().getPublicId().toString());
             cacheService.delete(cacheKey);
             log.info("Cache invalidado para a chave: {}", cacheKey);
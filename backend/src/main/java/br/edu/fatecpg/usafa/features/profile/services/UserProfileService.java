@@ -6,6 +6,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import br.edu.fatecpg.usafa.features.auth.repositories.IUserRepository;
+import br.edu.fatecpg.usafa.features.auth.utilis.UserCache;
 import br.edu.fatecpg.usafa.features.profile.dtos.UserProfileResponseDTO;
 import br.edu.fatecpg.usafa.features.profile.dtos.UserProfileUpdateDTO;
 import br.edu.fatecpg.usafa.features.profile.interfaces.IUserProfileService;
@@ -18,6 +19,9 @@ public class UserProfileService  implements IUserProfileService {
     @Autowired
     private IUserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
     /**
      * Busca os dados de perfil de um usuário com base no seu e-mail (login).
      *
@@ -55,6 +59,7 @@ public class UserProfileService  implements IUserProfileService {
         
         // 3. Salva a entidade atualizada no banco
         User updatedUser = userRepository.save(user);
+        userCache.evict(updatedUser);
 
         // 4. Retorna o DTO com os novos dados
         return new UserProfileResponseDTO(updatedUser);
@@ -5,10 +5,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // Importante
 
 import br.edu.fatecpg.usafa.features.auth.repositories.IUserRepository;
+import br.edu.fatecpg.usafa.features.auth.utilis.UserCache;
 import br.edu.fatecpg.usafa.features.roles.interfaces.IRoleService;
 import br.edu.fatecpg.usafa.features.roles.repositories.IRolesRepository;
 import br.edu.fatecpg.usafa.models.Role;
 import br.edu.fatecpg.usafa.models.User;
+import br.edu.fatecpg.usafa.shared.tokens.TokenRevocationService;
 
 import java.util.List;
 import java.util.Set;
@@ -20,11 +22,16 @@ public class RoleService implements IRoleService {
     // Nossos "pontos de acesso" ao banco de dados
     private final IRolesRepository roleRepository;
     private final IUserRepository userRepository;
+    private final TokenRevocationService tokenRevocations;
+    private final UserCache userCache;
 
     @Autowired
-    public RoleService(IRolesRepository roleRepository, IUserRepository userRepository) {
+    public RoleService(IRolesRepository roleRepository, IUserRepository userRepository,
+                       TokenRevocationService tokenRevocations, UserCache userCache) {
         this.roleRepository = roleRepository;
         this.userRepository = userRepository;
+        this.tokenRevocations = tokenRevocations;
+        this.userCache = userCache;
     }
 
     /**
@@ -45,9 +52,9 @@ public class RoleService implements IRoleService {
         User user = userRepository.findByPublicId(UUID.fromString(userPublicId))
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado com ID: " + userPublicId));
 
-        // 2. Retorna o Set de roles dele
+        // 2. Retorna uma cópia do Set de roles dele (não a coleção gerenciada pela entidade)
         // (Graças ao FetchType.EAGER no @ManyToMany, as roles já vêm juntas)
-        return user.getRoles();
+        return Set.copyOf(user.getRoles());
     }
 
     /**
@@ -70,6 +77,10 @@ public class RoleService implements IRoleService {
         // 4. Salva a entidade usuário
         // (O @Transactional cuida de salvar a relação na tabela 'user_roles')
         userRepository.save(user);
+
+        // 5. Os tokens antigos não têm a nova role: o usuário precisa de um novo login
+        userCache.evict(user);
+        tokenRevocations.revokeAll(user.getPublicId());
     }
 
     /**
@@ -13,7 +13,11 @@ import br.edu.fatecpg.usafa.features.consulta.enums.ConsultaStatus;
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "consultas")
+// Um médico só pode ter uma consulta por dia e horário (garantia final contra agendamento duplo).
+// O índice é criado pelo SchemaMigrationService (não há ddl-auto), que antes move as duplicatas.
+@Table(name = "consultas", uniqueConstraints = @UniqueConstraint(
+        name = "uk_consultas_medico_dia_horario",
+        columnNames = {"medico_id", "dia", "horario"}))
 public class Consulta {
 
     @Id
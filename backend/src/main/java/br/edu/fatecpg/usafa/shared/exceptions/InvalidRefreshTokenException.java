@@ -0,0 +1,22 @@
+package br.edu.fatecpg.usafa.shared.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exceção lançada quando um refresh token é inválido, expirou, foi revogado
+ * ou já tinha sido usado (possível roubo do token).
+ * * Mapeia para o status HTTP 401 (Unauthorized): o cliente deve fazer
+ * login novamente.
+ */
+@ResponseStatus(HttpStatus.UNAUTHORIZED)
+public class InvalidRefreshTokenException extends RuntimeException {
+
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+
+    public InvalidRefreshTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,22 @@
+package br.edu.fatecpg.usafa.shared.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exceção lançada quando o recurso pedido já foi tomado por outra requisição
+ * (ex: o horário do médico foi reservado por outro paciente).
+ * * Mapeia para o status HTTP 409 (Conflict). Repetir a mesma requisição não
+ * resolve; o cliente precisa escolher outro recurso.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ResourceConflictException extends RuntimeException {
+
+    public ResourceConflictException(String message) {
+        super(message);
+    }
+
+    public ResourceConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
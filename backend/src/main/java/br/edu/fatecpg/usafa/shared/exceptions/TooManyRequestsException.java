@@ -0,0 +1,22 @@
+package br.edu.fatecpg.usafa.shared.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exceção lançada quando o servidor recusa a requisição por excesso de carga
+ * ou de tentativas (ex: muitos logins seguidos do mesmo IP ou email).
+ * * Mapeia para o status HTTP 429 (Too Many Requests), indicando que o
+ * cliente deve esperar antes de tentar de novo.
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class TooManyRequestsException extends RuntimeException {
+
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+
+    public TooManyRequestsException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
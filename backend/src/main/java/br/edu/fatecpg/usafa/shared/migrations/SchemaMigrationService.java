@@ -0,0 +1,178 @@
+package br.edu.fatecpg.usafa.shared.migrations;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Migrações de esquema aplicadas na subida, antes do aquecimento.
+ *
+ * Roda em afterSingletonsInstantiated: depois que todos os beans foram criados e
+ * antes da fase de start do contexto, que é quando o Tomcat e os containers dos
+ * @RabbitListener começam a receber requisições e mensagens. Nenhuma solicitação
+ * é gravada antes dos índices únicos. Todas as etapas são idempotentes e podem
+ * rodar em várias instâncias ao mesmo tempo. Uma falha impede a subida: sem os
+ * índices únicos, o agendamento duplo volta a ser possível.
+ *
+ * Horário único do médico (uk_consultas_medico_dia_horario e
+ * uk_solicitacao_medico_dia_horario) e chave de idempotência única
+ * (uk_solicitacao_idempotency_key). Duplicatas que já existirem não são
+ * apagadas: a mais antiga (menor ID) fica, as demais são movidas para
+ * consultas_duplicadas / solicitacoes_consulta_duplicadas (com a data da
+ * migração), para o admin remarcar os pacientes. Só então o índice é criado.
+ */
+@Service
+@Slf4j
+public class SchemaMigrationService implements SmartInitializingSingleton {
+
+    private static final String SOLICITACOES = "solicitacoes_consulta";
+    private static final String SOLICITACOES_DUPLICADAS = "solicitacoes_consulta_duplicadas";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+
+    public SchemaMigrationService(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  MongoTemplate mongoTemplate,
+                                  @Value("${app.migrations.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrate();
+    }
+
+    public void migrate() {
+        if (!enabled) {
+            log.warn("Migrações desabilitadas (app.migrations.enabled=false). Os índices únicos não são verificados.");
+            return;
+        }
+        migrateConsultas();
+        migrateSolicitacoes();
+    }
+
+    /**
+     * Postgres: move as consultas duplicadas e cria o índice único do horário, numa transação.
+     */
+    private void migrateConsultas() {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Uma instância por vez (as outras esperam e encontram tudo pronto)
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('usafa.migrations.consultas'))");
+
+            Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass('consultas') IS NOT NULL", Boolean.class);
+            if (!Boolean.TRUE.equals(exists)) {
+                log.warn("Tabela 'consultas' não existe; migração do horário único ignorada.");
+                return;
+            }
+
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS consultas_duplicadas (LIKE consultas)");
+            jdbcTemplate.execute("ALTER TABLE consultas_duplicadas "
+                    + "ADD COLUMN IF NOT EXISTS movida_em TIMESTAMP NOT NULL DEFAULT now()");
+
+            // Fica a consulta mais antiga de cada horário; as outras vão para consultas_duplicadas
+            Integer moved = jdbcTemplate.queryForObject("""
+                    WITH movidas AS (
+                        DELETE FROM consultas c
+                        USING consultas mantida
+                        WHERE c.medico_id = mantida.medico_id
+                          AND c.dia = mantida.dia
+                          AND c.horario = mantida.horario
+                          AND c.id > mantida.id
+                        RETURNING c.*
+                    ), inseridas AS (
+                        INSERT INTO consultas_duplicadas SELECT movidas.*, now() FROM movidas
+                        RETURNING 1
+                    )
+                    SELECT count(*) FROM inseridas
+                    """, Integer.class);
+            if (moved != null && moved > 0) {
+                log.warn("{} consultas em horários já ocupados movidas para consultas_duplicadas.", moved);
+            }
+
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_consultas_medico_dia_horario "
+                    + "ON consultas (medico_id, dia, horario)");
+        });
+        log.info("Migração do Postgres aplicada: uk_consultas_medico_dia_horario.");
+    }
+
+    /**
+     * MongoDB: move as solicitações duplicadas e cria os índices únicos.
+     * (A criação automática de índices fica desligada: ela falharia com duplicatas.)
+     */
+    private void migrateSolicitacoes() {
+        MongoCollection<Document> solicitacoes = mongoTemplate.getCollection(SOLICITACOES);
+
+        int moved = moveDuplicates(solicitacoes, new Document("medicoPublicId", "$medicoPublicId")
+                .append("dia", "$dia")
+                .append("horario", "$horario"), Filters.exists("medicoPublicId"));
+        moved += moveDuplicates(solicitacoes, "$idempotencyKey", Filters.type("idempotencyKey", "string"));
+        if (moved > 0) {
+            log.warn("{} solicitações duplicadas movidas para {}.", moved, SOLICITACOES_DUPLICADAS);
+        }
+
+        solicitacoes.createIndex(Indexes.ascending("medicoPublicId", "dia", "horario"),
+                new IndexOptions().name("uk_solicitacao_medico_dia_horario").unique(true));
+        solicitacoes.createIndex(Indexes.ascending("idempotencyKey"),
+                new IndexOptions().name("uk_solicitacao_idempotency_key").unique(true).sparse(true));
+        log.info("Migração do MongoDB aplicada: uk_solicitacao_medico_dia_horario, uk_solicitacao_idempotency_key.");
+    }
+
+    /**
+     * Mantém o documento mais antigo (menor _id) de cada grupo e move os demais.
+     * A cópia é um upsert por _id, então repetir a migração após uma falha é seguro.
+     */
+    private int moveDuplicates(MongoCollection<Document> collection, Object groupKey, Bson filter) {
+        MongoCollection<Document> target = mongoTemplate.getCollection(SOLICITACOES_DUPLICADAS);
+        List<Bson> pipeline = List.of(
+                Aggregates.match(filter),
+                Aggregates.sort(Sorts.ascending("_id")),
+                Aggregates.group(groupKey, Accumulators.push("ids", "$_id"), Accumulators.sum("total", 1)),
+                Aggregates.match(Filters.gt("total", 1)));
+
+        int moved = 0;
+        for (Document group : collection.aggregate(pipeline).allowDiskUse(true)) {
+            List<Object> ids = group.getList("ids", Object.class);
+            List<Object> extras = ids.subList(1, ids.size());
+
+            List<ReplaceOneModel<Document>> copies = new ArrayList<>(extras.size());
+            Date movedAt = new Date();
+            for (Document duplicate : collection.find(Filters.in("_id", extras))) {
+                copies.add(new ReplaceOneModel<>(Filters.eq("_id", duplicate.get("_id")),
+                        duplicate.append("movidaEm", movedAt), new ReplaceOptions().upsert(true)));
+            }
+            if (!copies.isEmpty()) {
+                target.bulkWrite(copies);
+            }
+            collection.deleteMany(Filters.in("_id", extras));
+            moved += extras.size();
+        }
+        return moved;
+    }
+}
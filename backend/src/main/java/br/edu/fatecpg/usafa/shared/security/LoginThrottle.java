@@ -0,0 +1,76 @@
+package br.edu.fatecpg.usafa.shared.security;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import br.edu.fatecpg.usafa.shared.exceptions.TooManyRequestsException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Limite de tentativas de login por IP e por email, em janelas fixas no Redis.
+ *
+ * Os dois contadores são incrementados em um único script (uma ida ao Redis).
+ * Se o Redis estiver indisponível, o login segue sem limite: o
+ * PasswordHashingExecutor continua protegendo a CPU.
+ */
+@Component
+@Slf4j
+public class LoginThrottle {
+
+    private static final String IP_PREFIX = "auth:throttle:ip:";
+    private static final String EMAIL_PREFIX = "auth:throttle:email:";
+
+    // Incrementa cada chave (abrindo a janela no primeiro acesso) e devolve 1 se alguma passou do limite
+    private static final RedisScript<Long> HIT_SCRIPT = new DefaultRedisScript<>(
+            "local blocked = 0 "
+            + "for i, key in ipairs(KEYS) do "
+            + "  local count = redis.call('INCR', key) "
+            + "  if count == 1 then redis.call('PEXPIRE', key, ARGV[1]) end "
+            + "  if count > tonumber(ARGV[i + 1]) then blocked = 1 end "
+            + "end "
+            + "return blocked",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long windowMs;
+    private final int maxPerIp;
+    private final int maxPerEmail;
+
+    public LoginThrottle(StringRedisTemplate stringRedisTemplate,
+                         @Value("${app.auth.throttle.window-seconds:60}") long windowSeconds,
+                         @Value("${app.auth.throttle.max-per-ip:30}") int maxPerIp,
+                         @Value("${app.auth.throttle.max-per-email:10}") int maxPerEmail) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.windowMs = windowSeconds * 1000;
+        this.maxPerIp = maxPerIp;
+        this.maxPerEmail = maxPerEmail;
+    }
+
+    /**
+     * Registra a tentativa de login.
+     * @throws TooManyRequestsException se o IP ou o email passou do limite da janela.
+     */
+    public void check(String ip, String email) {
+        String normalizedEmail = email != null ? email.trim().toLowerCase(Locale.ROOT) : "";
+        Long blocked;
+        try {
+            blocked = stringRedisTemplate.execute(HIT_SCRIPT,
+                    List.of(IP_PREFIX + ip, EMAIL_PREFIX + normalizedEmail),
+                    Long.toString(windowMs), Integer.toString(maxPerIp), Integer.toString(maxPerEmail));
+        } catch (Exception e) {
+            log.warn("Falha ao verificar o limite de logins (IP: {}). Erro: {}", ip, e.getMessage());
+            return;
+        }
+
+        if (Long.valueOf(1L).equals(blocked)) {
+            log.warn("Limite de tentativas de login atingido (IP: {}, email: {})", ip, normalizedEmail);
+            throw new TooManyRequestsException("Muitas tentativas de login. Tente novamente em instantes.");
+        }
+    }
+}
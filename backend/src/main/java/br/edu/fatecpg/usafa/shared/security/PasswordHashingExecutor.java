@@ -0,0 +1,87 @@
+package br.edu.fatecpg.usafa.shared.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import br.edu.fatecpg.usafa.shared.exceptions.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pool limitado para o hash de senhas (BCrypt).
+ *
+ * O BCrypt é caro de propósito; rodando direto nas threads do Tomcat, uma
+ * rajada de logins ocupa todos os núcleos e trava até os endpoints baratos.
+ * Aqui, no máximo 'threads' hashes rodam ao mesmo tempo (por padrão, um a menos
+ * que os núcleos) e no máximo 'queue-size' esperam na fila; o excedente é
+ * recusado na hora com 429, sem prender mais threads do Tomcat.
+ *
+ * O pool é próprio (e não um bean Executor) para não substituir o executor
+ * padrão do Spring usado pelo @Async.
+ */
+@Component
+@Slf4j
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    public PasswordHashingExecutor(@Value("${app.auth.hashing.threads:0}") int threads,
+                                   @Value("${app.auth.hashing.queue-size:32}") int queueSize,
+                                   @Value("${app.auth.hashing.timeout-ms:5000}") long timeoutMs) {
+        // 0 = automático: deixa um núcleo livre para as demais requisições
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.timeoutMs = timeoutMs;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-hashing-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), threadFactory);
+    }
+
+    /**
+     * Executa o hash no pool e aguarda o resultado.
+     * @throws TooManyRequestsException se a fila estiver cheia ou o hash não
+     *         terminar dentro do tempo limite.
+     */
+    public <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Fila de hash de senhas cheia ({} aguardando). Requisição recusada.", executor.getQueue().size());
+            throw new TooManyRequestsException("Servidor ocupado. Tente novamente em instantes.", e);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new TooManyRequestsException("Servidor ocupado. Tente novamente em instantes.", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hash de senha interrompido.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Falha ao calcular o hash da senha.", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
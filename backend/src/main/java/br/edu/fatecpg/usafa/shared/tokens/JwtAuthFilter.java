@@ -2,13 +2,13 @@
 
 package br.edu.fatecpg.usafa.shared.tokens; // (Ajuste o package se necessário)
 
-import br.edu.fatecpg.usafa.features.caching.ICacheService; // 1. Importar
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -18,22 +18,35 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthFilter.class);
 
+    // Tempo máximo esperando a blocklist no Redis; sem resposta, o token é rejeitado
+    private static final long REDIS_TIMEOUT_MS = 500;
+
     private final JwtUtils jwtUtils;
     private final UserDetailsService userDetailsService;
-    private final ICacheService cacheService; // 2. Injetar ICacheService
+    private final TokenBlocklist tokenBlocklist; // 2. Blocklist com réplica local
+    private final TokenRevocationService tokenRevocations;
+
+    // true: tokens com "uid" viram a autenticação direto, sem carregar o usuário do banco
+    private final boolean statelessPrincipal;
 
     public JwtAuthFilter(JwtUtils jwtUtils, 
                          UserDetailsService userDetailsService,
-                         ICacheService cacheService) { // 3. Adicionar no construtor
+                         TokenBlocklist tokenBlocklist, // 3. Adicionar no construtor
+                         TokenRevocationService tokenRevocations,
+                         @Value("${app.jwt.stateless-principal:true}") boolean statelessPrincipal) {
         this.jwtUtils = jwtUtils;
         this.userDetailsService = userDetailsService;
-        this.cacheService = cacheService;
+        this.tokenBlocklist = tokenBlocklist;
+        this.tokenRevocations = tokenRevocations;
+        this.statelessPrincipal = statelessPrincipal;
     }
 
     @Override
@@ -52,36 +65,40 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         final String jwt = authHeader.substring(7);
 
         try {
-            final String username = jwtUtils.getUsernameFromToken(jwt);
+            // O token é lido e verificado (assinatura + expiração) uma única vez
+            final VerifiedToken token = jwtUtils.verify(jwt).orElse(null);
+            if (token == null || token.subject() == null
+                    || SecurityContextHolder.getContext().getAuthentication() != null) {
+                filterChain.doFilter(request, response);
+                return;
+            }
 
-            // 4. VERIFICAÇÃO DA BLOCKLIST (NOVA)
-            final String jti = jwtUtils.extractJti(jwt);
-            if (jti != null && cacheService.exists("blocklist:" + jti)) {
+            // 4. VERIFICAÇÃO DA BLOCKLIST (não bloqueante)
+            // Normalmente respondida pela réplica local; se ela estiver desatualizada,
+            // a consulta ao Redis é disparada agora e só é aguardada depois do
+            // restante do trabalho, sobrepondo as idas à rede.
+            final String jti = token.jti();
+            final CompletableFuture<Boolean> blocklisted = jti != null
+                    ? tokenBlocklist.isBlockedAsync(jti)
+                    : CompletableFuture.completedFuture(false);
+
+            final UsernamePasswordAuthenticationToken authToken = statelessPrincipal && token.userId() != null
+                    ? authenticateFromClaims(token)
+                    : authenticateFromDatabase(token);
+
+            if (Boolean.TRUE.equals(blocklisted.get(REDIS_TIMEOUT_MS, TimeUnit.MILLISECONDS))) {
                 // Se o JTI está no Redis, é um token deslogado. Rejeite.
                 logger.warn("Tentativa de uso de token invalidado (blocklist): {}", jti);
                 filterChain.doFilter(request, response);
                 return; // Rejeita e para o filtro
             }
 
-            // 5. Continua o fluxo normal (seu código original)
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-                // Validação extra (opcional, mas boa prática)
-                if (jwtUtils.validateToken(jwt)) { // Usando seu método de validação
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
+            if (authToken != null) {
+                authToken.setDetails(
+                        new WebAuthenticationDetailsSource().buildDetails(request)
+                );
 
-                    authToken.setDetails(
-                            new WebAuthenticationDetailsSource().buildDetails(request)
-                    );
-
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         } catch (Exception e) {
             logger.debug("Não foi possível autenticar o usuário com o token JWT: {}", e.getMessage());
@@ -89,4 +106,36 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Monta a autenticação só com as claims do token. Mudanças de roles ou da
+     * conta são garantidas pela revogação por usuário (TokenRevocationService),
+     * respondida pelo cache local na maioria das requisições.
+     * @return null se o token foi emitido antes da última revogação do usuário.
+     */
+    private UsernamePasswordAuthenticationToken authenticateFromClaims(VerifiedToken token) {
+        long issuedAt = token.issuedAt() != null ? token.issuedAt().toEpochMilli() : 0L;
+
+        if (tokenRevocations.isRevoked(token.userId(), issuedAt)) {
+            logger.warn("Token revogado rejeitado para o usuário {} (emitido em {})", token.userId(), token.issuedAt());
+            return null;
+        }
+
+        JwtPrincipal principal = JwtPrincipal.from(token);
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.authorities());
+    }
+
+    /**
+     * Fluxo original: carrega o usuário do banco (tokens sem "uid" ou modo stateless desligado).
+     */
+    private UsernamePasswordAuthenticationToken authenticateFromDatabase(VerifiedToken token) {
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(token.subject());
+
+        // O token já foi validado em jwtUtils.verify
+        return new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+        );
+    }
+}
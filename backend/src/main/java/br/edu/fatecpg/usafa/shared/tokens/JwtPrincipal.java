@@ -0,0 +1,37 @@
+package br.edu.fatecpg.usafa.shared.tokens;
+
+import java.util.List;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Usuário autenticado montado só com os dados do token (sem ir ao banco).
+ * authentication.getName() continua devolvendo o email, como antes.
+ *
+ * @param publicId O ID público do usuário.
+ * @param email    O email (subject do token).
+ * @param roles    As roles gravadas no token.
+ */
+public record JwtPrincipal(String publicId, String email, List<String> roles) implements AuthenticatedPrincipal {
+
+    public JwtPrincipal {
+        roles = roles != null ? List.copyOf(roles) : List.of();
+    }
+
+    public static JwtPrincipal from(VerifiedToken token) {
+        return new JwtPrincipal(token.userId(), token.subject(), token.roles());
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return roles.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+}
@@ -8,15 +8,16 @@ import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 
+import java.time.Instant;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID; // 1. Importar UUID
 import java.util.concurrent.TimeUnit; // 2. Importar TimeUnit
 import java.util.function.Function;
@@ -27,41 +28,115 @@ public class JwtUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
-    @Value("${app.jwt.secret}")
-    private String jwtSecret;
+    private static final String USER_ID_CLAIM = "uid";
+    // "iat" só tem segundos; a revogação por usuário compara em milissegundos
+    private static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
 
-    @Value("${app.jwt.expiration-ms}")
-    private long jwtExpirationMs;
+    private final long jwtExpirationMs;
+
+    // Construídos uma única vez: decodificar a chave e montar o parser a cada token é caro
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+
+    public JwtUtils(@Value("${app.jwt.secret}") String jwtSecret,
+                    @Value("${app.jwt.expiration-ms}") long jwtExpirationMs) {
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+    }
 
     /**
      * Gera um novo token JWT para um usuário.
      * MODIFICADO: Agora inclui um JTI (JWT ID)
      */
 
-    @Async
     public String generateToken(UserDetails userDetails) {
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
-        String jti = UUID.randomUUID().toString();
+        return generateToken(userDetails, null);
+    }
 
+    /**
+     * Gera um token que o JwtAuthFilter aceita sem carregar o usuário do banco:
+     * inclui o ID público do usuário (claim "uid").
+     */
+    public String generateToken(UserDetails userDetails, UUID userPublicId) {
         // 1. Pega as roles (autoridades) do UserDetails
         List<String> roles = userDetails.getAuthorities().stream()
                                 .map(GrantedAuthority::getAuthority)
                                 .collect(Collectors.toList());
 
-        return Jwts.builder()
-                .subject(userDetails.getUsername()) // Email
+        return generateToken(userDetails.getUsername(), userPublicId, roles);
+    }
+
+    /**
+     * Gera um token a partir dos dados já conhecidos do usuário, sem a entidade
+     * (usado na renovação pelo refresh token, que não consulta o banco).
+     */
+    public String generateToken(String email, UUID userPublicId, List<String> roles) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
+        String jti = UUID.randomUUID().toString();
+
+        JwtBuilder builder = Jwts.builder()
+                .subject(email) // Email
                 .id(jti)
                 .claim("roles", roles) // <-- MÁGICA AQUI: Adiciona as roles ao token
+                .claim(ISSUED_AT_MILLIS_CLAIM, now.getTime());
+
+        if (userPublicId != null) {
+            builder.claim(USER_ID_CLAIM, userPublicId.toString());
+        }
+
+        return builder
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
+    /**
+     * Verifica o token (assinatura e expiração) com uma única leitura e devolve
+     * os dados usados pela autenticação. Prefira este método a chamar
+     * getUsernameFromToken / extractJti / validateToken separadamente:
+     * cada um deles lê e verifica o token de novo.
+     * @return O token verificado, ou vazio se ele for inválido ou estiver expirado.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            return Optional.of(new VerifiedToken(
+                    claims.getSubject(),
+                    claims.getId(),
+                    claims.get(USER_ID_CLAIM, String.class),
+                    rolesOf(claims),
+                    issuedAtOf(claims),
+                    claims.getExpiration() != null ? claims.getExpiration().toInstant() : null));
+        } catch (ExpiredJwtException e) {
+            logger.debug("Token JWT expirado: {}", e.getMessage());
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Token JWT inválido: {}", e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    private static List<String> rolesOf(Claims claims) {
+        Object roles = claims.get("roles");
+        if (roles instanceof List<?> list) {
+            return list.stream().map(String::valueOf).collect(Collectors.toList());
+        }
+        return List.of();
+    }
+
+    // Tokens emitidos antes do "iat_ms" ficam com a precisão de segundos do "iat"
+    private static Instant issuedAtOf(Claims claims) {
+        Number millis = claims.get(ISSUED_AT_MILLIS_CLAIM, Number.class);
+        if (millis != null) {
+            return Instant.ofEpochMilli(millis.longValue());
+        }
+        return claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
+    }
+
     /**
      * Extrai o username (email) de um token JWT.
      */
-    @Async
     public String getUsernameFromToken(String token) {
         return getClaimFromToken(token, Claims::getSubject);
     }
@@ -108,10 +183,9 @@ public class JwtUtils {
 
     // --- MÉTODOS PRIVADOS (Seu código original) ---
 
-    @Async
     public boolean validateToken(String token) {
         try {
-            getParser().parseSignedClaims(token);
+            parser.parseSignedClaims(token);
             return true;
         } catch (MalformedJwtException e) {
             logger.error("Token JWT inválido: {}", e.getMessage());
@@ -129,16 +203,7 @@ public class JwtUtils {
     }
 
     private <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = getParser().parseSignedClaims(token).getPayload();
+        final Claims claims = parser.parseSignedClaims(token).getPayload();
         return claimsResolver.apply(claims);
     }
-
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(this.jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
-    private JwtParser getParser() {
-        return Jwts.parser().verifyWith(getSigningKey()).build();
-    }
 }
\ No newline at end of file
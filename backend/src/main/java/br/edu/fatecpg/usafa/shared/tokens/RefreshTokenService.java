@@ -0,0 +1,204 @@
+package br.edu.fatecpg.usafa.shared.tokens;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import br.edu.fatecpg.usafa.shared.exceptions.InvalidRefreshTokenException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Refresh tokens rotativos, guardados no Redis.
+ *
+ * Cada login abre uma "família" ("auth:refresh:{familyId}", um hash com os dados
+ * do usuário e o hash do refresh token atual). O token entregue ao cliente é
+ * "{familyId}.{segredo}" e só o SHA-256 do segredo fica no Redis.
+ *
+ * A renovação é um único script no Redis, sem senha e sem escrita na tabela users:
+ * - Segredo atual: é trocado por um novo e a validade da família é renovada.
+ * - Segredo antigo (token reutilizado, possível roubo): a família inteira é apagada.
+ * - Família inexistente: expirou ou foi revogada.
+ *
+ * As famílias de cada usuário ficam registradas em "auth:refresh-user:{publicId}".
+ * TokenRevocationService.revokeAll apaga todas elas, e famílias abertas antes de
+ * uma revogação também deixam de valer, para que roles alteradas (ou uma conta
+ * removida) não voltem pela renovação.
+ */
+@Component
+@Slf4j
+public class RefreshTokenService {
+
+    private static final String FAMILY_PREFIX = "auth:refresh:";
+    private static final String USER_FAMILIES_PREFIX = "auth:refresh-user:";
+    private static final char SEPARATOR = '.';
+    private static final int SECRET_BYTES = 32;
+
+    private static final long ROTATED = 1L;
+    private static final long REUSED = -1L;
+
+    // Devolve {1, uid, email, roles, created} na rotação, {-1} em reuso e {0} se a família não existe
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ROTATE_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('HGET', KEYS[1], 'current') "
+            + "if not current then return {0} end "
+            + "if current ~= ARGV[1] then redis.call('DEL', KEYS[1]) return {-1} end "
+            + "redis.call('HSET', KEYS[1], 'current', ARGV[2]) "
+            + "redis.call('PEXPIRE', KEYS[1], ARGV[3]) "
+            + "local data = redis.call('HMGET', KEYS[1], 'uid', 'email', 'roles', 'created') "
+            + "return {1, data[1], data[2], data[3], data[4]}",
+            List.class);
+
+    // Só apaga a família se o segredo for o atual
+    private static final RedisScript<Long> REVOKE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[1], 'current') == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final SecureRandom random = new SecureRandom();
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TokenRevocationService tokenRevocations;
+    private final Duration ttl;
+
+    public RefreshTokenService(StringRedisTemplate stringRedisTemplate,
+                               TokenRevocationService tokenRevocations,
+                               @Value("${app.jwt.refresh.ttl-days:14}") long ttlDays) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.tokenRevocations = tokenRevocations;
+        this.ttl = Duration.ofDays(ttlDays);
+    }
+
+    /**
+     * Abre uma nova sessão (família) para o usuário.
+     * @return O refresh token a ser entregue ao cliente.
+     */
+    public String issue(UUID userPublicId, String email, List<String> roles) {
+        String familyId = UUID.randomUUID().toString();
+        String secret = newSecret();
+        String key = FAMILY_PREFIX + familyId;
+
+        stringRedisTemplate.opsForHash().putAll(key, Map.of(
+                "current", hash(secret),
+                "uid", userPublicId.toString(),
+                "email", email,
+                "roles", String.join(",", roles),
+                "created", Long.toString(Instant.now().toEpochMilli())));
+        stringRedisTemplate.expire(key, ttl);
+
+        String userKey = USER_FAMILIES_PREFIX + userPublicId;
+        stringRedisTemplate.opsForSet().add(userKey, familyId);
+        stringRedisTemplate.expire(userKey, ttl);
+
+        return familyId + SEPARATOR + secret;
+    }
+
+    /**
+     * Troca o refresh token por um novo (o apresentado deixa de valer).
+     * @throws InvalidRefreshTokenException se o token for inválido, tiver expirado,
+     *         tiver sido revogado ou já tiver sido usado.
+     */
+    public RefreshTokenSession rotate(String refreshToken) {
+        String[] parts = split(refreshToken);
+        String key = FAMILY_PREFIX + parts[0];
+        String newSecret = newSecret();
+
+        List<?> result = stringRedisTemplate.execute(ROTATE_SCRIPT, List.of(key),
+                hash(parts[1]), hash(newSecret), Long.toString(ttl.toMillis()));
+
+        long status = result != null && !result.isEmpty() ? ((Number) result.get(0)).longValue() : 0L;
+        if (status == REUSED) {
+            log.warn("Refresh token reutilizado. Sessão {} revogada.", parts[0]);
+            throw new InvalidRefreshTokenException("Sessão encerrada. Faça login novamente.");
+        }
+        if (status != ROTATED) {
+            throw new InvalidRefreshTokenException("Sessão expirada. Faça login novamente.");
+        }
+
+        String userId = (String) result.get(1);
+        long createdAt = Long.parseLong((String) result.get(4));
+        if (tokenRevocations.isRevoked(userId, createdAt)) {
+            stringRedisTemplate.delete(key);
+            throw new InvalidRefreshTokenException("Sessão revogada. Faça login novamente.");
+        }
+
+        // O registro das famílias do usuário vive tanto quanto a família mais recente
+        try {
+            stringRedisTemplate.expire(USER_FAMILIES_PREFIX + userId, ttl);
+        } catch (Exception e) {
+            log.warn("Falha ao renovar o registro de sessões do usuário {}. Erro: {}", userId, e.getMessage());
+        }
+
+        String roles = (String) result.get(3);
+        return new RefreshTokenSession(
+                userId,
+                (String) result.get(2),
+                roles == null || roles.isEmpty() ? List.of() : Arrays.asList(roles.split(",")),
+                parts[0] + SEPARATOR + newSecret);
+    }
+
+    /**
+     * Encerra a sessão do refresh token (logout). Tokens inválidos são ignorados.
+     */
+    public void revoke(String refreshToken) {
+        try {
+            String[] parts = split(refreshToken);
+            stringRedisTemplate.execute(REVOKE_SCRIPT, List.of(FAMILY_PREFIX + parts[0]), hash(parts[1]));
+        } catch (InvalidRefreshTokenException e) {
+            // Nada a revogar
+        } catch (Exception e) {
+            log.warn("Falha ao revogar o refresh token. Erro: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Apaga todas as famílias (sessões) do usuário. Usado por TokenRevocationService.revokeAll.
+     * Só os IDs lidos são removidos do registro: uma família aberta logo depois continua registrada.
+     * @return Quantas famílias estavam registradas.
+     */
+    static int deleteUserFamilies(StringRedisTemplate stringRedisTemplate, String userPublicId) {
+        String userKey = USER_FAMILIES_PREFIX + userPublicId;
+        Set<String> familyIds = stringRedisTemplate.opsForSet().members(userKey);
+        if (familyIds == null || familyIds.isEmpty()) {
+            return 0;
+        }
+        stringRedisTemplate.delete(familyIds.stream().map(id -> FAMILY_PREFIX + id).toList());
+        stringRedisTemplate.opsForSet().remove(userKey, familyIds.toArray());
+        return familyIds.size();
+    }
+
+    private static String[] split(String refreshToken) {
+        int separatorIndex = refreshToken != null ? refreshToken.indexOf(SEPARATOR) : -1;
+        if (separatorIndex <= 0 || separatorIndex == refreshToken.length() - 1) {
+            throw new InvalidRefreshTokenException("Refresh token inválido.");
+        }
+        return new String[] { refreshToken.substring(0, separatorIndex), refreshToken.substring(separatorIndex + 1) };
+    }
+
+    private String newSecret() {
+        byte[] bytes = new byte[SECRET_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String hash(String secret) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível.", e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package br.edu.fatecpg.usafa.shared.tokens;
+
+import java.util.List;
+
+/**
+ * Resultado de uma renovação: os dados do usuário guardados na sessão e o
+ * novo refresh token (o anterior deixa de valer).
+ *
+ * @param userId       O ID público do usuário.
+ * @param email        O email do usuário.
+ * @param roles        As roles do usuário no login.
+ * @param refreshToken O novo refresh token.
+ */
+public record RefreshTokenSession(String userId, String email, List<String> roles, String refreshToken) {
+
+    public RefreshTokenSession {
+        roles = roles != null ? List.copyOf(roles) : List.of();
+    }
+}
@@ -0,0 +1,159 @@
+package br.edu.fatecpg.usafa.shared.tokens;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import br.edu.fatecpg.usafa.features.caching.IAsyncCacheService;
+import br.edu.fatecpg.usafa.features.caching.ICacheService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Blocklist de tokens (logout) com uma réplica local em cada instância.
+ *
+ * O Redis continua sendo a fonte da verdade ("blocklist:{jti}" com o tempo
+ * restante do token), mas o JwtAuthFilter consulta só a réplica em memória:
+ * - Um logout grava no Redis e avisa as outras instâncias via Pub/Sub.
+ * - A réplica é reconstruída periodicamente (SCAN), cobrindo mensagens perdidas
+ *   e instâncias que subiram depois do logout.
+ * - Cada JTI sai da réplica quando o token dele expiraria.
+ *
+ * Enquanto a réplica não foi sincronizada (ou está velha demais, ex: Redis fora),
+ * a verificação volta a ir ao Redis, que rejeita o token se não responder.
+ */
+@Component
+@Slf4j
+public class TokenBlocklist implements MessageListener {
+
+    public static final String CHANNEL = "auth:blocklist";
+    private static final String KEY_PREFIX = "blocklist:";
+    private static final char SEPARATOR = '|';
+    private static final int SCAN_BATCH = 1000;
+
+    // JTI -> quando o token expira (epoch ms)
+    private final Map<String, Long> replica = new ConcurrentHashMap<>();
+
+    private final ICacheService cacheService;
+    private final IAsyncCacheService asyncCacheService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long maxStalenessMs;
+
+    // 0 = nunca sincronizada
+    private volatile long lastSyncAt;
+
+    public TokenBlocklist(ICacheService cacheService,
+                          IAsyncCacheService asyncCacheService,
+                          StringRedisTemplate stringRedisTemplate,
+                          RedisMessageListenerContainer listenerContainer,
+                          @Value("${app.jwt.blocklist.sync-ms:60000}") long syncMs) {
+        this.cacheService = cacheService;
+        this.asyncCacheService = asyncCacheService;
+        this.stringRedisTemplate = stringRedisTemplate;
+        // Tolera algumas sincronizações falhas antes de voltar a consultar o Redis
+        this.maxStalenessMs = syncMs * 3;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Bloqueia o token até a sua expiração e avisa as outras instâncias.
+     */
+    public void block(String jti, long remainingSeconds) {
+        long expiresAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(remainingSeconds);
+
+        cacheService.saveWithTtl(KEY_PREFIX + jti, "blocked", remainingSeconds, TimeUnit.SECONDS);
+        replica.put(jti, expiresAt);
+
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, jti + SEPARATOR + expiresAt);
+        } catch (Exception e) {
+            // A próxima sincronização leva o JTI às outras instâncias
+            log.warn("Falha ao publicar o logout do token {}. Erro: {}", jti, e.getMessage());
+        }
+    }
+
+    /**
+     * @return true se o token foi deslogado. Com a réplica em dia, responde sem ir ao Redis.
+     */
+    public CompletableFuture<Boolean> isBlockedAsync(String jti) {
+        if (System.currentTimeMillis() - lastSyncAt > maxStalenessMs) {
+            return asyncCacheService.existsAsync(KEY_PREFIX + jti);
+        }
+        return CompletableFuture.completedFuture(isBlockedLocally(jti));
+    }
+
+    private boolean isBlockedLocally(String jti) {
+        Long expiresAt = replica.get(jti);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Reconstrói a réplica a partir do Redis e remove os JTIs de tokens já expirados.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.blocklist.sync-ms:60000}")
+    public void sync() {
+        long startedAt = System.currentTimeMillis();
+        try {
+            List<String> keys = new ArrayList<>();
+            ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(SCAN_BATCH).build();
+            try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+                cursor.forEachRemaining(keys::add);
+            }
+
+            // Tempo restante de cada chave, em uma única ida ao Redis
+            List<Object> ttls = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : keys) {
+                    connection.keyCommands().pTtl(key.getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+
+            Map<String, Long> synced = new HashMap<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                if (ttls.get(i) instanceof Long ttl && ttl > 0) {
+                    synced.put(keys.get(i).substring(KEY_PREFIX.length()), startedAt + ttl);
+                }
+            }
+
+            // Entradas nunca saem do Redis antes de expirar, então mesclar é seguro
+            // (e preserva logouts recebidos pelo Pub/Sub durante o SCAN)
+            replica.putAll(synced);
+            replica.values().removeIf(expiresAt -> expiresAt <= startedAt);
+            lastSyncAt = startedAt;
+            log.debug("Blocklist local sincronizada: {} tokens.", replica.size());
+
+        } catch (Exception e) {
+            log.warn("Falha ao sincronizar a blocklist local. Erro: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separatorIndex = body.indexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+            return;
+        }
+        try {
+            replica.put(body.substring(0, separatorIndex), Long.parseLong(body.substring(separatorIndex + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("Mensagem de logout inválida ignorada: {}", body);
+        }
+    }
+}
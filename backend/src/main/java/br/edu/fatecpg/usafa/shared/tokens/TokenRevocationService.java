@@ -0,0 +1,122 @@
+package br.edu.fatecpg.usafa.shared.tokens;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Revogação de todos os tokens de um usuário ("tokens emitidos antes de X são inválidos").
+ *
+ * O Redis guarda um único valor por usuário ("token-revoked-before-ms:{publicId}",
+ * em epoch milissegundos), então revogar todas as sessões é O(1), independente de
+ * quantos tokens existam. O JwtAuthFilter compara esse instante com o instante de
+ * emissão do token (claim "iat_ms"; o "iat" padrão só tem segundos e deixaria
+ * passar um login feito no mesmo segundo da revogação).
+ *
+ * A revogação também apaga as sessões de refresh token do usuário
+ * (RefreshTokenService), e o valor no Redis vive tanto quanto uma sessão de
+ * refresh: uma família que escapar da remoção continua barrada na renovação.
+ *
+ * O valor fica em cache na instância (usuários sem revogação ficam como 0) e uma
+ * revogação é enviada às outras instâncias via Pub/Sub. O TTL local limita o
+ * tempo de desatualização caso uma mensagem se perca.
+ */
+@Component
+@Slf4j
+public class TokenRevocationService implements MessageListener {
+
+    public static final String CHANNEL = "auth:revocations-ms";
+    private static final String KEY_PREFIX = "token-revoked-before-ms:";
+    private static final char SEPARATOR = '|';
+
+    private final StringRedisTemplate stringRedisTemplate;
+    // Depois da validade do token de acesso e da sessão de refresh, a revogação não tem mais o que barrar
+    private final Duration revocationTtl;
+
+    // publicId -> tokens emitidos até este instante (epoch milissegundos) são inválidos
+    private final Cache<String, Long> revokedBefore;
+    // Guardado em um campo para que a leitura no cache não aloque um lambda por requisição
+    private final Function<String, Long> loader = this::load;
+
+    public TokenRevocationService(StringRedisTemplate stringRedisTemplate,
+                                  RedisMessageListenerContainer listenerContainer,
+                                  @Value("${app.jwt.expiration-ms}") long jwtExpirationMs,
+                                  @Value("${app.jwt.refresh.ttl-days:14}") long refreshTtlDays,
+                                  @Value("${app.jwt.revocation.local-ttl-seconds:300}") long localTtlSeconds,
+                                  @Value("${app.jwt.revocation.local-max-size:100000}") long localMaxSize) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        Duration accessTtl = Duration.ofMillis(jwtExpirationMs);
+        Duration refreshTtl = Duration.ofDays(refreshTtlDays);
+        this.revocationTtl = accessTtl.compareTo(refreshTtl) > 0 ? accessTtl : refreshTtl;
+        this.revokedBefore = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtlSeconds, TimeUnit.SECONDS)
+                .build();
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * @param issuedAtEpochMillis Emissão do token; no empate com a revogação, ela vence.
+     * @return true se o token foi emitido antes da última revogação do usuário.
+     *         Só vai ao Redis quando o usuário não está no cache local; uma falha
+     *         nessa leitura é propagada (o token não é aceito).
+     */
+    public boolean isRevoked(String userPublicId, long issuedAtEpochMillis) {
+        long before = revokedBefore.get(userPublicId, loader);
+        return before > 0 && issuedAtEpochMillis <= before;
+    }
+
+    /**
+     * Invalida todos os tokens já emitidos para o usuário e encerra as sessões de refresh.
+     * Chame sempre que as roles ou os dados de login (ex: email) mudarem, ou a conta for removida.
+     */
+    public void revokeAll(UUID userPublicId) {
+        String userId = userPublicId.toString();
+        long now = Instant.now().toEpochMilli();
+
+        revokedBefore.put(userId, now);
+        try {
+            stringRedisTemplate.opsForValue().set(KEY_PREFIX + userId, Long.toString(now), revocationTtl);
+            stringRedisTemplate.convertAndSend(CHANNEL, userId + SEPARATOR + now);
+            int sessions = RefreshTokenService.deleteUserFamilies(stringRedisTemplate, userId);
+            log.info("Tokens do usuário {} emitidos antes de {} invalidados ({} sessões encerradas).", userId, now, sessions);
+        } catch (Exception e) {
+            log.error("Falha ao invalidar os tokens do usuário {}. Erro: {}", userId, e.getMessage());
+        }
+    }
+
+    private Long load(String userPublicId) {
+        String value = stringRedisTemplate.opsForValue().get(KEY_PREFIX + userPublicId);
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separatorIndex = body.indexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+            return;
+        }
+        try {
+            revokedBefore.put(body.substring(0, separatorIndex), Long.parseLong(body.substring(separatorIndex + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("Mensagem de revogação inválida ignorada: {}", body);
+        }
+    }
+}
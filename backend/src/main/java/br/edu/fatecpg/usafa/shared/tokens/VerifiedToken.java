@@ -0,0 +1,24 @@
+package br.edu.fatecpg.usafa.shared.tokens;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Visão imutável de um token JWT já verificado (assinatura e expiração).
+ * Produzido por JwtUtils.verify, com uma única leitura do token, e usado
+ * durante todo o JwtAuthFilter.
+ *
+ * @param subject   O email do usuário.
+ * @param jti       O ID do token (usado na blocklist do logout).
+ * @param userId    O ID público do usuário (null em tokens emitidos sem ele).
+ * @param roles     As roles gravadas no token (ex: "ROLE_USER").
+ * @param issuedAt  Quando o token foi emitido (comparado com TokenRevocationService).
+ * @param expiresAt Quando o token expira.
+ */
+public record VerifiedToken(String subject, String jti, String userId,
+                            List<String> roles, Instant issuedAt, Instant expiresAt) {
+
+    public VerifiedToken {
+        roles = roles != null ? List.copyOf(roles) : List.of();
+    }
+}
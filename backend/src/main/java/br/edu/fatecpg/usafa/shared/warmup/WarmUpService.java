@@ -0,0 +1,129 @@
+package br.edu.fatecpg.usafa.shared.warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import br.edu.fatecpg.usafa.features.Admin.interfaces.IDoctorService;
+import br.edu.fatecpg.usafa.features.consulta.interfaces.IConsultaService;
+import br.edu.fatecpg.usafa.features.consulta.services.AvailabilityIndex;
+import br.edu.fatecpg.usafa.shared.tokens.JwtUtils;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Aquecimento da instância antes de ela receber tráfego.
+ *
+ * É executado pelo UsafaApplication.run (CommandLineRunner). O Spring só
+ * publica a readiness ACCEPTING_TRAFFIC depois que os runners terminam, então
+ * o probe /actuator/health/readiness só fica UP quando o aquecimento acaba ou
+ * o orçamento de tempo (app.warmup.budget-ms) se esgota.
+ *
+ * Etapas:
+ * 1. Cache: CONSULTA_FORM_OPTIONS (inclui médicos e tipos de consulta) e doctors:all,
+ *    pelos próprios serviços (o L1 e o Redis ficam populados), e o índice de
+ *    disponibilidade (horários ocupados).
+ * 2. JIT: gera e valida tokens JWT em laço, exercitando o caminho de todas as requisições.
+ *
+ * Uma falha no aquecimento nunca impede a aplicação de subir.
+ */
+@Service
+@Slf4j
+public class WarmUpService {
+
+    private static final UserDetails WARM_UP_USER = User.withUsername("warmup@usafa.local")
+            .password("")
+            .authorities("ROLE_USER")
+            .build();
+
+    private final IConsultaService consultaService;
+    private final IDoctorService doctorService;
+    private final AvailabilityIndex availabilityIndex;
+    private final JwtUtils jwtUtils;
+    private final boolean enabled;
+    private final long budgetMillis;
+    private final int jwtIterations;
+
+    public WarmUpService(IConsultaService consultaService,
+                         IDoctorService doctorService,
+                         AvailabilityIndex availabilityIndex,
+                         JwtUtils jwtUtils,
+                         @Value("${app.warmup.enabled:true}") boolean enabled,
+                         @Value("${app.warmup.budget-ms:15000}") long budgetMillis,
+                         @Value("${app.warmup.jwt-iterations:500}") int jwtIterations) {
+        this.consultaService = consultaService;
+        this.doctorService = doctorService;
+        this.availabilityIndex = availabilityIndex;
+        this.jwtUtils = jwtUtils;
+        this.enabled = enabled;
+        this.budgetMillis = budgetMillis;
+        this.jwtIterations = jwtIterations;
+    }
+
+    /**
+     * Executa o aquecimento e espera no máximo o orçamento de tempo.
+     * Se o orçamento estourar, o aquecimento continua em background e a
+     * instância passa a receber tráfego assim mesmo.
+     */
+    public void warmUp() {
+        if (!enabled) {
+            log.info("Aquecimento desabilitado (app.warmup.enabled=false).");
+            return;
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> warmUp = CompletableFuture.runAsync(this::runSteps, warmUpThread());
+
+        try {
+            warmUp.get(budgetMillis, TimeUnit.MILLISECONDS);
+            log.info("Aquecimento concluído em {} ms.", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (TimeoutException e) {
+            log.warn("Aquecimento não terminou em {} ms. Liberando o tráfego assim mesmo.", budgetMillis);
+        } catch (ExecutionException e) {
+            log.warn("Falha no aquecimento. Liberando o tráfego assim mesmo. Erro: {}", e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runSteps() {
+        // 1. Caches de dados de referência
+        runStep("opções do formulário", consultaService::getFormOptions);
+        runStep("lista de médicos", doctorService::getAllDoctors);
+        runStep("índice de disponibilidade", availabilityIndex::rebuild);
+
+        // 2. Caminho quente do JWT (mesmo trabalho feito pelo JwtAuthFilter)
+        runStep("JWT", () -> {
+            for (int i = 0; i < jwtIterations; i++) {
+                jwtUtils.verify(jwtUtils.generateToken(WARM_UP_USER));
+            }
+        });
+    }
+
+    /**
+     * Uma etapa que falha (ex: banco ainda indisponível) não impede as seguintes.
+     */
+    private void runStep(String name, Runnable step) {
+        long start = System.nanoTime();
+        try {
+            step.run();
+            log.debug("Aquecimento: {} em {} ms.", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.warn("Aquecimento: falha na etapa '{}'. Erro: {}", name, e.getMessage());
+        }
+    }
+
+    private static Executor warmUpThread() {
+        return runnable -> {
+            Thread thread = new Thread(runnable, "warm-up");
+            thread.setDaemon(true);
+            thread.start();
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package br.edu.fatecpg.usafa;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Base para testes que precisam de um Redis de verdade (ex: scripts Lua).
+ *
+ * Um único container é iniciado para toda a execução e limpo antes de cada teste.
+ * Sem Docker disponível, os testes que estendem esta classe são ignorados.
+ */
+public abstract class RedisTestSupport {
+
+    private static GenericContainer<?> redis;
+
+    protected static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void startRedis() {
+        assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Docker indisponível: teste com Redis ignorado.");
+        synchronized (RedisTestSupport.class) {
+            if (redis != null) {
+                return;
+            }
+            redis = new GenericContainer<>(DockerImageName.parse("redis:alpine")).withExposedPorts(6379);
+            redis.start();
+
+            LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                    new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            redisTemplate = new StringRedisTemplate(connectionFactory);
+        }
+    }
+
+    @BeforeEach
+    void flushRedis() {
+        try (RedisConnection connection = redisTemplate.getRequiredConnectionFactory().getConnection()) {
+            connection.serverCommands().flushAll();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package br.edu.fatecpg.usafa.features.auth.utilis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import br.edu.fatecpg.usafa.features.auth.repositories.IUserRepository;
+import br.edu.fatecpg.usafa.features.caching.ICacheService;
+import br.edu.fatecpg.usafa.shared.tokens.JwtPrincipal;
+
+class UserUtilsTest {
+
+    private final UUID publicId = UUID.randomUUID();
+    private final UserCache userCache = mock(UserCache.class);
+    private final ICacheService cacheService = mock(ICacheService.class);
+    private final UserUtils userUtils = new UserUtils(userCache, mock(IUserRepository.class), cacheService);
+
+    @Test
+    void locallyCachedUserSkipsNegativeCache() {
+        UserSnapshot snapshot = new UserSnapshot(1L, publicId, "Ana", "ana@usafa.com", Set.of("ROLE_USER"));
+        when(userCache.findCachedByPublicId(publicId)).thenReturn(Optional.of(snapshot));
+
+        assertThat(userUtils.getUserFromAuthentication(authentication())).contains(snapshot);
+
+        verifyNoInteractions(cacheService);
+        verify(userCache, never()).findByPublicId(publicId);
+    }
+
+    @Test
+    void localMissChecksNegativeCacheBeforeDatabase() {
+        when(userCache.findCachedByPublicId(publicId)).thenReturn(Optional.empty());
+        when(cacheService.isNotFound(anyString())).thenReturn(true);
+
+        assertThat(userUtils.getUserFromAuthentication(authentication())).isEmpty();
+
+        verify(userCache, never()).findByPublicId(publicId);
+    }
+
+    @Test
+    void missingUserIsRememberedAsNotFound() {
+        when(userCache.findCachedByPublicId(publicId)).thenReturn(Optional.empty());
+        when(userCache.findByPublicId(publicId)).thenReturn(Optional.empty());
+
+        assertThat(userUtils.getUserFromAuthentication(authentication())).isEmpty();
+
+        verify(cacheService).saveNotFound(anyString());
+    }
+
+    private Authentication authentication() {
+        JwtPrincipal principal = new JwtPrincipal(publicId.toString(), "ana@usafa.com", List.of("ROLE_USER"));
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.authorities());
+    }
+}
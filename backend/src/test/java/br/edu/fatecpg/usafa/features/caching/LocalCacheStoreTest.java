@@ -0,0 +1,37 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class LocalCacheStoreTest {
+
+    private final LocalCacheStore store = new LocalCacheStore(100, 30);
+
+    @Test
+    void putIfNotEvictedSinceStoresWhenNothingWasEvicted() {
+        long epoch = store.evictionEpoch();
+
+        store.putIfNotEvictedSince("usuario:1", "valor", epoch);
+        store.putIfNotEvictedSince("usuario:2", "valor", 10, TimeUnit.SECONDS, epoch);
+
+        assertThat(store.get("usuario:1")).isEqualTo("valor");
+        assertThat(store.get("usuario:2")).isEqualTo("valor");
+    }
+
+    @Test
+    void putIfNotEvictedSinceSkipsValueReadBeforeAnEviction() {
+        long epoch = store.evictionEpoch();
+        store.evict("usuario:1");
+        store.evictAll(List.of("usuario:2"));
+
+        store.putIfNotEvictedSince("usuario:1", "antigo", epoch);
+        store.putIfNotEvictedSince("usuario:2", "antigo", 10, TimeUnit.SECONDS, epoch);
+
+        assertThat(store.get("usuario:1")).isNull();
+        assertThat(store.get("usuario:2")).isNull();
+    }
+}
@@ -0,0 +1,63 @@
+package br.edu.fatecpg.usafa.features.caching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class NearCacheServiceTest {
+
+    private final LocalCacheStore localCache = new LocalCacheStore(100, 30);
+    private final CacheService remoteCache = mock(CacheService.class);
+    private final NearCacheService service = new NearCacheService(localCache, remoteCache,
+            mock(CacheInvalidationBus.class), mock(CacheLease.class), mock(CacheRefresher.class),
+            mock(CacheTagRegistry.class), new CacheMetrics(), new ObjectMapper(), 5000, 3000);
+
+    @Test
+    void redisHitIsCopiedToLocalCache() {
+        when(remoteCache.get(eq("usuario:1"), any(JavaType.class))).thenReturn("Ana");
+
+        assertThat(service.get("usuario:1", String.class)).isEqualTo("Ana");
+        assertThat(service.get("usuario:1", String.class)).isEqualTo("Ana");
+
+        verify(remoteCache, times(1)).get(eq("usuario:1"), any(JavaType.class));
+    }
+
+    @Test
+    void invalidationDuringRedisReadKeepsValueOutOfLocalCache() {
+        // O delete (local ou via Pub/Sub) chega enquanto o GET ao Redis está em andamento
+        when(remoteCache.get(eq("usuario:1"), any(JavaType.class))).thenAnswer(invocation -> {
+            localCache.evictAll(List.of("usuario:1"));
+            return "Ana (antigo)";
+        });
+
+        assertThat(service.get("usuario:1", String.class)).isEqualTo("Ana (antigo)");
+
+        assertThat(localCache.get("usuario:1")).isNull();
+    }
+
+    @Test
+    void invalidationDuringBatchReadKeepsValuesOutOfLocalCache() {
+        when(remoteCache.getMany(anyCollection(), any(JavaType.class))).thenAnswer(invocation -> {
+            localCache.evict("usuario:2");
+            return Map.of("usuario:1", "Ana", "usuario:2", "Bruno");
+        });
+
+        assertThat(service.getMany(List.of("usuario:1", "usuario:2"), String.class)).hasSize(2);
+
+        assertThat(localCache.get("usuario:1")).isNull();
+        assertThat(localCache.get("usuario:2")).isNull();
+    }
+}
@@ -0,0 +1,61 @@
+package br.edu.fatecpg.usafa.features.consulta.dtos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
+import org.junit.jupiter.api.Test;
+
+class ConsultaSlotTest {
+
+    @Test
+    void parseDiaAcceptsFormAndIsoFormats() {
+        assertThat(ConsultaSlot.parseDia("12/11/2025")).isEqualTo(LocalDate.of(2025, 11, 12));
+        assertThat(ConsultaSlot.parseDia("2025-11-12")).isEqualTo(LocalDate.of(2025, 11, 12));
+    }
+
+    @Test
+    void parseDiaRejectsOtherFormats() {
+        assertThatThrownBy(() -> ConsultaSlot.parseDia("11-12-2025")).isInstanceOf(DateTimeParseException.class);
+        assertThatThrownBy(() -> ConsultaSlot.parseDia("31/02/2025")).isInstanceOf(DateTimeParseException.class);
+    }
+
+    @Test
+    void sameSlotHasSameKeyWithOrWithoutSeconds() {
+        ConsultaSlot semSegundos = ConsultaSlot.of(request("medico", "12/11/2025", "14:30"));
+        ConsultaSlot comSegundos = ConsultaSlot.of(request("medico", "2025-11-12", "14:30:00"));
+
+        assertThat(comSegundos).isEqualTo(semSegundos);
+        assertThat(comSegundos.key()).isEqualTo(semSegundos.key());
+    }
+
+    @Test
+    void medicoIdIsUsedAsIs() {
+        ConsultaSlot slot = ConsultaSlot.of(request("crm-sp-123456", "12/11/2025", "14:30"));
+
+        assertThat(slot.medicoPublicId()).isEqualTo("crm-sp-123456");
+        assertThat(slot.horario()).isEqualTo(LocalTime.of(14, 30));
+    }
+
+    @Test
+    void blankMedicoIdOrInvalidHorarioIsRejected() {
+        assertThatThrownBy(() -> ConsultaSlot.of(request(" ", "12/11/2025", "14:30")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConsultaSlot.of(request(null, "12/11/2025", "14:30")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConsultaSlot.of(request("medico", "12/11/2025", "25:00")))
+                .isInstanceOf(DateTimeParseException.class);
+    }
+
+    private static ConsultaRequestDTO request(String medicoId, String dia, String horario) {
+        ConsultaRequestDTO request = new ConsultaRequestDTO();
+        request.setMedicoId(medicoId);
+        request.setTipoId("tipo");
+        request.setDia(dia);
+        request.setHorario(horario);
+        return request;
+    }
+}
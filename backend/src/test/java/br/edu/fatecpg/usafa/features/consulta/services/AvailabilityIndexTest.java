@@ -0,0 +1,168 @@
+package br.edu.fatecpg.usafa.features.consulta.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import br.edu.fatecpg.usafa.document.ConsultaDocument;
+import br.edu.fatecpg.usafa.features.Admin.repositories.IMedicoRepository;
+import br.edu.fatecpg.usafa.features.consulta.dtos.AvailabilityDTO;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaSlot;
+import br.edu.fatecpg.usafa.features.consulta.repositories.ConsultaDocumentRepository;
+import br.edu.fatecpg.usafa.features.consulta.repositories.IConsultaRepository;
+import br.edu.fatecpg.usafa.models.Consulta;
+import br.edu.fatecpg.usafa.models.Medico;
+import br.edu.fatecpg.usafa.models.TipoConsulta;
+
+class AvailabilityIndexTest {
+
+    private static final String MEDICO_ID = "crm|sp|123456";
+    private static final List<String> GRADE = List.of("09:00", "10:00", "11:00", "13:00", "14:00", "15:00", "16:00");
+
+    private final IConsultaRepository consultaRepository = mock(IConsultaRepository.class);
+    private final ConsultaDocumentRepository consultaDocumentRepository = mock(ConsultaDocumentRepository.class);
+    private final IMedicoRepository medicoRepository = mock(IMedicoRepository.class);
+    private final LocalDate dia = LocalDate.now().plusWeeks(2).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+    private final Medico medico = new Medico();
+
+    private AvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        TipoConsulta tipo = new TipoConsulta();
+        tipo.setPublicId("cardiologia");
+        medico.setPublicId(MEDICO_ID);
+        medico.setNome("Dra. Ana");
+        medico.setTipoConsulta(tipo);
+
+        when(medicoRepository.findAllByOrderByNomeAsc()).thenReturn(List.of(medico));
+        when(consultaRepository.findByDiaGreaterThanEqual(any())).thenReturn(List.of());
+        when(consultaDocumentRepository.findSlotsFrom(any())).thenReturn(List.of());
+
+        index = new AvailabilityIndex(consultaRepository, consultaDocumentRepository, medicoRepository,
+                mock(StringRedisTemplate.class), mock(RedisMessageListenerContainer.class));
+        index.rebuild();
+    }
+
+    @Test
+    void rebuildMarksSlotsFromBothDatabases() {
+        Consulta consulta = new Consulta();
+        consulta.setMedico(medico);
+        consulta.setDia(dia);
+        consulta.setHorario(LocalTime.of(9, 0));
+        when(consultaRepository.findByDiaGreaterThanEqual(any())).thenReturn(List.of(consulta));
+        when(consultaDocumentRepository.findSlotsFrom(any())).thenReturn(List.of(document(LocalTime.of(16, 0))));
+
+        index.rebuild();
+
+        assertThat(freeOn(dia)).containsExactly("10:00", "11:00", "13:00", "14:00", "15:00");
+    }
+
+    @Test
+    void occupyAndVacateFlipOnlyTheirBit() {
+        index.occupy(slot(14, 0));
+        index.occupy(slot(15, 0));
+        assertThat(freeOn(dia)).containsExactly("09:00", "10:00", "11:00", "13:00", "16:00");
+
+        index.vacate(slot(14, 0));
+        assertThat(freeOn(dia)).containsExactly("09:00", "10:00", "11:00", "13:00", "14:00", "16:00");
+
+        // Vagar um horário livre não muda nada
+        index.vacate(slot(14, 0));
+        assertThat(freeOn(dia)).doesNotContain("15:00").hasSize(6);
+    }
+
+    @Test
+    void fullyBookedDayIsOmittedAndOffGridHorarioIgnored() {
+        index.occupy(slot(12, 0));
+        GRADE.forEach(h -> index.occupy(new ConsultaSlot(MEDICO_ID, dia, LocalTime.parse(h))));
+
+        assertThat(index.findFree(MEDICO_ID, null, dia)).isEmpty();
+        assertThat(index.findFree(MEDICO_ID, null, dia.plusDays(1))).hasSize(1);
+    }
+
+    @Test
+    void pubSubUpdateWithSeparatorInMedicoIdIsApplied() {
+        index.onMessage(message("+|" + MEDICO_ID + "|" + dia + "|10:00"), null);
+        assertThat(freeOn(dia)).doesNotContain("10:00");
+
+        index.onMessage(message("-|" + MEDICO_ID + "|" + dia + "|10:00"), null);
+        assertThat(freeOn(dia)).containsExactlyElementsOf(GRADE);
+    }
+
+    @Test
+    void malformedPubSubUpdateIsIgnored() {
+        index.onMessage(message("+|" + MEDICO_ID + "|ontem|10:00"), null);
+        index.onMessage(message("lixo"), null);
+
+        assertThat(freeOn(dia)).containsExactlyElementsOf(GRADE);
+    }
+
+    @Test
+    void updatesReceivedDuringRebuildSurviveTheSwap() {
+        // Enquanto o rebuild lê o MongoDB: uma reserva nova e uma consulta (já lida do Postgres) apagada
+        Consulta apagada = new Consulta();
+        apagada.setMedico(medico);
+        apagada.setDia(dia);
+        apagada.setHorario(LocalTime.of(11, 0));
+        when(consultaRepository.findByDiaGreaterThanEqual(any())).thenReturn(List.of(apagada));
+        when(consultaDocumentRepository.findSlotsFrom(any())).thenAnswer(invocation -> {
+            index.occupy(slot(9, 0));
+            index.vacate(slot(11, 0));
+            return List.of();
+        });
+
+        index.rebuild();
+
+        assertThat(freeOn(dia)).containsExactly("10:00", "11:00", "13:00", "14:00", "15:00", "16:00");
+    }
+
+    @Test
+    void failedRebuildKeepsCurrentIndexAndStopsRecording() {
+        index.occupy(slot(9, 0));
+        when(consultaDocumentRepository.findSlotsFrom(any())).thenThrow(new IllegalStateException("MongoDB fora"));
+
+        assertThatThrownBy(index::rebuild).isInstanceOf(IllegalStateException.class);
+        index.occupy(slot(10, 0));
+
+        assertThat(freeOn(dia)).containsExactly("11:00", "13:00", "14:00", "15:00", "16:00");
+    }
+
+    private List<String> freeOn(LocalDate d) {
+        List<AvailabilityDTO> free = index.findFree(MEDICO_ID, "cardiologia", d);
+        assertThat(free).hasSize(1);
+        return free.get(0).getHorarios();
+    }
+
+    private ConsultaSlot slot(int hour, int minute) {
+        return new ConsultaSlot(MEDICO_ID, dia, LocalTime.of(hour, minute));
+    }
+
+    private ConsultaDocument document(LocalTime horario) {
+        ConsultaDocument document = new ConsultaDocument();
+        document.setMedicoPublicId(MEDICO_ID);
+        document.setDia(dia);
+        document.setHorario(horario);
+        return document;
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(AvailabilityIndex.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,223 @@
+package br.edu.fatecpg.usafa.features.consulta.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.rabbitmq.client.Channel;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import br.edu.fatecpg.usafa.document.ConsultaDocument;
+import br.edu.fatecpg.usafa.features.Admin.repositories.IMedicoRepository;
+import br.edu.fatecpg.usafa.features.Admin.repositories.ITipoConsultaRepository;
+import br.edu.fatecpg.usafa.features.auth.repositories.IUserRepository;
+import br.edu.fatecpg.usafa.features.caching.ICacheService;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaMessageDTO;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaRequestDTO;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaSlot;
+import br.edu.fatecpg.usafa.features.consulta.notifications.NotificationService;
+import br.edu.fatecpg.usafa.models.Medico;
+import br.edu.fatecpg.usafa.models.TipoConsulta;
+import br.edu.fatecpg.usafa.models.User;
+
+class ConsultaConsumerServiceTest {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulkOperations = mock(BulkOperations.class);
+    private final IUserRepository userRepository = mock(IUserRepository.class);
+    private final IMedicoRepository medicoRepository = mock(IMedicoRepository.class);
+    private final ITipoConsultaRepository tipoConsultaRepository = mock(ITipoConsultaRepository.class);
+    private final ICacheService cacheService = mock(ICacheService.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final ConsultaIdempotencyService idempotencyService = mock(ConsultaIdempotencyService.class);
+    private final ConsultaRetryService retryService = mock(ConsultaRetryService.class);
+    private final SlotReservationService slotReservationService = mock(SlotReservationService.class);
+    private final AvailabilityIndex availabilityIndex = mock(AvailabilityIndex.class);
+    private final Channel channel = mock(Channel.class);
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    private final User user = new User();
+    private final Medico medico = new Medico();
+    private final TipoConsulta tipo = new TipoConsulta();
+
+    private ConsultaConsumerService consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new ConsultaConsumerService(mongoTemplate, userRepository, medicoRepository,
+                tipoConsultaRepository, cacheService, notificationService, objectMapper, idempotencyService,
+                retryService, slotReservationService, availabilityIndex);
+
+        user.setName("Paciente");
+        tipo.setId(1L);
+        tipo.setPublicId(UUID.randomUUID().toString());
+        tipo.setNome("Cardiologia");
+        medico.setPublicId(UUID.randomUUID().toString());
+        medico.setNome("Dra. Ana");
+        medico.setTipoConsulta(tipo);
+
+        when(userRepository.findByPublicIdIn(any())).thenReturn(List.of(user));
+        when(medicoRepository.findByPublicIdIn(any())).thenReturn(List.of(medico));
+        when(tipoConsultaRepository.findByPublicIdIn(any())).thenReturn(List.of(tipo));
+        when(idempotencyService.findProcessed(anyList()))
+                .thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).stream().map(key -> false).toList());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ConsultaDocument.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+    }
+
+    @Test
+    void marksKeyProcessedOnlyAfterDocumentIsSaved() throws Exception {
+        String key = scopedKey("chave-1");
+
+        consumer.handleConsultaBatch(List.of(message(1, key, "09:00")), channel);
+
+        InOrder order = inOrder(bulkOperations, idempotencyService, channel);
+        order.verify(bulkOperations).execute();
+        order.verify(idempotencyService).markProcessed(List.of(key));
+        order.verify(channel).basicAck(1, false);
+        verify(availabilityIndex).occupy(any());
+    }
+
+    @Test
+    void redeliveryOfAlreadySavedRequestIsAckedWithoutSideEffects() throws Exception {
+        // O consumidor caiu depois do insert e antes de marcar a chave: a mensagem volta
+        String key = scopedKey("chave-1");
+        failInsertWith(new BulkWriteError(DUPLICATE_KEY, "E11000 duplicate key", new BsonDocument(), 0));
+        ConsultaDocument alreadySaved = new ConsultaDocument();
+        alreadySaved.setIdempotencyKey(key);
+        when(mongoTemplate.find(any(Query.class), eq(ConsultaDocument.class))).thenReturn(List.of(alreadySaved));
+
+        consumer.handleConsultaBatch(List.of(message(7, key, "09:00")), channel);
+
+        verify(channel).basicAck(7, false);
+        verify(idempotencyService).markProcessed(List.of(key));
+        verify(retryService, never()).park(any(), anyString());
+        verify(retryService, never()).retry(any(), anyString());
+        verify(slotReservationService, never()).release(any(), any());
+        verify(notificationService, never()).sendConsultaConfirmation(any(), any());
+    }
+
+    @Test
+    void slotTakenByAnotherRequestIsParkedAndReleasesOnlyItsReservation() throws Exception {
+        // Lote misto: a primeira é gravada, a segunda bate no índice único do horário
+        String savedKey = scopedKey("chave-1");
+        String conflictKey = scopedKey("chave-2");
+        failInsertWith(new BulkWriteError(DUPLICATE_KEY, "E11000 duplicate key", new BsonDocument(), 1));
+        when(mongoTemplate.find(any(Query.class), eq(ConsultaDocument.class))).thenReturn(List.of());
+
+        consumer.handleConsultaBatch(List.of(message(1, savedKey, "09:00"), message(2, conflictKey, "10:00")), channel);
+
+        verify(channel).basicAck(1, false);
+        verify(retryService).park(any(), contains("horário já reservado"));
+        verify(channel).basicAck(2, false);
+        ConsultaSlot conflictSlot = new ConsultaSlot(medico.getPublicId(), LocalDate.of(2030, 11, 20), LocalTime.of(10, 0));
+        verify(slotReservationService).release(conflictSlot, conflictKey);
+        // O horário continua ocupado pela outra consulta
+        verify(availabilityIndex, never()).vacate(any());
+        verify(idempotencyService).markProcessed(List.of(savedKey));
+        verify(retryService, never()).retry(any(), anyString());
+    }
+
+    @Test
+    void medicoWithNonUuidPublicIdIsSaved() throws Exception {
+        medico.setPublicId("crm-sp-123456");
+
+        consumer.handleConsultaBatch(List.of(message(6, scopedKey("chave-1"), "09:00")), channel);
+
+        verify(bulkOperations).execute();
+        verify(retryService, never()).park(any(), anyString());
+        verify(idempotencyService).markProcessed(List.of(scopedKey("chave-1")));
+    }
+
+    @Test
+    void mongoFailureSchedulesRetryWithoutMarkingProcessed() throws Exception {
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("MongoDB fora"));
+
+        consumer.handleConsultaBatch(List.of(message(3, scopedKey("chave-1"), "09:00")), channel);
+
+        verify(retryService).retry(any(), anyString());
+        verify(channel).basicAck(3, false);
+        verify(idempotencyService, never()).markProcessed(any());
+    }
+
+    @Test
+    void duplicateCheckFailureRetriesInsteadOfDropping() throws Exception {
+        failInsertWith(new BulkWriteError(DUPLICATE_KEY, "E11000 duplicate key", new BsonDocument(), 0));
+        when(mongoTemplate.find(any(Query.class), eq(ConsultaDocument.class)))
+                .thenThrow(new DataAccessResourceFailureException("MongoDB fora"));
+
+        consumer.handleConsultaBatch(List.of(message(4, scopedKey("chave-1"), "09:00")), channel);
+
+        verify(retryService).retry(any(), anyString());
+        verify(retryService, never()).park(any(), anyString());
+        verify(idempotencyService, never()).markProcessed(List.of(scopedKey("chave-1")));
+    }
+
+    @Test
+    void alreadyProcessedKeyIsAckedBeforeTouchingDatabases() throws Exception {
+        when(idempotencyService.findProcessed(anyList())).thenReturn(List.of(true));
+
+        consumer.handleConsultaBatch(List.of(message(5, scopedKey("chave-1"), "09:00")), channel);
+
+        verify(channel).basicAck(5, false);
+        verifyNoInteractions(mongoTemplate, userRepository);
+        verify(channel, never()).basicReject(anyLong(), anyBoolean());
+    }
+
+    private void failInsertWith(BulkWriteError... errors) {
+        BulkOperationException exception = mock(BulkOperationException.class);
+        when(exception.getErrors()).thenReturn(List.of(errors));
+        when(bulkOperations.execute()).thenThrow(exception);
+    }
+
+    private String scopedKey(String clientKey) {
+        return user.getPublicId() + ":" + clientKey;
+    }
+
+    private Message message(long deliveryTag, String idempotencyKey, String horario) {
+        ConsultaRequestDTO request = new ConsultaRequestDTO();
+        request.setMedicoId(medico.getPublicId());
+        request.setTipoId(tipo.getPublicId());
+        request.setDia("20/11/2030");
+        request.setHorario(horario);
+        request.setSintomas("Dor de cabeça");
+
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        byte[] body = objectMapper.writeValueAsBytes(
+                new ConsultaMessageDTO(request, user.getPublicId().toString(), idempotencyKey));
+        return new Message(body, properties);
+    }
+}
@@ -0,0 +1,103 @@
+package br.edu.fatecpg.usafa.features.consulta.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.edu.fatecpg.usafa.RedisTestSupport;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaRequestDTO;
+import br.edu.fatecpg.usafa.features.consulta.services.ConsultaIdempotencyService.ClaimedRequest;
+
+class ConsultaIdempotencyServiceTest extends RedisTestSupport {
+
+    private ConsultaIdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ConsultaIdempotencyService(redisTemplate, 24, 30);
+    }
+
+    @Test
+    void keyIsProcessedOnlyAfterBeingMarked() {
+        List<String> keys = List.of("usuario:a", "usuario:b");
+
+        assertThat(service.findProcessed(keys)).containsExactly(false, false);
+
+        service.markProcessed(List.of("usuario:b"));
+
+        assertThat(service.findProcessed(keys)).containsExactly(false, true);
+        assertThat(redisTemplate.getExpire("consulta:processed:usuario:b")).isPositive();
+    }
+
+    @Test
+    void firstClaimWinsAndLaterClaimsSeeItsFingerprint() {
+        String key = service.scopedKey("usuario", "chave");
+
+        assertThat(service.claimRequest(key, "impressao-1")).isEmpty();
+        assertThat(service.claimRequest(key, "impressao-2"))
+                .contains(new ClaimedRequest("impressao-1", false));
+    }
+
+    @Test
+    void claimIsPendingUntilAccepted() {
+        String key = service.scopedKey("usuario", "chave");
+        service.claimRequest(key, "impressao-1");
+
+        assertThat(service.claimRequest(key, "impressao-1")).contains(new ClaimedRequest("impressao-1", false));
+        assertThat(redisTemplate.getExpire("consulta:idempotency:" + key)).isLessThanOrEqualTo(30);
+
+        service.acceptRequest(key, "impressao-1");
+
+        assertThat(service.claimRequest(key, "impressao-1")).contains(new ClaimedRequest("impressao-1", true));
+        assertThat(redisTemplate.getExpire("consulta:idempotency:" + key)).isGreaterThan(30);
+    }
+
+    @Test
+    void acceptDoesNotRecreateReleasedKey() {
+        String key = service.scopedKey("usuario", "chave");
+        service.claimRequest(key, "impressao-1");
+        service.releaseRequest(key);
+
+        service.acceptRequest(key, "impressao-1");
+
+        assertThat(redisTemplate.hasKey("consulta:idempotency:" + key)).isFalse();
+    }
+
+    @Test
+    void keyStoredWithoutStateCountsAsAccepted() {
+        String key = service.scopedKey("usuario", "chave");
+        redisTemplate.opsForValue().set("consulta:idempotency:" + key, "impressao-1");
+
+        assertThat(service.claimRequest(key, "impressao-1")).contains(new ClaimedRequest("impressao-1", true));
+    }
+
+    @Test
+    void releasedRequestCanBeClaimedAgain() {
+        String key = service.scopedKey("usuario", "chave");
+        service.claimRequest(key, "impressao-1");
+
+        service.releaseRequest(key);
+
+        assertThat(service.claimRequest(key, "impressao-2")).isEmpty();
+    }
+
+    @Test
+    void fingerprintDependsOnRequestContent() {
+        ConsultaRequestDTO request = request("09:00");
+
+        assertThat(service.fingerprint(request)).isEqualTo(service.fingerprint(request("09:00")));
+        assertThat(service.fingerprint(request)).isNotEqualTo(service.fingerprint(request("10:00")));
+    }
+
+    private static ConsultaRequestDTO request(String horario) {
+        ConsultaRequestDTO request = new ConsultaRequestDTO();
+        request.setMedicoId("medico");
+        request.setTipoId("tipo");
+        request.setDia("20/11/2030");
+        request.setHorario(horario);
+        return request;
+    }
+}
@@ -0,0 +1,93 @@
+package br.edu.fatecpg.usafa.features.consulta.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.edu.fatecpg.usafa.RedisTestSupport;
+import br.edu.fatecpg.usafa.features.consulta.dtos.ConsultaSlot;
+
+class SlotReservationServiceTest extends RedisTestSupport {
+
+    private final ConsultaSlot slot = new ConsultaSlot("crm-sp-123456", LocalDate.now().plusDays(7), LocalTime.of(9, 0));
+    private SlotReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SlotReservationService(redisTemplate, 24, 10);
+    }
+
+    @Test
+    void firstOwnerTakesSlotAndMayReserveAgain() {
+        assertThat(service.reserve(slot, "dono-1")).isTrue();
+        assertThat(service.reserve(slot, "dono-1")).isTrue();
+        assertThat(service.reserve(slot, "dono-2")).isFalse();
+        assertThat(redisTemplate.getExpire("consulta:slot:" + slot.key())).isPositive();
+    }
+
+    @Test
+    void onlyOwnerReleasesSlot() {
+        service.reserve(slot, "dono-1");
+
+        service.release(slot, "dono-2");
+        assertThat(service.reserve(slot, "dono-2")).isFalse();
+
+        service.release(slot, "dono-1");
+        assertThat(service.reserve(slot, "dono-2")).isTrue();
+    }
+
+    @Test
+    void unconfirmedReservationIsKeptOnlyForShortTtl() {
+        service.reserve(slot, "dono-1");
+
+        service.holdUnconfirmed(slot, "dono-2");
+        assertThat(redisTemplate.getExpire("consulta:slot:" + slot.key())).isGreaterThan(600);
+
+        service.holdUnconfirmed(slot, "dono-1");
+        assertThat(redisTemplate.getExpire("consulta:slot:" + slot.key())).isBetween(1L, 600L);
+        assertThat(service.reserve(slot, "dono-1")).isTrue();
+        assertThat(service.reserve(slot, "dono-2")).isFalse();
+    }
+
+    @Test
+    void appointmentTakesSlotOverPendingRequest() {
+        String request = "usuario:chave";
+        String appointment = "9b2f1c3e-0000-4000-8000-000000000001";
+        service.reserve(slot, request);
+
+        assertThat(service.reserveOverRequest(slot, appointment)).isTrue();
+
+        // A solicitação recusada depois não apaga a reserva da consulta
+        service.release(slot, request);
+        assertThat(service.reserve(slot, request)).isFalse();
+        assertThat(service.reserveOverRequest(slot, appointment)).isTrue();
+    }
+
+    @Test
+    void appointmentDoesNotTakeSlotOfAnotherAppointment() {
+        service.reserveOverRequest(slot, "9b2f1c3e-0000-4000-8000-000000000001");
+
+        assertThat(service.reserveOverRequest(slot, "9b2f1c3e-0000-4000-8000-000000000002")).isFalse();
+    }
+
+    @Test
+    void freeReleasesSlotRegardlessOfOwner() {
+        service.reserve(slot, "dono-1");
+
+        service.free(slot);
+
+        assertThat(service.reserve(slot, "dono-2")).isTrue();
+    }
+
+    @Test
+    void pastSlotStillGetsMinimumTtl() {
+        ConsultaSlot past = new ConsultaSlot("medico", LocalDate.now().minusDays(30), LocalTime.of(9, 0));
+
+        assertThat(service.reserve(past, "dono-1")).isTrue();
+        assertThat(redisTemplate.getExpire("consulta:slot:" + past.key())).isPositive();
+    }
+}
@@ -0,0 +1,152 @@
+package br.edu.fatecpg.usafa.shared.tokens;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import br.edu.fatecpg.usafa.RedisTestSupport;
+import br.edu.fatecpg.usafa.shared.exceptions.InvalidRefreshTokenException;
+
+class RefreshTokenServiceTest extends RedisTestSupport {
+
+    private final UUID userId = UUID.randomUUID();
+    private final TokenRevocationService tokenRevocations = mock(TokenRevocationService.class);
+    private RefreshTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new RefreshTokenService(redisTemplate, tokenRevocations, 14);
+    }
+
+    @Test
+    void rotateReturnsSessionDataAndNewTokenInSameFamily() {
+        String token = service.issue(userId, "paciente@usafa.com", List.of("ROLE_USER", "ROLE_ADMIN"));
+
+        RefreshTokenSession session = service.rotate(token);
+
+        assertThat(session.userId()).isEqualTo(userId.toString());
+        assertThat(session.email()).isEqualTo("paciente@usafa.com");
+        assertThat(session.roles()).containsExactly("ROLE_USER", "ROLE_ADMIN");
+        assertThat(session.refreshToken()).isNotEqualTo(token);
+        assertThat(familyOf(session.refreshToken())).isEqualTo(familyOf(token));
+    }
+
+    @Test
+    void rotatedTokenCanBeRotatedAgain() {
+        String first = service.issue(userId, "paciente@usafa.com", List.of());
+        String second = service.rotate(first).refreshToken();
+
+        RefreshTokenSession third = service.rotate(second);
+
+        assertThat(third.roles()).isEmpty();
+        assertThat(third.refreshToken()).isNotIn(first, second);
+    }
+
+    @Test
+    void reusingRotatedTokenRevokesWholeFamily() {
+        String first = service.issue(userId, "paciente@usafa.com", List.of("ROLE_USER"));
+        String second = service.rotate(first).refreshToken();
+
+        assertThatThrownBy(() -> service.rotate(first)).isInstanceOf(InvalidRefreshTokenException.class);
+        // O token legítimo mais recente também deixa de valer
+        assertThatThrownBy(() -> service.rotate(second)).isInstanceOf(InvalidRefreshTokenException.class);
+        assertThat(redisTemplate.keys("auth:refresh:*")).isEmpty();
+    }
+
+    @Test
+    void otherFamiliesSurviveReuseDetection() {
+        String stolen = service.issue(userId, "paciente@usafa.com", List.of("ROLE_USER"));
+        String otherDevice = service.issue(userId, "paciente@usafa.com", List.of("ROLE_USER"));
+        service.rotate(stolen);
+
+        assertThatThrownBy(() -> service.rotate(stolen)).isInstanceOf(InvalidRefreshTokenException.class);
+
+        assertThat(service.rotate(otherDevice).userId()).isEqualTo(userId.toString());
+    }
+
+    @Test
+    void sessionOpenedBeforeUserRevocationIsRejectedAndDeleted() {
+        String token = service.issue(userId, "paciente@usafa.com", List.of("ROLE_USER"));
+        when(tokenRevocations.isRevoked(eq(userId.toString()), anyLong())).thenReturn(true);
+
+        assertThatThrownBy(() -> service.rotate(token)).isInstanceOf(InvalidRefreshTokenException.class);
+        assertThat(redisTemplate.keys("auth:refresh:*")).isEmpty();
+    }
+
+    @Test
+    void revokeAllEndsSessionsEvenAfterRevocationMarkerExpires() {
+        String token = service.issue(userId, "paciente@usafa.com", List.of("ROLE_USER"));
+        String renewed = service.rotate(token).refreshToken();
+        TokenRevocationService realRevocations = new TokenRevocationService(redisTemplate,
+                mock(RedisMessageListenerContainer.class), 900_000, 14, 300, 1000);
+
+        realRevocations.revokeAll(userId);
+        // O marcador venceu (o mock de tokenRevocations responde "não revogado"): só a família apagada barra
+        redisTemplate.delete("token-revoked-before-ms:" + userId);
+
+        assertThatThrownBy(() -> service.rotate(renewed)).isInstanceOf(InvalidRefreshTokenException.class);
+        assertThat(redisTemplate.keys("auth:refresh:*")).isEmpty();
+    }
+
+    @Test
+    void revocationMarkerOutlivesRefreshSessions() {
+        TokenRevocationService realRevocations = new TokenRevocationService(redisTemplate,
+                mock(RedisMessageListenerContainer.class), 900_000, 14, 300, 1000);
+
+        realRevocations.revokeAll(userId);
+
+        assertThat(redisTemplate.getExpire("token-revoked-before-ms:" + userId))
+                .isGreaterThanOrEqualTo(Duration.ofDays(14).minusMinutes(1).toSeconds());
+    }
+
+    @Test
+    void sessionsOpenedAfterRevokeAllStillWork() {
+        service.issue(userId, "paciente@usafa.com", List.of("ROLE_USER"));
+        TokenRevocationService realRevocations = new TokenRevocationService(redisTemplate,
+                mock(RedisMessageListenerContainer.class), 900_000, 14, 300, 1000);
+        realRevocations.revokeAll(userId);
+
+        String newLogin = service.issue(userId, "paciente@usafa.com", List.of("ROLE_USER", "ROLE_ADMIN"));
+
+        assertThat(service.rotate(newLogin).roles()).containsExactly("ROLE_USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    void revokeOnlyEndsSessionWithCurrentSecret() {
+        String first = service.issue(userId, "paciente@usafa.com", List.of("ROLE_USER"));
+        String second = service.rotate(first).refreshToken();
+
+        // Logout com um token já trocado não encerra a sessão atual
+        service.revoke(first);
+        String third = service.rotate(second).refreshToken();
+
+        service.revoke(third);
+        assertThatThrownBy(() -> service.rotate(third)).isInstanceOf(InvalidRefreshTokenException.class);
+    }
+
+    @Test
+    void malformedOrUnknownTokensAreRejected() {
+        assertThatThrownBy(() -> service.rotate(null)).isInstanceOf(InvalidRefreshTokenException.class);
+        assertThatThrownBy(() -> service.rotate("sem-separador")).isInstanceOf(InvalidRefreshTokenException.class);
+        assertThatThrownBy(() -> service.rotate(".segredo")).isInstanceOf(InvalidRefreshTokenException.class);
+        assertThatThrownBy(() -> service.rotate("familia.")).isInstanceOf(InvalidRefreshTokenException.class);
+        assertThatThrownBy(() -> service.rotate(UUID.randomUUID() + ".segredo"))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+    }
+
+    private static String familyOf(String token) {
+        return token.substring(0, token.indexOf('.'));
+    }
+}
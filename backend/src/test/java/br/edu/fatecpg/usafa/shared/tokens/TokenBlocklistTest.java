@@ -0,0 +1,118 @@
+package br.edu.fatecpg.usafa.shared.tokens;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import br.edu.fatecpg.usafa.features.caching.IAsyncCacheService;
+import br.edu.fatecpg.usafa.features.caching.ICacheService;
+
+class TokenBlocklistTest {
+
+    private final ICacheService cacheService = mock(ICacheService.class);
+    private final IAsyncCacheService asyncCacheService = mock(IAsyncCacheService.class);
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+    private TokenBlocklist blocklist;
+
+    @BeforeEach
+    void setUp() {
+        blocklist = new TokenBlocklist(cacheService, asyncCacheService, stringRedisTemplate,
+                mock(RedisMessageListenerContainer.class), 60_000);
+    }
+
+    @Test
+    void asksRedisUntilFirstSync() {
+        when(asyncCacheService.existsAsync("blocklist:jti-1")).thenReturn(CompletableFuture.completedFuture(true));
+
+        assertThat(blocklist.isBlockedAsync("jti-1").join()).isTrue();
+        verify(asyncCacheService).existsAsync("blocklist:jti-1");
+    }
+
+    @Test
+    void answersFromReplicaAfterSync() {
+        givenRedisKeys(List.of("blocklist:jti-1", "blocklist:jti-expirado"), List.of(60_000L, -2L));
+
+        blocklist.sync();
+
+        assertThat(blocklist.isBlockedAsync("jti-1").join()).isTrue();
+        assertThat(blocklist.isBlockedAsync("jti-expirado").join()).isFalse();
+        assertThat(blocklist.isBlockedAsync("jti-desconhecido").join()).isFalse();
+        verify(asyncCacheService, never()).existsAsync(any());
+    }
+
+    @Test
+    void syncKeepsLogoutsReceivedByPubSub() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        blocklist.onMessage(new DefaultMessage(TokenBlocklist.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                ("jti-pubsub|" + expiresAt).getBytes(StandardCharsets.UTF_8)), null);
+        // O SCAN não viu o logout (ele chegou durante a sincronização)
+        givenRedisKeys(List.of(), List.of());
+
+        blocklist.sync();
+
+        assertThat(blocklist.isBlockedAsync("jti-pubsub").join()).isTrue();
+    }
+
+    @Test
+    void syncDropsExpiredEntries() {
+        blocklist.onMessage(new DefaultMessage(TokenBlocklist.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                ("jti-velho|" + (System.currentTimeMillis() - 1)).getBytes(StandardCharsets.UTF_8)), null);
+        givenRedisKeys(List.of(), List.of());
+
+        blocklist.sync();
+
+        assertThat(blocklist.isBlockedAsync("jti-velho").join()).isFalse();
+    }
+
+    @Test
+    void localBlockIsVisibleImmediately() {
+        givenRedisKeys(List.of(), List.of());
+        blocklist.sync();
+
+        blocklist.block("jti-logout", 300);
+
+        assertThat(blocklist.isBlockedAsync("jti-logout").join()).isTrue();
+        verify(stringRedisTemplate).convertAndSend(any(String.class), any(Object.class));
+    }
+
+    @Test
+    void failedSyncKeepsFallingBackToRedis() {
+        when(stringRedisTemplate.scan(any(ScanOptions.class))).thenThrow(new IllegalStateException("Redis fora"));
+        when(asyncCacheService.existsAsync("blocklist:jti-1")).thenReturn(CompletableFuture.completedFuture(false));
+
+        blocklist.sync();
+
+        assertThat(blocklist.isBlockedAsync("jti-1").join()).isFalse();
+        verify(asyncCacheService).existsAsync("blocklist:jti-1");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenRedisKeys(List<String> keys, List<Object> ttls) {
+        Iterator<String> iterator = keys.iterator();
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        doCallRealMethod().when(cursor).forEachRemaining(any());
+
+        when(stringRedisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        when(stringRedisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(ttls);
+    }
+}
@@ -0,0 +1,63 @@
+package br.edu.fatecpg.usafa.shared.tokens;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+class TokenRevocationServiceTest {
+
+    private static final String SECRET = "ZmFrZS1qd3Qtc2VjcmV0LWZvci11bml0LXRlc3RzLW9ubHktMzItYnl0ZXMhIQ==";
+
+    private final UUID userId = UUID.randomUUID();
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+    private TokenRevocationService revocations;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+        when(stringRedisTemplate.opsForSet()).thenReturn(mock(SetOperations.class));
+        revocations = new TokenRevocationService(stringRedisTemplate, mock(RedisMessageListenerContainer.class),
+                900_000, 14, 300, 1000);
+    }
+
+    @Test
+    void userWithoutRevocationIsNotRevoked() {
+        assertThat(revocations.isRevoked(userId.toString(), 0L)).isFalse();
+        assertThat(revocations.isRevoked(userId.toString(), System.currentTimeMillis())).isFalse();
+    }
+
+    @Test
+    void revocationComparesInMillisecondsWithinTheSameSecond() {
+        long before = System.currentTimeMillis();
+        revocations.revokeAll(userId);
+        long after = System.currentTimeMillis() + 1;
+
+        // Emitidos antes (ou no mesmo milissegundo) da revogação: inválidos
+        assertThat(revocations.isRevoked(userId.toString(), before)).isTrue();
+        // Um login logo depois, ainda no mesmo segundo, continua valendo
+        assertThat(revocations.isRevoked(userId.toString(), after)).isFalse();
+    }
+
+    @Test
+    void jwtCarriesIssuedAtInMilliseconds() {
+        JwtUtils jwtUtils = new JwtUtils(SECRET, 900_000);
+        long before = System.currentTimeMillis();
+
+        String token = jwtUtils.generateToken("paciente@usafa.com", userId, List.of("ROLE_USER"));
+
+        Instant issuedAt = jwtUtils.verify(token).orElseThrow().issuedAt();
+        assertThat(issuedAt.toEpochMilli()).isBetween(before, System.currentTimeMillis());
+    }
+}